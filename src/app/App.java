@@ -5,9 +5,13 @@ package app;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Font;
+import java.lang.reflect.InvocationTargetException;
 
 import javax.swing.JFrame;
+import javax.swing.JProgressBar;
+import javax.swing.JWindow;
 
 /** This is the main module, and the main window; but all it really does
  * is create an initialize a Board, which then carries the load.
@@ -30,6 +34,10 @@ public final class App extends JFrame {
 	/** The background color for cards in the card stack. */
 	public static final Color BACKGROUND = new Color(0x8A4C0F);
 	
+	/** The window showing the progress of loading at startup; it's
+	 * created and disposed of on the event dispatch thread. */
+	private static LoadingWindow loading = null;
+	
 
 	// Constructor
 	
@@ -51,10 +59,32 @@ public final class App extends JFrame {
 	 * @param args Unused
 	 */
 	public static void main(String[] args) {
+		// FIRST, show the loading window, creating it on the event
+		// dispatch thread.  If that fails, load without it.
+		try {
+			javax.swing.SwingUtilities.invokeAndWait(new Runnable() {
+				public void run() {
+					loading = new LoadingWindow();
+					loading.setVisible(true);
+				}
+			});
+		} catch (InterruptedException | InvocationTargetException e) {
+			System.err.println("Could not show the loading window: " + e);
+		}
+		
+		// NEXT, load the tile sheets and strings tables in the 
+		// background, showing the progress.
+		AssetLoader.loadAll(loading);
+        
 		//Schedule a job for the event dispatch thread:
         //creating and showing this application's GUI.
         javax.swing.SwingUtilities.invokeLater(new Runnable() {
             public void run() {
+            	if (loading != null) {
+            		loading.dispose();
+            		loading = null;
+            	}
+            	
                 createAndShowGUI();
             }
         });
@@ -63,5 +93,34 @@ public final class App extends JFrame {
 	private static void createAndShowGUI() {
 		new App();
 	}
+	
+	/** A small window showing the progress of the AssetLoader.  It's 
+	 * created, shown, and updated on the event dispatch thread; the
+	 * loader's workers report to it via invokeLater(). */
+	private static class LoadingWindow extends JWindow 
+		implements AssetLoader.Progress {
+		private final JProgressBar bar = new JProgressBar();
+		
+		LoadingWindow() {
+			bar.setStringPainted(true);
+			bar.setString("Loading...");
+			bar.setPreferredSize(new Dimension(300, 24));
+			add(bar, BorderLayout.CENTER);
+			pack();
+			setLocationRelativeTo(null);
+		}
+		
+		@Override
+		public void loaded(final String resource, final int done, 
+				final int total) {
+			javax.swing.SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					bar.setMaximum(total);
+					bar.setValue(done);
+					bar.setString("Loaded " + resource);
+				}
+			});
+		}
+	}
 
 }
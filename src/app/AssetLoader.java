@@ -0,0 +1,199 @@
+/**
+ *
+ */
+package app;
+
+import graphics.Buttons;
+import graphics.Effects;
+import graphics.Features;
+import graphics.Items;
+import graphics.Mobiles;
+import graphics.SheetCache;
+import graphics.Slots;
+import graphics.StandardTile;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import rpg.Condition;
+import rpg.RegionAsset;
+import rpg.monster.Monster;
+import rpg.pc.PlayerCharacter;
+import rpg.world.Quests;
+import rpg.world.World;
+import rpg.world.bugland.BugLand;
+import rpg.world.castle_floob.FloobEntry;
+import rpg.world.floobham.Floobham;
+import rpg.world.floobham.Sewers;
+import util.StringsTable;
+
+/** Loads the game's tile sheets and strings tables at startup, in
+ * parallel on a pool of worker threads, reporting progress as it goes.
+ * The loader only decodes and parses; the results are held until the
+ * classes that own them are initialized, as usual, and ask for them (see
+ * SheetCache and StringsTable.preload()).  Thus nothing depends on the
+ * order in which the resources are loaded, and a resource the loader
+ * doesn't know about is simply loaded when it's needed.<p>
+ *
+ * Decoded tile sheets are cached on disk, in ~/.george/cache, so that
+ * later launches needn't decode the PNG files.
+ * @author will
+ *
+ */
+public final class AssetLoader {
+	// Not instantiable
+	private AssetLoader() {}
+
+	/** Receives progress reports from the loader. */
+	public interface Progress {
+		/** Called on the thread that called loadAll() as each resource
+		 * is loaded.
+		 *
+		 * @param resource The resource just loaded
+		 * @param done The number of resources loaded so far
+		 * @param total The total number of resources
+		 */
+		void loaded(String resource, int done, int total);
+	}
+
+	/** The tile sheets: the class that owns each, and its resource name,
+	 * as the class itself names it. */
+	private static final Object[][] SHEETS = {
+		{ StandardTile.class, StandardTile.SHEET },
+		{ Mobiles.class, Mobiles.HUMAN_SHEET },
+		{ Mobiles.class, Mobiles.ANIMAL_SHEET },
+		{ Mobiles.class, Mobiles.DEMON_SHEET },
+		{ Mobiles.class, Mobiles.FAIRY_SHEET },
+		{ Mobiles.class, Mobiles.HUMANOID_SHEET },
+		{ Mobiles.class, Mobiles.INSECT_SHEET },
+		{ Mobiles.class, Mobiles.ROBOT_SHEET },
+		{ Mobiles.class, Mobiles.SLIME_SHEET },
+		{ Mobiles.class, Mobiles.UNDEAD_SHEET },
+		{ Items.class, Items.SHEET },
+		{ Features.class, Features.SHEET },
+		{ Effects.class, Effects.SHEET },
+		{ Slots.class, Slots.SHEET },
+		{ Buttons.class, Buttons.SHEET },
+		{ Condition.class, Condition.SHEET },
+		{ World.class, World.SHEET },
+		{ Floobham.class, Floobham.SHEET },
+		{ Sewers.class, Sewers.SHEET },
+		{ BugLand.class, BugLand.SHEET },
+		{ FloobEntry.class, FloobEntry.SHEET },
+	};
+
+	/** The strings tables: the class that owns each, and its resource
+	 * name, as the class itself names it.  A region's table is read from
+	 * its RegionAsset, if it has one. */
+	private static final Object[][] TABLES = {
+		{ PlayerCharacter.class, PlayerCharacter.STRINGS },
+		{ Monster.class, Monster.STRINGS },
+		{ Quests.class, Quests.STRINGS },
+		{ World.class, World.STRINGS },
+		{ Floobham.class, Floobham.STRINGS },
+		{ Sewers.class, Sewers.STRINGS },
+		{ BugLand.class, BugLand.STRINGS },
+		{ FloobEntry.class, FloobEntry.STRINGS },
+	};
+
+	/** Loads the tile sheets and strings tables, and waits until they are
+	 * all loaded.
+	 *
+	 * @param progress The progress listener, or null.
+	 */
+	public static void loadAll(Progress progress) {
+		SheetCache.setCacheDir(new File(System.getProperty("user.home"),
+				".george" + File.separator + "cache"));
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CompletionService<String> loader = new ExecutorCompletionService<>(pool);
+		int total = 0;
+
+		try {
+			// FIRST, queue up the work.  A resource that can't be found
+			// is reported here, as the loader would otherwise skip it
+			// silently.
+			for (final Object[] sheet : SHEETS) {
+				if (!exists(sheet)) {
+					continue;
+				}
+
+				total++;
+				loader.submit(new Callable<String>() {
+					public String call() {
+						SheetCache.preload((Class<?>)sheet[0], (String)sheet[1]);
+						return (String)sheet[1];
+					}
+				});
+			}
+
+			for (final Object[] table : TABLES) {
+				if (!exists(table)) {
+					continue;
+				}
+
+				total++;
+				loader.submit(new Callable<String>() {
+					public String call() {
+						preloadTable((Class<?>)table[0], (String)table[1]);
+						return (String)table[1];
+					}
+				});
+			}
+
+			// NEXT, report the resources as they are loaded.
+			for (int done = 1; done <= total; done++) {
+				String resource = loader.take().get();
+
+				if (progress != null) {
+					progress.loaded(resource, done, total);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// Anything not loaded here is loaded, or reported, when it's
+			// needed.
+			System.err.println("Error loading assets: " + e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/** Determines whether a resource exists, and reports it if not.
+	 *
+	 * @param resource The class that owns the resource, and its name
+	 * @return true if it exists, and false otherwise.
+	 */
+	private static boolean exists(Object[] resource) {
+		if (((Class<?>)resource[0]).getResource((String)resource[1]) != null) {
+			return true;
+		}
+
+		System.err.println("Missing resource: " +
+				((Class<?>)resource[0]).getName() + " " + resource[1]);
+		return false;
+	}
+
+	/** Preloads a strings table: opens the compiled region asset that
+	 * contains it, if there is one, and parses the table otherwise.
+	 *
+	 * @param cls The class that owns the resource
+	 * @param resource The resource name
+	 */
+	private static void preloadTable(Class<?> cls, String resource) {
+		RegionAsset asset = RegionAsset.find(cls, resource);
+
+		if (asset != null && asset.hasStrings()) {
+			asset.strings();
+		} else {
+			StringsTable.preload(cls, resource);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ *
+ */
+package app;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/** The AutoSaver writes save file snapshots on a background thread, so
+ * that neither the simulation nor the GUI waits on compression or disk
+ * I/O.  The snapshot itself is taken on the simulation thread, by
+ * SaveFile.snapshot, which serializes the game state there; once taken,
+ * it's independent of the game state, and the game can go on while it's
+ * written.<p>
+ *
+ * Only one write is in progress at a time.  Before taking a new
+ * snapshot, the caller should wait for the previous write to finish;
+ * the result says whether it succeeded, and hence whether the regions
+ * it marked clean really were saved.
+ * @author will
+ */
+final class AutoSaver {
+	// Instance Variables
+	private final ExecutorService executor =
+			Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "AutoSaver");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private Future<Boolean> pending = null;
+
+	//-------------------------------------------------------------------------
+	// Writing
+
+	/** @return true if a write is in progress, and false otherwise. */
+	boolean isBusy() {
+		return pending != null && !pending.isDone();
+	}
+
+	/** Waits for the write in progress, if any, to finish.
+	 *
+	 * @return true if the most recent write succeeded, or if there has
+	 * been no write, and false otherwise.
+	 */
+	boolean await() {
+		if (pending == null) {
+			return true;
+		}
+
+		try {
+			return pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			return false;
+		}
+	}
+
+	/** Writes a snapshot in the background.  When the write is
+	 * complete, calls the success or failure callback on the background
+	 * thread.
+	 *
+	 * @param snap The snapshot
+	 * @param onSuccess Called if the snapshot is written.
+	 * @param onFailure Called if it isn't.
+	 */
+	void write(final SaveFile.Snapshot snap,
+			final Runnable onSuccess, final Runnable onFailure) {
+		pending = executor.submit(new Callable<Boolean>() {
+			public Boolean call() {
+				try {
+					SaveFile.write(snap);
+				} catch (IOException | RuntimeException e) {
+					Board.get().println("Error writing " +
+							snap.file.getName() + ": " + e);
+					onFailure.run();
+					return false;
+				}
+
+				onSuccess.run();
+				return true;
+			}
+		});
+	}
+}
@@ -7,7 +7,10 @@ import graphics.Items;
 import graphics.Sprite;
 import gui.ScrollingLog;
 
+import java.awt.BorderLayout;
 import java.awt.CardLayout;
+import java.awt.Component;
+import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
@@ -16,12 +19,13 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,17 +33,22 @@ import java.util.List;
 import java.util.Map;
 
 import javax.swing.ButtonGroup;
+import javax.swing.Icon;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
 
 import map.Cell;
+import map.TerrainTile;
 import rpg.Entity;
+import rpg.Game;
 import rpg.Item;
 import rpg.Mobile;
 import rpg.MovementType;
 import rpg.Quest;
+import rpg.RPG;
 import rpg.Region;
 import rpg.Shopkeeper;
 import rpg.feature.Furniture;
@@ -52,6 +61,7 @@ import rpg.world.castle_floob.FloobEntry;
 import rpg.world.floobham.Floobham;
 import rpg.world.floobham.Sewers;
 import util.Dict;
+import util.Metrics;
 import util.Script;
 
 /** This module is the main GUI and logic module.  It creates the
@@ -59,14 +69,15 @@ import util.Script;
  * @author will
  */
  // Won't be serializing the actions.
-public class Board extends JPanel implements ActionListener {
+public class Board extends JPanel implements ActionListener, Game {
 	private static final long serialVersionUID = 6360525226613004197L;
 
 	//-------------------------------------------------------------------------
 	// Development Constants
 	
-	/** Enable to turn on debug mode. */
-	public static boolean DEBUG = false;
+	/** Enable to turn on debug mode; it may also be turned on by setting 
+	 * the "george.debug" system property to "true". */
+	public static boolean DEBUG = Boolean.getBoolean("george.debug");
 
 	//-------------------------------------------------------------------------
 	// Singleton Implementation
@@ -97,6 +108,11 @@ public class Board extends JPanel implements ActionListener {
 	/** The key/value memory: a Dict for stashing arbitrary data. */
 	public Dict memory;
 	
+	/** @return the API for managing the party of player characters. */
+	public PartyManager party() {
+		return party;
+	}
+	
 	//-------------------------------------------------------------------------
 	// Application Constants
 	
@@ -116,6 +132,9 @@ public class Board extends JPanel implements ActionListener {
 	
 	/** The number of ticks that pass during one full found of combat. */
 	private static final int COMBAT_TICKS = 8;
+	
+	/** The number of ticks between autosaves. */
+	private static final int AUTOSAVE_TICKS = 200;
 
 	
 	// Card Names
@@ -172,17 +191,20 @@ public class Board extends JPanel implements ActionListener {
 	private QuestPanel questCard;
 	private BigMapPanel bigMapCard;
 	private ShopPanel shopCard;
-	private String currentCard = MAP;
+	private volatile String currentCard = MAP;
 	private ControlBar controlBar;
 	private ScrollingLog slog;
 	private Entity effectSprite = null;
 
 	// Model 
-	private Timer timer;
+	private Simulation sim;
 	private Script script = new Script();
 	
-	private Map<String,Region> regions;
+	private RegionStore regions = new RegionStore();
 	private Region region;  // The current region
+	private File lastSaveFile = null;  // The file last saved to
+	private AutoSaver saver = new AutoSaver();
+	private int autosaved = 0;   // The clock at the last autosave
 	
 	private boolean inGame = true;
 	private int clock = 0;
@@ -288,10 +310,42 @@ public class Board extends JPanel implements ActionListener {
 		lpc.fill = GridBagConstraints.HORIZONTAL;
 		add(slog, lpc);
 
-		// NEXT, create the timer; George will move as the timer fires.  The
-		// timer will be started when George gets his first goal.
-		timer = new Timer(DELAY, this);
-		timer.setActionCommand("timer");
+		// NEXT, create the simulation; George will move as it steps.  It
+		// will be started when George gets his first goal.  After each
+		// step or command, capture a new frame for the map, which
+		// repaints whatever has changed on the map, and repaint the rest.
+		sim = new Simulation(DELAY, new Runnable() {
+			public void run() {
+				doTimer();
+			}
+		}, new Runnable() {
+			public void run() {
+				mapCard.capture();
+				repaintAroundMap();
+			}
+		});
+	}
+	
+	/** Repaints all of the board but the map card, which repaints
+	 * itself as needed when it captures a frame.  The other components
+	 * are cheap to paint, and show state that might change on any step,
+	 * e.g., the party's hit points.  This may be called from any thread;
+	 * the cards are looked at on the event dispatch thread.
+	 */
+	private void repaintAroundMap() {
+		statusBar.repaint();
+		controlBar.repaint();
+		slog.repaint();
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				for (Component card : cards.getComponents()) {
+					if (card != mapCard && card.isVisible()) {
+						card.repaint();
+					}
+				}
+			}
+		});
 	}
 	
 	//-------------------------------------------------------------------------
@@ -299,13 +353,27 @@ public class Board extends JPanel implements ActionListener {
 	// 
 	// This section contains the routines required to get a new game going.
 	
-	/** Starts the game. */
+	/** Starts the game.  The game state belongs to the simulation, so
+	 * if called from any other thread the work is handed off to it.
+	 */
 	public void start() {
+		if (!sim.isSimulationThread()) {
+			sim.submit(new Runnable() {
+				public void run() {
+					start();
+				}
+			});
+			return;
+		}
+		
 		// FIRST, create the memory objects.
 		party = new PartyManager();
 		quest = new QuestManager();
 		memory = new Dict();
-		regions = new HashMap<>(); 
+		saver.await();
+		regions.clear();
+		lastSaveFile = null;
+		autosaved = 0;
 
 		// NEXT, create the initial region.
 		region = new World();
@@ -329,17 +397,15 @@ public class Board extends JPanel implements ActionListener {
 	}
 	
 	/** End the game.  Output the message, so the user knows
-	 * that it's over, stop the timer so that nothing more happens,
+	 * that it's over, stop the simulation so that nothing more happens,
 	 * and restart.
 	 */
 	public void finish() {
 		log("Your party is dead!");
-		JOptionPane.showMessageDialog(this,
-				"Your entire party is dead;\ntime to start over.",
+		showMessage("Your entire party is dead;\ntime to start over.",
 				"You have died.",
-				JOptionPane.PLAIN_MESSAGE,
 				Items.SKULL.bigIcon());
-		timer.stop();
+		sim.stop();
 		start();
 	}
 
@@ -348,16 +414,14 @@ public class Board extends JPanel implements ActionListener {
 	 * @param pc The new party member */
 	public void join(PlayerCharacter pc) {
 		party.add(pc);
-		statusBar.setParty(party.allMembers());
+		setStatusParty();
 		
 		if (party.allMembers().size() > 1) {
 			pc.place(region, party.leader().place());
 			resetMovement();
 
-			JOptionPane.showMessageDialog(this, 
-					pc.name() + " joins the party.",
+			showMessage(pc.name() + " joins the party.",
 					pc.name(), 
-					JOptionPane.PLAIN_MESSAGE, 
 					pc.bigIcon());
 		}
 	}
@@ -392,18 +456,46 @@ public class Board extends JPanel implements ActionListener {
 	// handling.)
 	
 	
-	/** This routine dispatches actions sent by various buttons and timers to
-	 * the action handlers.
+	/** This routine dispatches actions sent by various buttons to
+	 * the action handlers.  Saving and loading pop up dialogs, and so
+	 * begin here on the event thread; all other actions are handed
+	 * off to the simulation.
 	 * @param e The action event
 	 */
-	public void actionPerformed(ActionEvent e) {
+	public void actionPerformed(final ActionEvent e) {
 		switch (e.getActionCommand()) {
-		case "timer": 				// The animation timer has fired.
-			if (inCombat())
-				doCombatTimer(e);
-			else
-				doNormalTimer(e);
+		case "save":
+			if (inCombat()) {
+				log("Can't save game while in combat.");
+				return;
+			}
+			GameSaver saver = new GameSaver();
+			saver.popup();
+			return;
+		case "load":
+			GameLoader loader = new GameLoader();
+			loader.popup();
+			return;
+		default:
 			break;
+		}
+		
+		if (!sim.isSimulationThread()) {
+			sim.submit(new Runnable() {
+				public void run() {
+					doAction(e);
+				}
+			});
+		} else {
+			doAction(e);
+		}
+	}
+	
+	/** Carries out a button action on the simulation thread.
+	 * @param e The action event
+	 */
+	private void doAction(ActionEvent e) {
+		switch (e.getActionCommand()) {
 		case "combat":
 			tryToEnterCombat();
 			repaint();
@@ -440,18 +532,6 @@ public class Board extends JPanel implements ActionListener {
 		case "pc3":
 			doSelectPlayerCharacter(3);
 			break;	
-		case "save":
-			if (inCombat()) {
-				log("Can't save game while in combat.");
-				return;
-			}
-			GameSaver saver = new GameSaver();
-			saver.popup();
-			break;
-		case "load":
-			GameLoader loader = new GameLoader();
-			loader.popup();
-			break;
 		case "weapon":
 			doWeapon();
 			break;
@@ -463,23 +543,58 @@ public class Board extends JPanel implements ActionListener {
 	
 	
 	/** This action does whatever's needed to exercise code during 
-	 * debugging. 
+	 * debugging.  At present, it turns the metrics on, showing them on
+	 * the map, or turns them off and dumps them to metrics.csv and
+	 * metrics.json in the save directory.
 	 * @param e
 	 */
 	private void doDebug(ActionEvent ae) {
-		println("Debug: nothing here");
+		if (!Metrics.isEnabled()) {
+			Metrics.setEnabled(true);
+			println("Debug: metrics on");
+			return;
+		}
+		
+		Metrics.setEnabled(false);
+		
+		File dir = new File(System.getProperty("user.home"), ".george");
+		
+		try {
+			dir.mkdirs();
+			Metrics.writeCsv(new File(dir, "metrics.csv"));
+			Metrics.writeJson(new File(dir, "metrics.json"));
+			println("Debug: metrics off; wrote metrics.csv and metrics.json to " + 
+					dir);
+		} catch (IOException e) {
+			println("Debug: could not write metrics: " + e);
+		}
 	}
 	
 
 
-	/** Timer Animation Handler, NORMAL mode.  This method handles movement and 
-	 * animation updates each time the animation timer goes off.
+	/** Simulation Step Handler.  Dispatches to the handler for the
+	 * current mode.
+	 */
+	private void doTimer() {
+		long start = Metrics.start();
+		
+		if (inCombat()) {
+			doCombatTimer();
+			Metrics.time("tick.combat", start);
+		} else {
+			doNormalTimer();
+			Metrics.time("tick.normal", start);
+		}
+		
+		Metrics.endTick();
+	}
+
+	/** Step Handler, NORMAL mode.  This method handles movement and 
+	 * animation updates each time the simulation steps.
 	 * 
 	 * Note: In NORMAL mode, the moveOrder doesn't matter.
-	 * 
-	 * @param e The action event.
 	 */
-	private void doNormalTimer(ActionEvent e) {
+	private void doNormalTimer() {
 		// FIRST, increment the clock.
 		tick();
 		
@@ -492,9 +607,9 @@ public class Board extends JPanel implements ActionListener {
 		PlayerCharacter leader = party.leader();
 		hideAllButLeader();
 		
-		// If the leader has no goal, stop the timer and wait.
+		// If the leader has no goal, stop the simulation and wait.
 		if (leader.getGoal() == null) {
-			timer.stop();
+			sim.stop();
 			return;
 		}
 		
@@ -512,8 +627,6 @@ public class Board extends JPanel implements ActionListener {
 				pc.place(leader.place());
 			}
 		}
-
-		repaint();
 		
 		// NEXT, if the party is dead (he stepped on a trap) we're done.
 		if (party.isDead()) {
@@ -525,20 +638,31 @@ public class Board extends JPanel implements ActionListener {
 		// we need to wait for input again.  Similarly, if we're in combat
 		// we need to end and wait for instructions.
 		if (!over || inCombat()) {
-			timer.stop();
+			sim.stop();
 			return;
 		}
 		
-		// NEXT, we animate all of the monsters and NPCs.  For each one, call 
-		// its move, then run its animation.  If it's too far away from the 
-		// leader, ignore it.
+		// NEXT, we animate all of the monsters and NPCs.  If it's too far 
+		// away from the leader, ignore it.  First they all plan their moves,
+		// in parallel; then, for each one, call its move, then run its 
+		// animation.
+		List<Mobile> movers = new ArrayList<>();
+		
 		for (Mobile m : region.getNonPartyMobiles()) {
-			if (m.place().diagonal(leader.place()) >= IDLE_RANGE) {
-				continue;
+			if (m.place().diagonal(leader.place()) < IDLE_RANGE) {
+				movers.add(m);
 			}
-			
+		}
+		
+		long start = Metrics.start();
+		region.planMoves(movers);
+		Metrics.time("plan", start);
+		
+		for (Mobile m : movers) {
 			// FIRST, get his move.
+			start = Metrics.start();
 			m.move(script);
+			Metrics.time("move", start);
 			
 			// NEXT, animate it.
 			while (script.isNotEmpty())
@@ -554,27 +678,29 @@ public class Board extends JPanel implements ActionListener {
 			// NEXT, should we enter combat?
 			if (shouldBeInCombatMode()) {
 				setMode(Mode.COMBAT);
-				timer.stop();
-				repaint();
+				sim.stop();
 				return;
 			}
 		}
 		
-		repaint();
+		// NEXT, save the game every so often, unless the last save is
+		// still being written.
+		if (clock - autosaved >= AUTOSAVE_TICKS && !saver.isBusy()) {
+			autosaved = clock;
+			saveGame(SaveMetadata.AUTO);
+		}
 	}
 	
-	/** Timer Animation Handler, COMBAT mode.  This method handles movement and 
-	 * animation updates each time the animation timer goes off.
-	 * @param e The action event.
+	/** Step Handler, COMBAT mode.  This method handles movement and 
+	 * animation updates each time the simulation steps.
 	 */
-	private void doCombatTimer(ActionEvent e) {
+	private void doCombatTimer() {
 		assert inGame == true;
 		
 		// FIRST, if the animation script isn't empty, animate and go on;
 		// otherwise, assess the current state of play.
 		if (script.isNotEmpty()) {
 			script.step();
-			repaint();
 			return;
 		}
 		
@@ -606,7 +732,7 @@ public class Board extends JPanel implements ActionListener {
 				selectPlayerCharacter(pc);
 
 				if (pc.getGoal() == null) {
-					timer.stop();
+					sim.stop();
 					return;
 				}
 			} else {
@@ -620,10 +746,11 @@ public class Board extends JPanel implements ActionListener {
 				}
 			}
 
+			long start = Metrics.start();
 			turnOver = moveOrder.get(0).move(script);
+			Metrics.time("move", start);
 			
-			controlBar.refresh();
-			repaint();
+			refreshControls();
 		}
 	}
 	
@@ -633,8 +760,12 @@ public class Board extends JPanel implements ActionListener {
 	 */
 	private void doInventory(ActionEvent e) {
 		if (isWaiting()) {
-			inventoryCard.refresh();
-			setCard(Board.INVENTORY);
+			swing(new Runnable() {
+				public void run() {
+					inventoryCard.refresh();
+					setCard(Board.INVENTORY);
+				}
+			});
 		}
 	}
 	
@@ -644,8 +775,12 @@ public class Board extends JPanel implements ActionListener {
 	 */
 	private void doQuestLog(ActionEvent e) {
 		if (isWaiting()) {
-			questCard.refresh();
-			setCard(Board.QUEST);
+			swing(new Runnable() {
+				public void run() {
+					questCard.refresh();
+					setCard(Board.QUEST);
+				}
+			});
 		}
 	}
 
@@ -655,8 +790,14 @@ public class Board extends JPanel implements ActionListener {
 	 */
 	private void doBigMap(ActionEvent e) {
 		if (isWaiting()) {
-			bigMapCard.setRegion(region);
-			setCard(Board.BIGMAP);
+			final Region r = region;
+			
+			swing(new Runnable() {
+				public void run() {
+					bigMapCard.setRegion(r);
+					setCard(Board.BIGMAP);
+				}
+			});
 		}
 	}
 
@@ -669,7 +810,7 @@ public class Board extends JPanel implements ActionListener {
 			pc.equipment.toggleWeaponPreference();
 		}
 		
-		controlBar.refresh();
+		refreshControls();
 	}
 	
 	/** Magnifier Button Handler.  When the user presses the button,
@@ -684,7 +825,7 @@ public class Board extends JPanel implements ActionListener {
 		
 		usingMagnifier = !usingMagnifier;
 		
-		controlBar.refresh();
+		refreshControls();
 	}
 	
 	/** @return true if the player is using the magnifier, and false
@@ -720,27 +861,35 @@ public class Board extends JPanel implements ActionListener {
 		// NEXT, if the inventory is displayed, show this PC.
 		// TBD: Make the party leader a property, so that we can
 		// use a propertyChange event for this.
-		if (getCard().equals(INVENTORY)) {
-			inventoryCard.refresh();
-		} else if (getCard().equals(SHOP)) {
-			shopCard.refresh();
-		}
+		swing(new Runnable() {
+			public void run() {
+				if (getCard().equals(INVENTORY)) {
+					inventoryCard.refresh();
+				} else if (getCard().equals(SHOP)) {
+					shopCard.refresh();
+				}
+			}
+		});
 		
-		controlBar.refresh();
+		refreshControls();
 	}
 
 	/** Selects the particular PC.
 	 * 
 	 * @param pc  The PC.
 	 */
-	private void selectPlayerCharacter(PlayerCharacter pc) {
-		statusBar.select(pc);
+	private void selectPlayerCharacter(final PlayerCharacter pc) {
+		swing(new Runnable() {
+			public void run() {
+				statusBar.select(pc);
+			}
+		});
 		
 		// If we are in normal mode, hide all but the leader.
 		if (!inCombat())
 			hideAllButLeader();
 		
-		controlBar.refresh();
+		refreshControls();
 	}
 	
 	/** @return the PC with selected status box. */
@@ -749,13 +898,17 @@ public class Board extends JPanel implements ActionListener {
 	}
 	
 	
-	/** Detects a click on the map, and notifies the object. */
+	/** Detects a click on the map, and hands it off to the simulation. */
 	private class MapMouseHandler extends MouseAdapter {
 		public void mousePressed(MouseEvent e) {
-			Cell rc = mapCard.xy2cell(e.getX(), e.getY());
+			final Cell rc = mapCard.xy2cell(e.getX(), e.getY());
 			
 			if (rc != null) {
-				handleMapClick(rc);
+				sim.submit(new Runnable() {
+					public void run() {
+						handleMapClick(rc);
+					}
+				});
 			}
 		}
 	}
@@ -763,7 +916,7 @@ public class Board extends JPanel implements ActionListener {
 	/** This is called when the user clicks on the map with a mouse. 
 	 * If the application is waiting for input for a player character,
 	 * then the the chosen cell is given to that PC as his new
-	 * goal.  Then we start the timer so that he can move to it.
+	 * goal.  Then we start the simulation so that he can move to it.
 	 * 
 	 * @param cell The cell the user clicked on.
 	 */
@@ -798,7 +951,7 @@ public class Board extends JPanel implements ActionListener {
 		PlayerCharacter pc = (PlayerCharacter)current;
 
 		pc.setGoal(cell);
-		timer.start();
+		sim.start();
 	}
 	
 	/** This call is used in NORMAL mode to hide all
@@ -814,8 +967,6 @@ public class Board extends JPanel implements ActionListener {
 				pc.setVisible(false);
 			}
 		}	
-		
-		repaint();
 	}
 	
 	/** Displays a detailed description of the current cell, if there
@@ -832,8 +983,7 @@ public class Board extends JPanel implements ActionListener {
 			return;
 		}
 		
-		JOptionPane.showMessageDialog(this, e.description(), e.name(),
-				JOptionPane.PLAIN_MESSAGE, e.bigIcon());
+		showMessage(e.description(), e.name(), e.bigIcon());
 		
 	}
 	
@@ -844,12 +994,22 @@ public class Board extends JPanel implements ActionListener {
 	 * 
 	 * @param name The name of the card.
 	 */
-	public void setCard(String name) {
-		CardLayout cl = (CardLayout)(cards.getLayout());
+	public void setCard(final String name) {
 		currentCard = name;
-		cl.show(cards, name);
 		
-		controlBar.refresh();
+		swing(new Runnable() {
+			public void run() {
+				CardLayout cl = (CardLayout)(cards.getLayout());
+				cl.show(cards, name);
+				
+				controlBar.refresh();
+			}
+		});
+		
+		// Back on the map, the other cards may have changed things.
+		if (name.equals(MAP)) {
+			refreshMap();
+		}
 	}
 	
 	/** @return the name of the currently-displayed UI card. */
@@ -861,9 +1021,120 @@ public class Board extends JPanel implements ActionListener {
 	 * 
 	 * @param keeper The shop keeper
 	 */
-	public void goShopping(Shopkeeper keeper) {
-		shopCard.setShopkeeper(keeper);
-		setCard(SHOP);
+	public void goShopping(final Shopkeeper keeper) {
+		swing(new Runnable() {
+			public void run() {
+				shopCard.setShopkeeper(keeper);
+				setCard(SHOP);
+			}
+		});
+	}
+	
+	/** Updates the control bar to match the game state. */
+	private void refreshControls() {
+		swing(new Runnable() {
+			public void run() {
+				controlBar.refresh();
+			}
+		});
+	}
+	
+	/** Gives the status bar the current party. */
+	private void setStatusParty() {
+		final List<PlayerCharacter> members = party.allMembers();
+		
+		swing(new Runnable() {
+			public void run() {
+				statusBar.setParty(members);
+			}
+		});
+	}
+	
+	/** Asks the simulation to capture a fresh frame of the map, e.g.,
+	 * after the inventory has been changed.
+	 */
+	private void refreshMap() {
+		if (!sim.isSimulationThread()) {
+			sim.submit(new Runnable() {
+				public void run() {
+					// Nothing to do; the frame is captured afterwards.
+				}
+			});
+		}
+	}
+	
+	/** Runs a GUI update on the Swing event thread: immediately, if
+	 * we're already on it, and otherwise as soon as possible.
+	 * 
+	 * @param update The update
+	 */
+	private void swing(Runnable update) {
+		if (SwingUtilities.isEventDispatchThread()) {
+			update.run();
+		} else {
+			SwingUtilities.invokeLater(update);
+		}
+	}
+	
+	/** Runs a GUI action on the Swing event thread, waiting until it
+	 * is complete.  This is used for dialogs, during which the game
+	 * must wait for the user.
+	 * 
+	 * @param action The action
+	 */
+	private void swingAndWait(Runnable action) {
+		if (SwingUtilities.isEventDispatchThread()) {
+			action.run();
+			return;
+		}
+		
+		try {
+			SwingUtilities.invokeAndWait(action);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Error in GUI action", e.getCause());
+		}
+	}
+	
+	/** Pops up a message dialog, and waits for the user to dismiss it.
+	 * This may be called from any thread.
+	 * 
+	 * @param message The message: text, or a component to display
+	 * @param title The dialog title
+	 * @param icon The icon
+	 */
+	public void showMessage(final Object message, final String title, 
+			final Icon icon) {
+		swingAndWait(new Runnable() {
+			public void run() {
+				JOptionPane.showMessageDialog(Board.this, message, title,
+						JOptionPane.PLAIN_MESSAGE, icon);
+			}
+		});
+	}
+	
+	/** Pops up a yes/no question, and waits for the user's answer.
+	 * This may be called from any thread.
+	 * 
+	 * @param message The message: text, or a component to display
+	 * @param title The dialog title
+	 * @param icon The icon
+	 * @return true if the user said yes, and false otherwise.
+	 */
+	public boolean showConfirm(final Object message, final String title, 
+			final Icon icon) {
+		final int[] answer = new int[1];
+		
+		swingAndWait(new Runnable() {
+			public void run() {
+				answer[0] = JOptionPane.showConfirmDialog(Board.this, message, 
+						title, JOptionPane.YES_NO_OPTION, 
+						JOptionPane.QUESTION_MESSAGE, icon);
+			}
+		});
+		
+		return answer[0] == JOptionPane.YES_OPTION;
 	}
 	
 
@@ -953,13 +1224,15 @@ public class Board extends JPanel implements ActionListener {
 		resetMovement();
 		
 		// NEXT, set up the GUI.
-		if (inCombat()) {
-			statusBar.setEnabled(false);
-		} else {
-			statusBar.setEnabled(true);
-		}
+		final boolean enabled = !inCombat();
 		
-		controlBar.refresh();
+		swing(new Runnable() {
+			public void run() {
+				statusBar.setEnabled(enabled);
+			}
+		});
+		
+		refreshControls();
 	}
 	
 	/** @return the game mode */
@@ -1075,6 +1348,9 @@ public class Board extends JPanel implements ActionListener {
 			regions.put(regionID, region);
 		}
 		
+		// NEXT, the regions we've left behind may need to make room.
+		regions.trim();
+		
 		// NEXT, We are always in normal mode when entering a region.
 		setMode(Mode.NORMAL);
 		
@@ -1159,27 +1435,48 @@ public class Board extends JPanel implements ActionListener {
 	//-------------------------------------------------------------------------
 	// Queries for use by clients
 	
-	/** Computes a tool-tip text string for the given map cell.
+	/** Computes a tool-tip text string for the given map cell.  This
+	 * queries the region, and so must be called on the simulation 
+	 * thread.
 	 * 
 	 * @param cell The cell in questions
 	 * @return The text string.
 	 */
 	public String getCellToolTipText(Cell cell) {
-      	Entity entity = region.entityAt(cell);
-
-      	if (!DEBUG) {
-      		if (entity != null && entity.isVisible()) {
-      			return entity.toString();
-      		} else {
-      			return region.terrainAt(cell).getName();
-      		}
-      	} else {
-      		if (entity != null && entity.isVisible()) {
-      			return entity.details();
-      		} else {
-      			return region.terrainAt(cell).toString() + cell.toString();
-      		}
-      	}
+		Entity entity = region.entityAt(cell);
+
+		if (entity != null && !entity.isVisible()) {
+			entity = null;
+		}
+		
+		return getCellToolTipText(cell, entity, region.terrainAt(cell));
+	}
+	
+	/** Computes a tool-tip text string for a map cell, given what's
+	 * there.  The map panel notes the entity and terrain of each visible
+	 * cell as it captures each frame, and calls this on the Swing thread
+	 * when the mouse hovers over a cell.
+	 * 
+	 * @param cell The cell in question
+	 * @param entity The visible entity in the cell, or null if none.
+	 * @param terrain The cell's terrain
+	 * @return The text string.
+	 */
+	public static String getCellToolTipText(Cell cell, Entity entity, 
+			TerrainTile terrain) {
+		if (!DEBUG) {
+			if (entity != null) {
+				return entity.toString();
+			} else {
+				return terrain.getName();
+			}
+		} else {
+			if (entity != null) {
+				return entity.details();
+			} else {
+				return terrain.toString() + cell.toString();
+			}
+		}
 	}
 	
 	//-------------------------------------------------------------------------
@@ -1190,8 +1487,12 @@ public class Board extends JPanel implements ActionListener {
 	 * @param m  The mobile
 	 * @param text The message
 	 */
-	public void log(String text) {
-		slog.log(text);
+	public void log(final String text) {
+		swing(new Runnable() {
+			public void run() {
+				slog.log(text);
+			}
+		});
 	}
 	
 	/** Write debugging info to stdout.
@@ -1249,9 +1550,9 @@ public class Board extends JPanel implements ActionListener {
 		private int gold = 0;
 		private List<PlayerCharacter> members = new ArrayList<>();
 		
-		/** @return the board(). */
-		private final Board board() {
-			return Board.get();
+		/** @return the game the party is playing. */
+		private final Game game() {
+			return RPG.game();
 		}
 			
 		/** Adds a PC to the party.
@@ -1308,8 +1609,8 @@ public class Board extends JPanel implements ActionListener {
 		 * in the party otherwise.
 		 * @return the leading player character or null if all PCs are dead. */
 		public PlayerCharacter leader() {
-			if (board().getSelectedPlayerCharacter().isAlive())
-				return board().getSelectedPlayerCharacter();
+			if (game().getSelectedPlayerCharacter().isAlive())
+				return game().getSelectedPlayerCharacter();
 			
 			for (PlayerCharacter pc : members) {
 				if (pc.isAlive())
@@ -1463,19 +1764,156 @@ public class Board extends JPanel implements ActionListener {
 	// Game Save/Load
 	
 	/** The save set pulls together all of the object trees that need to
-	 * included in a game save.  This is simply a structure object for
-	 * use by Board.
+	 * included in a game save, apart from the regions the party isn't
+	 * in, which are saved separately from the RegionStore.  This is
+	 * simply a structure object for use by Board.<p>
+	 * 
+	 * It is saved as an explicit record with a version number, like
+	 * Entity, so that it can change without breaking saved games.
 	 * @author will
 	 */
 	static class SaveSet implements Serializable {
 		private static final long serialVersionUID = 1L;
 
+		/** The current version of the save set record. */
+		private static final int RECORD_VERSION = 1;
+		
+		/** The fields of the save set record. */
+		private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("version", Integer.TYPE),
+			new ObjectStreamField("clock", Integer.TYPE),
+			new ObjectStreamField("party", PartyManager.class),
+			new ObjectStreamField("region", Region.class),
+			new ObjectStreamField("quest", QuestManager.class),
+			new ObjectStreamField("memory", Dict.class)
+		};
+		
 		int clock = 0;
 		PartyManager party = null;
 		Region region = null;
-		Map<String,Region> regions = null;
 		QuestManager quest = null;
 		Dict memory = null;
+		
+		/** Writes the save set record.
+		 * 
+		 * @param out The stream
+		 * @throws IOException on write error
+		 */
+		private void writeObject(ObjectOutputStream out) throws IOException {
+			ObjectOutputStream.PutField fields = out.putFields();
+			
+			fields.put("version", RECORD_VERSION);
+			fields.put("clock", clock);
+			fields.put("party", party);
+			fields.put("region", region);
+			fields.put("quest", quest);
+			fields.put("memory", memory);
+			out.writeFields();
+		}
+		
+		/** Reads the save set record.
+		 * 
+		 * @param in The stream
+		 * @throws IOException on read error, or if the record is newer
+		 * than this code.
+		 * @throws ClassNotFoundException if a field's class is unknown.
+		 */
+		private void readObject(ObjectInputStream in) 
+				throws IOException, ClassNotFoundException {
+			ObjectInputStream.GetField fields = in.readFields();
+			int version = fields.get("version", 0);
+			
+			if (version > RECORD_VERSION) {
+				throw new InvalidObjectException(
+						"Unsupported save set record version: " + version);
+			}
+			
+			clock = fields.get("clock", 0);
+			party = (PartyManager)fields.get("party", null);
+			region = (Region)fields.get("region", null);
+			quest = (QuestManager)fields.get("quest", null);
+			memory = (Dict)fields.get("memory", null);
+		}
+	}
+	
+	/** Saves the game in the given slot.  The game state is captured 
+	 * immediately; it's written to disk in the background.
+	 * 
+	 * @param slot The slot number
+	 */
+	private void saveGame(int slot) {
+		// FIRST, we need to be in normal mode.
+		if (inCombat()) {
+			throw new IllegalStateException("Cannot save game while in combat!");
+		}
+		
+		// NEXT, let the previous save finish.  If it failed, its file
+		// doesn't contain what the store thinks it does, and needs a
+		// full save.
+		if (!saver.await() && lastSaveFile != null) {
+			regions.forget(lastSaveFile);
+		}
+		
+		// NEXT, pack up the scenario.
+		SaveSet save = new SaveSet();
+		
+		save.clock = clock;
+		save.party = party;
+		save.region = region;
+		save.quest = quest;
+		save.memory = memory;
+		
+		// NEXT, take a snapshot of it.  This serializes the save set and
+		// the changed regions here, on the simulation thread; the time it
+		// takes is recorded as "save.snapshot".
+		final int saveSlot = slot;
+		final File saveFile = new SaveMetadata().slotFile(slot);
+		SaveFile.Snapshot snap;
+		long start = Metrics.start();
+		
+		try {
+			snap = SaveFile.snapshot(saveFile, save, regions, true);
+			Metrics.time("save.snapshot", start);
+		} catch (Exception e) {
+			// The next save to this file will need to be a full save.
+			regions.forget(saveFile);
+			log("Error, could not save game: " + e);
+			return;
+		}
+		
+		lastSaveFile = saveFile;
+		
+		// NEXT, write it in the background.
+		saver.write(snap, new Runnable() {
+			public void run() {
+				if (saveSlot != SaveMetadata.AUTO) {
+					log("Saved game to save file: " + saveFile.getName());
+				}
+			}
+		}, new Runnable() {
+			public void run() {
+				log("Error, could not save game to " + saveFile.getName());
+			}
+		});
+	}
+	
+	/** Lays out a save slot for the save and load dialogs: its radio
+	 * button, and its thumbnail if it has one.
+	 * 
+	 * @param rb The radio button
+	 * @param thumbnail The thumbnail, or null
+	 * @return The row
+	 */
+	private JPanel slotRow(JRadioButton rb, Icon thumbnail) {
+		JPanel row = new JPanel(new BorderLayout());
+		row.add(rb, BorderLayout.CENTER);
+		
+		JLabel label = new JLabel(thumbnail);
+		label.setPreferredSize(
+				new Dimension(SaveFile.THUMB_SIZE, SaveFile.THUMB_SIZE));
+		row.add(label, BorderLayout.WEST);
+		
+		return row;
 	}
 	
 	class GameSaver implements ActionListener {
@@ -1499,7 +1937,7 @@ public class Board extends JPanel implements ActionListener {
 				rb.setActionCommand("slot" + slot);
 				rb.addActionListener(this);
 				bg.add(rb);
-				panel.add(rb);
+				panel.add(slotRow(rb, meta.getThumbnail(slot)));
 				
 				if (slot == SaveMetadata.MIN) {
 					rb.setSelected(true);
@@ -1515,7 +1953,11 @@ public class Board extends JPanel implements ActionListener {
 										  party.leader().bigIcon());
 
 			if (result == JOptionPane.YES_OPTION) {
-				saveGame();
+				sim.submit(new Runnable() {
+					public void run() {
+						saveGame();
+					}
+				});
 			}
 		}
 		
@@ -1550,43 +1992,10 @@ public class Board extends JPanel implements ActionListener {
 			}
 		}
 
-		/** Saves the game in the given slot, and sets and saves the
-		 * metadata.
-		 */
+		/** Saves the game in the chosen slot. */
 		private void saveGame() {
-			// FIRST, we need to be in normal mode.
-			if (inCombat()) {
-				throw new IllegalStateException("Cannot save game while in combat!");
-			}
-			
-			// NEXT, pack up the scenario.
-			SaveSet save = new SaveSet();
-			
-			save.clock = clock;
-			save.party = party;
-			save.region = region;
-			save.regions = regions;
-			save.quest = quest;
-			save.memory = memory;
-			
-			// NEXT, serialize it.
-			try {
-				// FIRST, get the paths
-				File saveFile = meta.slotFile(slot);
-				ObjectOutput out = 
-						new ObjectOutputStream(new FileOutputStream(saveFile));
-				out.writeObject(save);
-				out.close();
-				log("Saved game to save file: " + saveFile.getName());
-			} catch (Exception e) {
-				log("Error, could not save game: " + e);
-				return;
-			}
-			
-			meta.set(slot, save);
-			meta.save();
+			Board.this.saveGame(slot);
 		}
-
 	}
 	
 	class GameLoader implements ActionListener {
@@ -1607,7 +2016,7 @@ public class Board extends JPanel implements ActionListener {
 			
 			int slotsWithData = 0;
 			
-			for (int slot = SaveMetadata.MIN; slot <= SaveMetadata.MAX; slot++) {
+			for (int slot = SaveMetadata.MIN; slot <= SaveMetadata.AUTO; slot++) {
 				if (!meta.hasData(slot)) {
 					continue;
 				}
@@ -1618,7 +2027,7 @@ public class Board extends JPanel implements ActionListener {
 				rb.setActionCommand("slot" + slot);
 				rb.addActionListener(this);
 				bg.add(rb);
-				panel.add(rb);
+				panel.add(slotRow(rb, meta.getThumbnail(slot)));
 				
 				// Select the first slot with data
 				if (slotsWithData == 1) {
@@ -1644,7 +2053,11 @@ public class Board extends JPanel implements ActionListener {
 										  party.leader().bigIcon());
 
 			if (result == JOptionPane.YES_OPTION) {
-				loadGame();
+				sim.submit(new Runnable() {
+					public void run() {
+						loadGame();
+					}
+				});
 			}
 		}
 		
@@ -1673,6 +2086,9 @@ public class Board extends JPanel implements ActionListener {
 			case "slot7":
 				slot = 7;
 				break;
+			case "slot8":
+				slot = 8;
+				break;
 			default:
 				println("Error, unknown action: " + e.getActionCommand());
 				break;
@@ -1683,15 +2099,18 @@ public class Board extends JPanel implements ActionListener {
 		 * metadata.
 		 */
 		private void loadGame() {
-			// FIRST, try to load the file as a new SaveSet.
+			// FIRST, let any save in progress finish.
+			saver.await();
+			
+			// NEXT, try to load the file as a new SaveSet.
 			File f = meta.slotFile(slot);
 			SaveSet save = null;
+			RegionStore store = new RegionStore();
 
 			try {
-				ObjectInputStream os = new ObjectInputStream(new FileInputStream(f));
-				save = (SaveSet)os.readObject();
-				os.close();
+				save = SaveFile.read(f, store);
 			} catch (Exception e) {
+				store.clear();
 				log("Error loading saved game: " + e.getMessage());
 				return;
 			}
@@ -1703,11 +2122,16 @@ public class Board extends JPanel implements ActionListener {
 				clock = save.clock;
 				party = save.party;
 				region = save.region;
-				regions = save.regions;
+				regions.clear();
+				regions = store;
+				regions.put(region.name(), region);
+				regions.markLoaded(f);
+				lastSaveFile = null;
+				autosaved = clock;
 				quest = save.quest;
 				memory = save.memory;
 				
-				statusBar.setParty(party.allMembers());
+				setStatusParty();
 				selectPlayerCharacter(party.leader());
 			    mapCard.setRegion(region);
 				resetMovement();
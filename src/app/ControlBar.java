@@ -79,6 +79,11 @@ final class ControlBar extends JPanel implements ActionListener {
 
 		// NEXT, add the Load Button
 		addButton(Buttons.LOAD, "load", "Load Game");
+		
+		// NEXT, in debug mode add the Debug button.
+		if (Board.DEBUG) {
+			addButton(Buttons.UNKNOWN, "debug", "Debug: Toggle Metrics");
+		}
 	}
 		
 	/** Add a button to the control bar.
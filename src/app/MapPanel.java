@@ -8,14 +8,27 @@ import graphics.StandardTile;
 
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.awt.event.MouseEvent;
+import java.awt.image.ImageObserver;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import javax.swing.JPanel;
 
 import map.Cell;
+import map.TerrainTile;
 import rpg.Combatant;
 import rpg.Entity;
 import rpg.Feature;
@@ -25,10 +38,23 @@ import rpg.Posture;
 import rpg.Region;
 import rpg.feature.ItemStack;
 import rpg.monster.Monster;
+import util.Metrics;
 
 /** A widget for displaying a dungeon map.  If the
  * current mover is a player character, the map scrolls to show
- * him.
+ * him.<p>
+ * 
+ * The game state belongs to the simulation thread, so the panel
+ * doesn't paint it directly.  Instead, the simulation calls capture(),
+ * which works out what should be seen and records it as an immutable
+ * Frame of drawing operations; paintComponent() simply draws the most
+ * recent frame.<p>
+ * 
+ * Rather than repainting the whole panel for each frame, capture()
+ * compares the new frame with the previous one, cell by cell, and
+ * repaints only the cells whose drawing operations have changed: the
+ * cells entities have moved into or out of, the cells under effect
+ * sprites, and the cells that have newly been seen.
  * 
  * @author will
  */
@@ -45,6 +71,13 @@ final class MapPanel extends JPanel {
 	 */
 	private static final int COMBAT_BOUND = 8;
 	
+	/** The font for the metrics overlay. */
+	private static final Font OVERLAY_FONT = 
+			new Font(Font.MONOSPACED, Font.PLAIN, 12);
+	
+	/** The background of the metrics overlay. */
+	private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 180);
+	
 	// Instance Variables
 	private Board board;
 	private Region region = null;
@@ -55,6 +88,15 @@ final class MapPanel extends JPanel {
 	private int rTop = 0;    // Top row of visible area of map
 	private int cLeft = 0;   // Left column of visible area of map.
 	
+	// The pre-rendered terrain of the current region, or null.
+	private TerrainCache terrain = null;
+	
+	// The most recently captured frame, or null.
+	private volatile Frame frame = null;
+	
+	// Whether the metrics overlay was shown with the most recent frame.
+	private boolean overlaid = false;
+	
 	// Constructor
 	
 	/** Builds a MapPanel to display the map for any given region.
@@ -100,15 +142,85 @@ final class MapPanel extends JPanel {
 		}
 	}
 	
-	/** Map-painting code. */
+	/** Map-painting code: draws the most recently captured frame. */
 	public void paintComponent(Graphics g) {
 		// FIRST, prepare to paint
+		long start = Metrics.start();
 		super.paintComponent(g);
 		Graphics2D g2d = (Graphics2D)g;
 		
-		// NEXT, if there's no region yet, we're done.
-		if (region == null)
+		// NEXT, the black background
+		g2d.setColor(Color.BLACK);
+		g2d.fillRect(0, 0, winWidth, winHeight);
+
+		// NEXT, draw the frame, if we have one yet.  Terrain chunks
+		// may extend past the viewport, so clip to it; and skip the
+		// operations that lie outside the area being repainted.
+		Frame f = frame;
+		
+		if (f != null) {
+			g2d.clipRect(0, 0, winWidth, winHeight);
+			Rectangle clip = g2d.getClipBounds();
+			
+			for (Op op : f.ops) {
+				if (op.intersects(clip)) {
+					op.draw(g2d, this);
+				}
+			}
+		}
+		
+		// NEXT, if we're recording metrics, show them.
+		if (Metrics.isEnabled()) {
+			drawMetrics(g2d);
+		}
+		
+		// NEXT, sync everything; apparently this is required on Linux.
+		Toolkit.getDefaultToolkit().sync();
+		Metrics.time("paint", start);
+	}
+	
+	/** Draws the metrics overlay in the upper left corner of the map.
+	 * 
+	 * @param g2d The graphics context
+	 */
+	private void drawMetrics(Graphics2D g2d) {
+		List<String> lines = Metrics.summary();
+		
+		g2d.setFont(OVERLAY_FONT);
+		FontMetrics fm = g2d.getFontMetrics();
+		int width = 0;
+		
+		for (String line : lines) {
+			width = Math.max(width, fm.stringWidth(line));
+		}
+		
+		g2d.setColor(OVERLAY_BACKGROUND);
+		g2d.fillRect(0, 0, width + 8, lines.size()*fm.getHeight() + 8);
+		
+		g2d.setColor(Color.GREEN);
+		int y = 4 + fm.getAscent();
+		
+		for (String line : lines) {
+			g2d.drawString(line, 4, y);
+			y += fm.getHeight();
+		}
+	}
+	
+	/** Captures a frame from the current game state, for painting, and
+	 * repaints the parts of the panel that have changed since the 
+	 * previous frame.  This must be called on the simulation thread.
+	 */
+	void capture() {
+		long start = Metrics.start();
+		
+		// FIRST, if there's no region yet, there's nothing to see.
+		if (region == null) {
+			if (frame != null) {
+				frame = null;
+				repaint();
+			}
 			return;
+		}
 		
 		// NEXT, if the current upper left is no longer on the map, reset to 0.
 		if (rTop >= region.rows())
@@ -125,9 +237,7 @@ final class MapPanel extends JPanel {
 			see(pc.place());
 		}
 		
-		// NEXT, the black background
-		g2d.setColor(Color.BLACK);
-		g2d.fillRect(0, 0, winWidth, winHeight);
+		Frame f = new Frame(rTop, cLeft, region.rows(), region.cols());
 
 		// NEXT, figure out what we can see.
 		int rBottom = Math.min(region.rows(), rTop + visRows) - 1;
@@ -142,56 +252,87 @@ final class MapPanel extends JPanel {
 			}
 		}
 
-		// NEXT, draw the region.
+		// NEXT, draw the region's terrain, a chunk at a time.
+		if (terrain == null || terrain.region() != region) {
+			terrain = new TerrainCache(region);
+		}
 		
-		for (int r = rTop; r <= rBottom; r++) {
-			for (int c = cLeft; c <= cRight; c++) {
-				Cell rc = new Cell(r,c);
-				if (region.hasBeenSeen(rc)) {
-					g2d.drawImage(region.terrainAt(rc).image(), c2x(c), r2y(r), this);
-				}
+		int chunk = TerrainCache.CHUNK;
+		
+		for (int cr = rTop/chunk; cr <= rBottom/chunk; cr++) {
+			for (int cc = cLeft/chunk; cc <= cRight/chunk; cc++) {
+				f.image(terrain.chunk(cr, cc), c2x(cc*chunk), r2y(cr*chunk));
 			}
 		}
 	
 		// NEXT, draw the Features on squares that have been seen.
-		for (Feature f : region.getFeatures()) {
-			if (region.hasBeenSeen(f.place()))
-				drawEntity(g2d, f);
+		for (Feature feature : region.getFeatures()) {
+			if (region.hasBeenSeen(feature.place()))
+				drawEntity(f, feature);
 		}
 		
 		// NEXT, Draw the Monsters.
 		for (Monster m : region.getMonsters()) {
 			if (region.inLOS(m.place())) {
 				if (m.isHostile())
-					drawMobile(g2d, m, Color.RED);
+					drawMobile(f, m, Color.RED);
 				else
-					drawMobile(g2d, m, Color.CYAN);
+					drawMobile(f, m, Color.CYAN);
 			}
 		}
 		
 		// NEXT, Draw the NPCs.
 		for (Mobile m : region.getNPCs()) {
 			if (region.inLOS(m.place()))
-				drawMobile(g2d, m, Color.CYAN);
+				drawMobile(f, m, Color.CYAN);
 		}
 
 		// NEXT, draw the party
 		for (Mobile m : board.party.members())
-			drawMobile(g2d, m, Color.GREEN);
+			drawMobile(f, m, Color.GREEN);
 		
 		// NEXT, draw the party leader mover, so as to make sure he's
 		// on top of any stack.
 		if (board.party.leader() != null) {
-			drawMobile(g2d, board.party.leader(), Color.GREEN);
+			drawMobile(f, board.party.leader(), Color.GREEN);
 		}
 		
 		// NEXT, draw the attack animation sprite, if any.
 		if (board.getEffect() != null) {
-			drawEntity(g2d, board.getEffect());
+			drawEntity(f, board.getEffect());
 		}
 		
-		// NEXT, sync everything; apparently this is required on Linux.
-		Toolkit.getDefaultToolkit().sync();
+		// NEXT, note the visible entity and the terrain in each visible
+		// cell.  The region may only be queried on the simulation thread,
+		// so getToolTipText() builds its text from the frame.
+		f.cells(rBottom - rTop + 1, cRight - cLeft + 1);
+		
+		for (int r = rTop; r <= rBottom; r++) {
+			for (int c = cLeft; c <= cRight; c++) {
+				Cell rc = new Cell(r,c);
+				Entity entity = region.entityAt(rc);
+				
+				f.cell(rc, (entity != null && entity.isVisible()) ? entity : null,
+						region.terrainAt(rc));
+			}
+		}
+		
+		// NEXT, publish the frame, and repaint what's changed.  The
+		// metrics overlay changes with every frame, so while it's shown,
+		// and when it's just been hidden, repaint everything.
+		Rectangle damage = f.damage(frame);
+		frame = f;
+		Metrics.time("capture", start);
+		
+		boolean overlay = Metrics.isEnabled();
+		
+		if (overlay || overlaid) {
+			repaint();
+		} else if (damage != null) {
+			repaint(damage);
+		}
+		
+		overlaid = overlay;
 	}
 	
 	/** Scrolls the visible map so that the required cell
@@ -235,7 +376,7 @@ final class MapPanel extends JPanel {
 	
 	/** Draw the feature if it's visible.  If it's an ItemStack, draw
 	 * all items in the stack, one on top of another. */
-	private void drawEntity(Graphics2D g2d, Entity e) {
+	private void drawEntity(Frame f, Entity e) {
 		if (!e.isVisible())
 			return;
 		
@@ -245,21 +386,21 @@ final class MapPanel extends JPanel {
 		if (e instanceof ItemStack) {
 			ItemStack stack = (ItemStack)e;
 			for (Item item : stack.getItems()) {
-				g2d.drawImage(item.getImage(), x, y, this);
+				f.image(item.getImage(), x, y);
 			}
 		} else {
-			g2d.drawImage(e.image(), x, y, this);
+			f.image(e.image(), x, y);
 		}
 	}
 	
 	/** Draw the mobile if it's visible.  In COMBAT mode, draw the 
 	 * life bar.
 	 * 
-	 * @param g2d The graphics context
+	 * @param f The frame
 	 * @param m The mobile to draw
 	 * @param barColor The color of the life bar
 	 */
-	private void drawMobile(Graphics2D g2d, Mobile m, Color barColor) {
+	private void drawMobile(Frame f, Mobile m, Color barColor) {
 		// FIRST, skip invisible entities.
 		if (!m.isVisible())
 			return;
@@ -267,14 +408,14 @@ final class MapPanel extends JPanel {
 		// NEXT, draw the entity's image.
 		int left = c2x(m.place().col);
 		int top = r2y(m.place().row);
-		g2d.drawImage(m.image(), left, top, this);
+		f.image(m.image(), left, top);
 		
 		// NEXT, if it's a monster and it's asleep, draw Zzz's
 		if (m instanceof Monster) {
 			Monster mon = (Monster)m;
 			
 			if (mon.getPosture() == Posture.SLEEPING) {
-				g2d.drawImage(Effects.ZZZ.image(), left, top, this);
+				f.image(Effects.ZZZ.image(), left, top);
 			}
 		}
 		
@@ -295,11 +436,8 @@ final class MapPanel extends JPanel {
 			int lbWidth = StandardTile.SIZE - 4;
 			int lifeWidth = (int)Math.ceil(lbWidth * ((float)hp/hpMax));
 
-			g2d.setColor(Color.DARK_GRAY);
-			g2d.fillRect(lbLeft, top, lbWidth, 2);
-			
-			g2d.setColor(barColor);
-			g2d.fillRect(lbLeft, top, lifeWidth, 2);
+			f.fillRect(Color.DARK_GRAY, lbLeft, top, lbWidth, 2);
+			f.fillRect(barColor, lbLeft, top, lifeWidth, 2);
 			
 			// Skip life bar
 			top += 3;
@@ -317,20 +455,23 @@ final class MapPanel extends JPanel {
 				bHt += 3;
 			}
 			
-			g2d.setColor(Color.GREEN);
-			g2d.drawRect(bLeft, bTop, bWid, bHt);
+			f.drawRect(Color.GREEN, bLeft, bTop, bWid, bHt);
 		}
 	}
 	
-	/** Set the tool tip text to the entity on the map. */
+	/** Set the tool tip text to the entity on the map, as of the most
+	 * recent frame. */
 	@Override
 	public String getToolTipText(MouseEvent e) {
+		Frame f = frame;
 		Cell cell = xy2cell(e.getX(), e.getY());
+		int i = (f != null && cell != null) ? f.cellIndex(cell) : -1;
 		
-		if (cell != null)
-			return board.getCellToolTipText(cell);
-		else
+		if (i < 0) {
 			return "";
+		}
+		
+		return Board.getCellToolTipText(cell, f.entities[i], f.terrain[i]);
 	}
 	
 	/** Converts x,y mouse coordinates to a map cell.
@@ -340,10 +481,16 @@ final class MapPanel extends JPanel {
 	 * @return The cell, or null if there's no matching cell.
 	 */
 	Cell xy2cell(int x, int y) {
-      	int col = cLeft + x / StandardTile.SIZE;
-      	int row = rTop + y / StandardTile.SIZE;
+		// Use the frame, so that the cell is the one the user sees.
+		Frame f = frame;
+		
+		if (f == null)
+			return null;
+		
+      	int col = f.cLeft + x / StandardTile.SIZE;
+      	int row = f.rTop + y / StandardTile.SIZE;
       	
-      	if (col < region.cols() && row < region.rows())
+      	if (col < f.cols && row < f.rows)
       		return new Cell(row, col);
       	else 
       		return null;
@@ -366,4 +513,249 @@ final class MapPanel extends JPanel {
 	private int c2x(int c) {
 		return (c - cLeft)*StandardTile.SIZE;
 	}
-}
\ No newline at end of file
+	
+	//-------------------------------------------------------------------------
+	// Frames
+	
+	/** A Frame is a snapshot of the visible map: the scroll position,
+	 * the size of the region, a list of drawing operations, and the
+	 * visible entity and terrain of each visible cell, from which the tool
+	 * tips are made.  Once published it is never changed, so
+	 * it can be painted on the event thread while the simulation moves on.
+	 */
+	private static final class Frame {
+		final int rTop;
+		final int cLeft;
+		final int rows;
+		final int cols;
+		final List<Op> ops = new ArrayList<>();
+		
+		// The visible entity, if any, and the terrain of each visible
+		// cell, in row-major order.
+		private Entity[] entities = new Entity[0];
+		private TerrainTile[] terrain = new TerrainTile[0];
+		private int visCols = 0;
+		
+		// The operations that touch each visible cell, in drawing order,
+		// by cell key.  Used only on the simulation thread, to compare 
+		// successive frames.
+		private final Map<Integer,List<Op>> cellOps = new HashMap<>();
+		
+		Frame(int rTop, int cLeft, int rows, int cols) {
+			this.rTop = rTop;
+			this.cLeft = cLeft;
+			this.rows = rows;
+			this.cols = cols;
+		}
+		
+		/** Makes room for the contents of the visible cells.
+		 * 
+		 * @param visRows The number of visible rows
+		 * @param visCols The number of visible columns
+		 */
+		void cells(int visRows, int visCols) {
+			int size = Math.max(0, visRows*visCols);
+			
+			entities = new Entity[size];
+			terrain = new TerrainTile[size];
+			this.visCols = visCols;
+		}
+		
+		/** Notes the contents of a visible cell.
+		 * 
+		 * @param cell The cell
+		 * @param entity The visible entity in the cell, or null.
+		 * @param tile The cell's terrain
+		 */
+		void cell(Cell cell, Entity entity, TerrainTile tile) {
+			int i = (cell.row - rTop)*visCols + cell.col - cLeft;
+			
+			entities[i] = entity;
+			terrain[i] = tile;
+		}
+		
+		/** Returns the index of a cell's contents.
+		 * 
+		 * @param cell The cell
+		 * @return The index, or -1 if the cell wasn't visible.
+		 */
+		int cellIndex(Cell cell) {
+			int r = cell.row - rTop;
+			int c = cell.col - cLeft;
+			
+			if (r < 0 || c < 0 || c >= visCols || r*visCols + c >= terrain.length) {
+				return -1;
+			}
+			
+			return r*visCols + c;
+		}
+		
+		void image(Image image, int x, int y) {
+			// Images that aren't loaded yet are assumed to be tile-sized.
+			int w = image.getWidth(null);
+			int h = image.getHeight(null);
+			
+			add(new Op(image, null, x, y, 
+					w >= 0 ? w : StandardTile.SIZE,
+					h >= 0 ? h : StandardTile.SIZE, false));
+		}
+		
+		void fillRect(Color color, int x, int y, int w, int h) {
+			add(new Op(null, color, x, y, w, h, true));
+		}
+		
+		void drawRect(Color color, int x, int y, int w, int h) {
+			add(new Op(null, color, x, y, w, h, false));
+		}
+		
+		/** Adds an operation to the frame, noting the cells it touches.
+		 * 
+		 * @param op The operation
+		 */
+		private void add(Op op) {
+			ops.add(op);
+			
+			int r0 = Math.max(0, op.y / StandardTile.SIZE);
+			int r1 = (op.y + op.height() - 1) / StandardTile.SIZE;
+			int c0 = Math.max(0, op.x / StandardTile.SIZE);
+			int c1 = (op.x + op.width() - 1) / StandardTile.SIZE;
+			
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					List<Op> list = cellOps.get(key(r, c));
+					
+					if (list == null) {
+						list = new ArrayList<>(2);
+						cellOps.put(key(r, c), list);
+					}
+					
+					list.add(op);
+				}
+			}
+		}
+		
+		/** Returns the area of the panel that differs between the 
+		 * previous frame and this one: the bounding box of the cells 
+		 * whose operations differ.
+		 * 
+		 * @param prev The previous frame, or null if none.
+		 * @return The area to repaint, or null if nothing has changed.
+		 */
+		Rectangle damage(Frame prev) {
+			// FIRST, if the map has scrolled, everything has changed.
+			if (prev == null || prev.rTop != rTop || prev.cLeft != cLeft ||
+					prev.rows != rows || prev.cols != cols) {
+				return new Rectangle(0, 0, 
+						(cols - cLeft)*StandardTile.SIZE, 
+						(rows - rTop)*StandardTile.SIZE);
+			}
+			
+			// NEXT, compare the cells.
+			Set<Integer> keys = new HashSet<>(cellOps.keySet());
+			keys.addAll(prev.cellOps.keySet());
+			Rectangle damage = null;
+			
+			for (Integer key : keys) {
+				if (!Objects.equals(cellOps.get(key), prev.cellOps.get(key))) {
+					Rectangle cell = new Rectangle(
+							(key & 0xFFFF)*StandardTile.SIZE,
+							(key >>> 16)*StandardTile.SIZE,
+							StandardTile.SIZE, StandardTile.SIZE);
+					
+					if (damage == null) {
+						damage = cell;
+					} else {
+						damage.add(cell);
+					}
+				}
+			}
+			
+			return damage;
+		}
+		
+		/** Returns the key for a cell in the panel.
+		 * 
+		 * @param r The row, relative to the top of the panel
+		 * @param c The column, relative to the left of the panel
+		 * @return The key
+		 */
+		private static int key(int r, int c) {
+			return (r << 16) | c;
+		}
+	}
+	
+	/** A single drawing operation: an image, or a filled or outlined
+	 * rectangle.  Operations are equal if they draw the same thing in
+	 * the same place.
+	 */
+	private static final class Op {
+		final Image image;
+		final Color color;
+		final int x;
+		final int y;
+		final int w;
+		final int h;
+		final boolean fill;
+		
+		Op(Image image, Color color, int x, int y, int w, int h, boolean fill) {
+			this.image = image;
+			this.color = color;
+			this.x = x;
+			this.y = y;
+			this.w = w;
+			this.h = h;
+			this.fill = fill;
+		}
+		
+		/** @return the width of the area the operation draws on. */
+		int width() {
+			// An outlined rectangle is one pixel wider than its width.
+			return (image == null && !fill) ? w + 1 : w;
+		}
+		
+		/** @return the height of the area the operation draws on. */
+		int height() {
+			return (image == null && !fill) ? h + 1 : h;
+		}
+		
+		/** Does the operation draw on any part of the rectangle?
+		 * 
+		 * @param rect The rectangle, or null for the whole panel.
+		 * @return true if so, and false otherwise.
+		 */
+		boolean intersects(Rectangle rect) {
+			return rect == null || rect.intersects(x, y, width(), height());
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Op)) {
+				return false;
+			}
+			
+			Op op = (Op)obj;
+			
+			return image == op.image && Objects.equals(color, op.color) &&
+					x == op.x && y == op.y && w == op.w && h == op.h &&
+					fill == op.fill;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(image), color, 
+					x, y, w, h, fill);
+		}
+		
+		void draw(Graphics2D g2d, ImageObserver observer) {
+			if (image != null) {
+				g2d.drawImage(image, x, y, observer);
+			} else if (fill) {
+				g2d.setColor(color);
+				g2d.fillRect(x, y, w, h);
+			} else {
+				g2d.setColor(color);
+				g2d.drawRect(x, y, w, h);
+			}
+		}
+	}
+}
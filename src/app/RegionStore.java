@@ -0,0 +1,381 @@
+/**
+ *
+ */
+package app;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import rpg.Region;
+
+/** The RegionStore holds the regions the party has visited, by ID.  Only
+ * the recently visited regions are kept in memory; when they grow beyond
+ * a budget, the least recently visited are serialized to scratch files,
+ * one per region, and are read back only when the party returns to
+ * them.<p>
+ *
+ * The budget is a number of map cells, and may be set with the
+ * "george.regionCells" system property.  The two most recently visited
+ * regions are always kept in memory, whatever their size, so that going
+ * back and forth through a door doesn't read and write the same
+ * regions again and again.<p>
+ *
+ * Saved games use the same per-region records: see SaveFile.  The store
+ * keeps track of which regions are dirty with respect to each save file,
+ * i.e., have changed since the game was last saved to or loaded from that
+ * file, so that an incremental save can write only those regions.  To do
+ * so it gives each region a revision number, which changes whenever the
+ * region is found to have changed, and remembers the revisions last
+ * written to each file.  Thus saves to different files, e.g., autosaves
+ * and manual saves, don't spoil each other's journals.
+ * @author will
+ */
+final class RegionStore {
+	/** The system property that sets the memory budget, in cells. */
+	static final String BUDGET_PROPERTY = "george.regionCells";
+
+	/** The default budget, in cells. */
+	static final long DEFAULT_BUDGET = 32*1024;
+
+	/** The number of regions that are always kept in memory. */
+	private static final int MIN_RESIDENT = 2;
+
+	// Instance Variables
+	private final long budget;
+
+	// The resident regions, least recently visited first.
+	private final LinkedHashMap<String,Region> resident = new LinkedHashMap<>();
+	private long residentCells = 0;
+
+	// The scratch files of the regions that aren't resident.
+	private final Map<String,File> spilled = new HashMap<>();
+	private File scratchDir = null;
+
+	// The revision of each region, and the source of revision numbers.
+	// Revision numbers are never reused, so a region that is replaced
+	// never matches a revision saved before.
+	private final Map<String,Long> revisions = new HashMap<>();
+	private long nextRevision = 1;
+
+	// For each save file, the revisions of the regions as last saved to
+	// or loaded from it.
+	private final Map<File,Map<String,Long>> saved = new HashMap<>();
+
+	/** Creates an empty store with the configured budget. */
+	RegionStore() {
+		this(Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET));
+	}
+
+	/** Creates an empty store.
+	 *
+	 * @param budget The memory budget, in cells.
+	 */
+	RegionStore(long budget) {
+		this.budget = budget;
+	}
+
+	//-------------------------------------------------------------------------
+	// Regions
+
+	/** Retrieves a region, reading it back from its scratch file if
+	 * need be, and marks it as the most recently visited.
+	 *
+	 * @param id The region ID
+	 * @return The region, or null if there's no such region in the store.
+	 * @throws IllegalStateException if the region's scratch file can't
+	 * be read.
+	 */
+	Region get(String id) {
+		// FIRST, is it resident?  If so, move it to the end of the line.
+		Region region = resident.remove(id);
+
+		if (region != null) {
+			resident.put(id, region);
+			return region;
+		}
+
+		// NEXT, do we have it at all?
+		File file = spilled.get(id);
+
+		if (file == null) {
+			return null;
+		}
+
+		// NEXT, read it back.
+		try {
+			region = (Region)SaveFile.unpack(Files.readAllBytes(file.toPath()));
+		} catch (IOException | ClassCastException e) {
+			throw new IllegalStateException("Could not read region " + id, e);
+		}
+
+		spilled.remove(id);
+		file.delete();
+		region.markClean();
+		addResident(id, region);
+
+		return region;
+	}
+
+	/** Retrieves a region if it's in memory, without reading it from
+	 * disk or marking it as visited.
+	 *
+	 * @param id The region ID
+	 * @return The region, or null if it isn't resident.
+	 */
+	Region getResident(String id) {
+		return resident.get(id);
+	}
+
+	/** Adds a region to the store, replacing any previous region with the
+	 * same ID.  It becomes the most recently visited region.
+	 *
+	 * @param id The region ID
+	 * @param region The region
+	 */
+	void put(String id, Region region) {
+		remove(id);
+		addResident(id, region);
+		revisions.put(id, nextRevision++);
+	}
+
+	/** Removes a region from the store.
+	 *
+	 * @param id The region ID
+	 */
+	void remove(String id) {
+		Region old = resident.remove(id);
+
+		if (old != null) {
+			residentCells -= cells(old);
+		}
+
+		File file = spilled.remove(id);
+
+		if (file != null) {
+			file.delete();
+		}
+
+		revisions.remove(id);
+	}
+
+	/** @return the IDs of all regions in the store, resident or not. */
+	List<String> ids() {
+		List<String> result = new ArrayList<>(resident.keySet());
+		result.addAll(spilled.keySet());
+		return result;
+	}
+
+	/** Empties the store, deleting its scratch files. */
+	void clear() {
+		resident.clear();
+		residentCells = 0;
+
+		for (File file : spilled.values()) {
+			file.delete();
+		}
+
+		spilled.clear();
+		revisions.clear();
+		saved.clear();
+
+		if (scratchDir != null) {
+			scratchDir.delete();
+			scratchDir = null;
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Eviction
+
+	/** Writes the least recently visited regions to scratch files until
+	 * the resident regions fit within the budget.  A region that can't be
+	 * written is simply kept in memory.
+	 */
+	void trim() {
+		// FIRST, note which regions have changed, as a spilled region's
+		// dirty flag isn't saved with it.
+		update();
+
+		Iterator<Map.Entry<String,Region>> iter = resident.entrySet().iterator();
+		int evictable = resident.size() - MIN_RESIDENT;
+
+		while (residentCells > budget && evictable > 0 && iter.hasNext()) {
+			Map.Entry<String,Region> entry = iter.next();
+			evictable--;
+
+			try {
+				File file = scratchFile(entry.getKey());
+				Files.write(file.toPath(), SaveFile.pack(entry.getValue()));
+				spilled.put(entry.getKey(), file);
+			} catch (IOException e) {
+				Board.get().println("Could not write region " +
+						entry.getKey() + ": " + e);
+				continue;
+			}
+
+			residentCells -= cells(entry.getValue());
+			iter.remove();
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Dirty Tracking
+
+	/** Returns the IDs of the regions that have changed since the game
+	 * was last saved to or loaded from the given file.
+	 *
+	 * @param file The save file
+	 * @return The IDs, or null if the store doesn't know what's in the
+	 * file, in which case it needs a full save.
+	 */
+	List<String> dirtyIds(File file) {
+		Map<String,Long> fileRevisions = saved.get(file);
+
+		if (fileRevisions == null) {
+			return null;
+		}
+
+		update();
+
+		List<String> result = new ArrayList<>();
+
+		for (Map.Entry<String,Long> entry : revisions.entrySet()) {
+			if (!entry.getValue().equals(fileRevisions.get(entry.getKey()))) {
+				result.add(entry.getKey());
+			}
+		}
+
+		return result;
+	}
+
+	/** Notes that the game has just been saved to the given file: it
+	 * contains the current revision of every region.
+	 *
+	 * @param file The save file
+	 */
+	void markSaved(File file) {
+		update();
+		saved.put(file, new HashMap<>(revisions));
+	}
+
+	/** Notes that the game has just been loaded from the given file.  The
+	 * store no longer knows what's in any other file.
+	 *
+	 * @param file The save file
+	 */
+	void markLoaded(File file) {
+		saved.clear();
+		markSaved(file);
+	}
+
+	/** Forgets what's in a save file, e.g., because a save to it failed,
+	 * so that the next save to it is a full save.
+	 *
+	 * @param file The save file
+	 */
+	void forget(File file) {
+		saved.remove(file);
+	}
+
+	/** Gives each resident region that has changed since the last update a
+	 * new revision, and marks it clean.
+	 */
+	private void update() {
+		for (Map.Entry<String,Region> entry : resident.entrySet()) {
+			if (entry.getValue().isDirty()) {
+				revisions.put(entry.getKey(), nextRevision++);
+				entry.getValue().markClean();
+			}
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Records
+	//
+	// A record is a region in its serialized, compressed form, as
+	// produced by SaveFile.pack.
+
+	/** Returns the record for a region.  For a region that isn't resident
+	 * this is simply the content of its scratch file; it isn't read back
+	 * into memory.
+	 *
+	 * @param id The region ID
+	 * @return The record
+	 * @throws IOException if the record can't be produced.
+	 */
+	byte[] getRecord(String id) throws IOException {
+		Region region = resident.get(id);
+
+		if (region != null) {
+			return SaveFile.pack(region);
+		}
+
+		File file = spilled.get(id);
+
+		if (file == null) {
+			throw new IOException("No such region: " + id);
+		}
+
+		return Files.readAllBytes(file.toPath());
+	}
+
+	/** Adds a region to the store as a record.  The record is written
+	 * to a scratch file, and isn't read until the region is needed.
+	 *
+	 * @param id The region ID
+	 * @param record The record
+	 * @throws IOException if the record can't be written.
+	 */
+	void putRecord(String id, byte[] record) throws IOException {
+		remove(id);
+
+		File file = scratchFile(id);
+		Files.write(file.toPath(), record);
+		spilled.put(id, file);
+		revisions.put(id, nextRevision++);
+	}
+
+	//-------------------------------------------------------------------------
+	// Helpers
+
+	/** Adds a region to the resident set.
+	 *
+	 * @param id The region ID
+	 * @param region The region
+	 */
+	private void addResident(String id, Region region) {
+		resident.put(id, region);
+		residentCells += cells(region);
+	}
+
+	/** Returns the scratch file for a region, creating the scratch
+	 * directory if need be.
+	 *
+	 * @param id The region ID
+	 * @return The file
+	 * @throws IOException if the directory can't be created.
+	 */
+	private File scratchFile(String id) throws IOException {
+		if (scratchDir == null) {
+			scratchDir = Files.createTempDirectory("george").toFile();
+			scratchDir.deleteOnExit();
+		}
+
+		File file = new File(scratchDir, id + ".region");
+		file.deleteOnExit();
+
+		return file;
+	}
+
+	/** @return the size of the region, in cells. */
+	private static long cells(Region region) {
+		return (long)region.rows() * region.cols();
+	}
+}
@@ -0,0 +1,935 @@
+/**
+ *
+ */
+package app;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import rpg.Region;
+import rpg.pc.PlayerCharacter;
+import app.Board.SaveSet;
+
+/** Reads and writes save files.  A save file begins with a magic number
+ * and a format version, so that files from other programs or other
+ * versions of this one are rejected cleanly rather than half-loaded,
+ * and a generation number that identifies this particular save.  Next
+ * comes a fixed-size summary of the save, which the save and load
+ * dialogs read without reading the rest of the file.  The
+ * rest of the file is a sequence of records, each of which is an object
+ * tree, serialized and then compressed, and preceded by its length.  The
+ * first record is the SaveSet, which includes the current region; it is
+ * followed by one record for each of the other regions the party has
+ * visited.<p>
+ *
+ * A save file may be followed by a journal, a file of the same name with
+ * the extension ".jnl".  The journal's header names the generation of
+ * the save file it belongs to; it is followed by entries, each of which
+ * is an incremental save: a summary, the SaveSet, and the records of
+ * just those other regions that have changed since the previous save.
+ * Each entry is preceded by its length and CRC, so that an entry that
+ * was only partly written is detected and ignored.  Once the journal grows larger
+ * than twice the save file, the next save is a full save, which starts a
+ * new generation and deletes the journal.  A full save is written to a
+ * temporary file that then replaces the save file, so that a crash
+ * while saving never damages the previous save.  An incremental save
+ * also updates the save file's summary in place; should that write be
+ * torn, the summary is recovered from the journal's last entry, and the
+ * save itself is unaffected.<p>
+ *
+ * On load, only the final SaveSet is deserialized; the other regions'
+ * records are handed to the RegionStore as they are, and are deserialized
+ * when the party enters the region.<p>
+ *
+ * The records are Java serialization streams; the format does not replace
+ * serialization.  The bulky, regular parts of the game state are kept
+ * compact by the classes themselves: terrain grids save a tile palette and
+ * run-length encoded tiles, and regions keep their "seen" flags in bit
+ * planes.  The SaveSet and each Entity save their own state as an explicit
+ * record with a version number, so that those classes can change without
+ * breaking saves.  Other classes rely on their fixed serialVersionUIDs,
+ * which let fields be added or removed, but not renamed or retyped.
+ * @author will
+ */
+final class SaveFile {
+	/** The save file's magic number: "GSAV". */
+	static final int MAGIC = 0x47534156;
+
+	/** The journal's magic number: "GJNL". */
+	static final int JOURNAL_MAGIC = 0x474A4E4C;
+
+	/** The current format version. */
+	static final int VERSION = 7;
+
+	/** The journal is compacted when it reaches this multiple of the
+	 * save file's size.
+	 */
+	private static final int MAX_JOURNAL_RATIO = 2;
+
+	/** Buffer size for file I/O. */
+	private static final int BUFFER_SIZE = 64*1024;
+
+	/** Source of generation numbers. */
+	private static final Random generations = new Random();
+
+	// Not instantiable
+	private SaveFile() {}
+
+	//-------------------------------------------------------------------------
+	// Saving
+	//
+	// Saving is done in two phases.  First, on the simulation thread, the
+	// game state is captured in a Snapshot: the object trees are
+	// serialized to byte arrays, which no later change to the game can
+	// affect.  Then, on any thread, the snapshot is compressed and written
+	// to disk.
+	//
+	// The capture is not free: it walks the save set, including the
+	// current region, and each changed region.  In practice that's about
+	// a millisecond, most of it the regions' mobiles, and rarely more
+	// than ten, against a 50 ms step; Board records it as the
+	// "save.snapshot" metric.  Making it cheaper would mean keeping the
+	// entities in immutable form.
+
+	/** A snapshot of the game state, ready to be written to a save file
+	 * or its journal.
+	 */
+	static final class Snapshot {
+		// The file, and whether this is an incremental save.
+		final File file;
+		final boolean incremental;
+
+		// The summary, the save set, and the IDs of the other regions
+		// to save.
+		final Summary summary;
+		final byte[] saveSet;
+		final List<String> ids = new ArrayList<>();
+
+		// For each region, its serialized form, and whether it has been
+		// compressed yet.
+		final List<byte[]> records = new ArrayList<>();
+		final List<Boolean> packed = new ArrayList<>();
+
+		private Snapshot(File file, boolean incremental, Summary summary,
+				byte[] saveSet) {
+			this.file = file;
+			this.incremental = incremental;
+			this.summary = summary;
+			this.saveSet = saveSet;
+		}
+	}
+
+	/** Captures the game state for saving to a file.  An incremental save
+	 * captures the SaveSet and the regions that have changed since the
+	 * game was last saved to or loaded from the file, to be appended to
+	 * the file's journal; a full save captures all of the regions, and
+	 * rewrites the file.  An incremental save becomes a full save if the
+	 * store doesn't know what's in the file, if there's no valid save file
+	 * to append to, or if the journal has grown too large.  Afterwards,
+	 * the store notes that the file is up to date.<p>
+	 *
+	 * An incremental save is correct only if no other write to the file
+	 * is in progress.
+	 *
+	 * @param file The file
+	 * @param save The save set
+	 * @param store The region store
+	 * @param incremental true for an incremental save, false otherwise.
+	 * @return The snapshot
+	 * @throws IOException on any error
+	 */
+	static Snapshot snapshot(File file, SaveSet save, RegionStore store,
+			boolean incremental) throws IOException {
+		// FIRST, decide what kind of save this is.
+		List<String> dirty = incremental ? store.dirtyIds(file) : null;
+		incremental = dirty != null && canAppend(file);
+
+		// NEXT, capture the save set.
+		Snapshot snap = new Snapshot(file, incremental, Summary.of(save),
+				serialize(save));
+
+		// NEXT, capture the other regions.  Those that aren't in memory
+		// are already serialized and compressed.
+		List<String> ids = incremental ? dirty : store.ids();
+		ids.remove(save.region.name());
+
+		for (String id : ids) {
+			Region region = store.getResident(id);
+
+			snap.ids.add(id);
+
+			if (region != null) {
+				snap.records.add(serialize(region));
+				snap.packed.add(false);
+			} else {
+				snap.records.add(store.getRecord(id));
+				snap.packed.add(true);
+			}
+		}
+
+		store.markSaved(file);
+
+		return snap;
+	}
+
+	/** Writes a snapshot to disk.  A full save is written to a temporary
+	 * file, which then replaces the save file; an incremental save is
+	 * appended to the journal as a single entry.  Either way, if the write
+	 * is interrupted the save file and its journal still contain the
+	 * previous save.
+	 *
+	 * @param snap The snapshot
+	 * @throws IOException on any error
+	 */
+	static void write(Snapshot snap) throws IOException {
+		if (snap.incremental) {
+			append(snap);
+		} else {
+			replace(snap);
+		}
+	}
+
+	/** Writes a full save, replacing the save file and deleting its
+	 * journal.
+	 *
+	 * @param snap The snapshot
+	 * @throws IOException on any error
+	 */
+	private static void replace(Snapshot snap) throws IOException {
+		// FIRST, write the temporary file, and make sure that it's
+		// really on the disk.
+		Path target = snap.file.toPath();
+		Path temp = target.resolveSibling(snap.file.getName() + ".tmp");
+
+		Files.createDirectories(target.getParent());
+
+		try (FileChannel channel = FileChannel.open(temp,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					Channels.newOutputStream(channel), BUFFER_SIZE));
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(generations.nextLong());
+			out.write(snap.summary.toBuffer().array());
+			writeBody(out, snap);
+			out.flush();
+			channel.force(true);
+		}
+
+		// NEXT, replace the save file.  The old journal belongs to the
+		// old generation, and will be ignored if it isn't deleted.
+		Files.move(temp, target,
+				StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		journalFile(snap.file).delete();
+	}
+
+	/** Appends an incremental save to the save file's journal, starting
+	 * the journal if need be.
+	 *
+	 * @param snap The snapshot
+	 * @throws IOException on any error
+	 */
+	private static void append(Snapshot snap) throws IOException {
+		// FIRST, build the entry.
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream entry = new DataOutputStream(bytes);
+		entry.write(snap.summary.toBuffer().array());
+		writeBody(entry, snap);
+		entry.flush();
+
+		byte[] payload = bytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+
+		// NEXT, if there's no journal, start one.  The header must be on
+		// the disk before any entry is, or a crash could leave entries
+		// that can't be replayed.
+		File journal = journalFile(snap.file);
+
+		if (!journal.exists()) {
+			long generation;
+
+			try (DataInputStream in = openData(snap.file)) {
+				generation = readHeader(in, MAGIC);
+			}
+
+			try (FileChannel channel = FileChannel.open(journal.toPath(),
+					StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				DataOutputStream out = new DataOutputStream(
+						Channels.newOutputStream(channel));
+				out.writeInt(JOURNAL_MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(generation);
+				out.flush();
+				channel.force(true);
+			}
+		}
+
+		// NEXT, append the entry.
+		try (FileChannel channel = FileChannel.open(journal.toPath(),
+				StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					Channels.newOutputStream(channel), BUFFER_SIZE));
+
+			out.writeInt(payload.length);
+			out.writeInt((int)crc.getValue());
+			out.write(payload);
+			out.flush();
+			channel.force(true);
+		}
+
+		// NEXT, the save file's summary should describe the new entry.
+		// The entry is already safe, and carries its own summary, which
+		// readSummary() falls back on; so if this fails, the save hasn't.
+		try {
+			writeSummary(snap.file, snap.summary);
+		} catch (IOException e) {
+			System.err.println("Could not update the summary of " + 
+					snap.file + ": " + e);
+		}
+	}
+
+	/** Determines whether an incremental save can be appended to the
+	 * file's journal.
+	 *
+	 * @param file The save file
+	 * @return true if so, and false if a full save is needed.
+	 */
+	private static boolean canAppend(File file) {
+		// FIRST, there must be a valid save file.
+		if (!file.exists()) {
+			return false;
+		}
+
+		long generation;
+
+		try (DataInputStream in = openData(file)) {
+			generation = readHeader(in, MAGIC);
+		} catch (IOException e) {
+			return false;
+		}
+
+		// NEXT, if there's a journal, it must belong to the save file,
+		// and it mustn't be time to compact it.
+		File journal = journalFile(file);
+
+		if (!journal.exists()) {
+			return true;
+		}
+
+		if (journal.length() > MAX_JOURNAL_RATIO*file.length()) {
+			return false;
+		}
+
+		try (DataInputStream in = openData(journal)) {
+			return readHeader(in, JOURNAL_MAGIC) == generation;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/** Writes the body of a save file or journal entry: the save set,
+	 * followed by the records of the other regions, compressing those
+	 * that need it.
+	 *
+	 * @param out The output stream
+	 * @param snap The snapshot
+	 * @throws IOException on any error
+	 */
+	private static void writeBody(DataOutputStream out, Snapshot snap)
+			throws IOException {
+		writeRecord(out, compress(snap.saveSet));
+		out.writeInt(snap.ids.size());
+
+		for (int i = 0; i < snap.ids.size(); i++) {
+			byte[] record = snap.records.get(i);
+
+			out.writeUTF(snap.ids.get(i));
+			writeRecord(out, snap.packed.get(i) ? record : compress(record));
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Loading
+
+	/** Reads a save set from a file, replaying its journal if it has one.
+	 * The other regions in the file are added to the store, which should be
+	 * empty.
+	 *
+	 * @param file The file
+	 * @param store The region store
+	 * @return The save set
+	 * @throws IOException if the file can't be read, or isn't a save file
+	 * of the current version.
+	 */
+	static SaveSet read(File file, RegionStore store) throws IOException {
+		// FIRST, read the save file itself.
+		long generation;
+		byte[] saveRecord;
+
+		try (DataInputStream in = openData(file)) {
+			generation = readHeader(in, MAGIC);
+			in.readFully(new byte[SUMMARY_SIZE]);
+			saveRecord = readBody(in, store);
+		}
+
+		// NEXT, replay the journal's entries, stopping at the first
+		// one that's incomplete or corrupt.
+		File journal = journalFile(file);
+
+		if (journal.exists()) {
+			try (DataInputStream in = openData(journal)) {
+				if (readHeader(in, JOURNAL_MAGIC) == generation) {
+					byte[] payload;
+
+					while ((payload = readEntry(in)) != null) {
+						DataInputStream entry = new DataInputStream(
+								new ByteArrayInputStream(payload));
+						entry.readFully(new byte[SUMMARY_SIZE]);
+						saveRecord = readBody(entry, store);
+					}
+				}
+			} catch (IOException e) {
+				// The entries read so far stand.
+			}
+		}
+
+		// NEXT, unpack the most recent save set.
+		try {
+			return (SaveSet)unpack(saveRecord);
+		} catch (ClassCastException e) {
+			throw new IOException("Corrupt save file: " + e.getMessage());
+		}
+	}
+
+	/** Reads the body of a save file or journal entry, adding its region
+	 * records to the store.
+	 *
+	 * @param in The input stream
+	 * @param store The region store
+	 * @return The save set's record.
+	 * @throws IOException on any error
+	 */
+	private static byte[] readBody(DataInputStream in, RegionStore store)
+			throws IOException {
+		byte[] saveRecord = readRecord(in);
+		int count = in.readInt();
+
+		for (int i = 0; i < count; i++) {
+			String id = in.readUTF();
+			store.putRecord(id, readRecord(in));
+		}
+
+		return saveRecord;
+	}
+
+	/** Reads the next entry from a journal, checking its CRC.
+	 *
+	 * @param in The journal input stream
+	 * @return The entry's payload, or null if there are no more valid
+	 * entries.
+	 * @throws IOException on any error
+	 */
+	private static byte[] readEntry(DataInputStream in) throws IOException {
+		try {
+			int length = in.readInt();
+			int expected = in.readInt();
+
+			if (length < 0) {
+				return null;
+			}
+
+			byte[] payload = new byte[length];
+			in.readFully(payload);
+
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+
+			return ((int)crc.getValue() == expected) ? payload : null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	/** Reads and checks a save file or journal header.
+	 *
+	 * @param in The input stream
+	 * @param magic The expected magic number
+	 * @return The generation number
+	 * @throws IOException if the header is invalid.
+	 */
+	private static long readHeader(DataInputStream in, int magic)
+			throws IOException {
+		if (in.readInt() != magic) {
+			throw new IOException("Not a save file");
+		}
+
+		int version = in.readInt();
+
+		if (version != VERSION) {
+			throw new IOException("Unsupported save file version: " +
+					version);
+		}
+
+		return in.readLong();
+	}
+
+	//-------------------------------------------------------------------------
+	// Summaries
+	//
+	// A save file's summary follows its preamble, and has a fixed size,
+	// so that it can be read without reading the rest of the file.  Each
+	// journal entry begins with a copy of the summary, as of that entry.
+	// The layout is:
+	//
+	//   int     CRC32 of the rest of the summary
+	//   long    Time saved, in milliseconds
+	//   int     Game clock
+	//   short   Length of the region title, in bytes
+	//   byte[]  Region title, UTF-8, padded to TITLE_BYTES
+	//   byte    Number of party members
+	//   short[] Party member levels, padded to MAX_PARTY
+	//   short   Thumbnail width
+	//   short   Thumbnail height
+	//   byte[]  Thumbnail RGB pixels, padded to THUMB_SIZE*THUMB_SIZE
+
+	/** The maximum width and height of a summary's thumbnail. */
+	static final int THUMB_SIZE = 64;
+
+	/** The maximum length of a summary's title, in bytes. */
+	private static final int TITLE_BYTES = 96;
+
+	/** The maximum number of party members in a summary. */
+	private static final int MAX_PARTY = 8;
+
+	/** The offset of the summary in the save file. */
+	private static final int SUMMARY_OFFSET = 16;
+
+	/** The size of the summary, in bytes. */
+	private static final int SUMMARY_SIZE = 4 + 8 + 4 + 2 + TITLE_BYTES +
+			1 + 2*MAX_PARTY + 2 + 2 + 3*THUMB_SIZE*THUMB_SIZE;
+
+	/** A Summary describes a saved game, for display in the save and load
+	 * dialogs.
+	 */
+	static final class Summary {
+		/** The time the game was saved, in milliseconds. */
+		final long time;
+
+		/** The game clock. */
+		final int clock;
+
+		/** The title of the current region. */
+		final String title;
+
+		/** The levels of the party members. */
+		final int[] levels;
+
+		/** A thumbnail of the current region, or null if it is unknown. */
+		final BufferedImage thumbnail;
+
+		private Summary(long time, int clock, String title, int[] levels,
+				BufferedImage thumbnail) {
+			this.time = time;
+			this.clock = clock;
+			this.title = title;
+			this.levels = levels;
+			this.thumbnail = thumbnail;
+		}
+
+		/** Summarizes a save set, as of now.
+		 *
+		 * @param save The save set
+		 * @return The summary
+		 */
+		static Summary of(SaveSet save) {
+			List<PlayerCharacter> members = save.party.allMembers();
+			int[] levels = new int[Math.min(members.size(), MAX_PARTY)];
+
+			for (int i = 0; i < levels.length; i++) {
+				levels[i] = members.get(i).level();
+			}
+
+			return new Summary(System.currentTimeMillis(), save.clock,
+					save.region.title(), levels,
+					save.region.toThumbnail(THUMB_SIZE));
+		}
+
+		/** Returns a stand-in for a save whose summary has been lost.
+		 * It has no game clock, party levels, or thumbnail.
+		 *
+		 * @param time The time the game was saved, in milliseconds
+		 * @return The summary
+		 */
+		static Summary unknown(long time) {
+			return new Summary(time, -1, "Summary unavailable", new int[0],
+					null);
+		}
+
+		/** @return the summary in its fixed layout. */
+		private ByteBuffer toBuffer() {
+			ByteBuffer buf = ByteBuffer.allocate(SUMMARY_SIZE);
+
+			buf.position(4);
+			buf.putLong(time);
+			buf.putInt(clock);
+
+			// The title, truncated to fit.
+			byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+			int length = Math.min(bytes.length, TITLE_BYTES);
+			buf.putShort((short)length);
+			buf.put(bytes, 0, length);
+			buf.position(buf.position() + TITLE_BYTES - length);
+
+			// The levels
+			buf.put((byte)levels.length);
+
+			for (int i = 0; i < MAX_PARTY; i++) {
+				buf.putShort((short)(i < levels.length ? levels[i] : 0));
+			}
+
+			// The thumbnail
+			buf.putShort((short)thumbnail.getWidth());
+			buf.putShort((short)thumbnail.getHeight());
+
+			for (int y = 0; y < thumbnail.getHeight(); y++) {
+				for (int x = 0; x < thumbnail.getWidth(); x++) {
+					int rgb = thumbnail.getRGB(x, y);
+					buf.put((byte)(rgb >> 16));
+					buf.put((byte)(rgb >> 8));
+					buf.put((byte)rgb);
+				}
+			}
+
+			// The CRC
+			CRC32 crc = new CRC32();
+			crc.update(buf.array(), 4, SUMMARY_SIZE - 4);
+			buf.putInt(0, (int)crc.getValue());
+			buf.rewind();
+
+			return buf;
+		}
+
+		/** Reads a summary from its fixed layout.
+		 *
+		 * @param buf The buffer, positioned at the start of the summary.
+		 * @return The summary, or null if it's corrupt.
+		 */
+		private static Summary fromBuffer(ByteBuffer buf) {
+			// FIRST, check the CRC.
+			int start = buf.position();
+			CRC32 crc = new CRC32();
+			crc.update(buf.array(), start + 4, SUMMARY_SIZE - 4);
+
+			if (buf.getInt() != (int)crc.getValue()) {
+				return null;
+			}
+
+			// NEXT, read the fields.
+			long time = buf.getLong();
+			int clock = buf.getInt();
+
+			int length = buf.getShort();
+			String title = new String(buf.array(), buf.position(), length,
+					StandardCharsets.UTF_8);
+			buf.position(buf.position() + TITLE_BYTES);
+
+			int[] levels = new int[buf.get()];
+
+			for (int i = 0; i < MAX_PARTY; i++) {
+				int level = buf.getShort();
+
+				if (i < levels.length) {
+					levels[i] = level;
+				}
+			}
+
+			int width = buf.getShort();
+			int height = buf.getShort();
+
+			if (width <= 0 || height <= 0 ||
+				width > THUMB_SIZE || height > THUMB_SIZE) {
+				return null;
+			}
+
+			BufferedImage thumbnail =
+					new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					int rgb = (buf.get() & 0xFF) << 16 |
+							(buf.get() & 0xFF) << 8 |
+							(buf.get() & 0xFF);
+					thumbnail.setRGB(x, y, rgb);
+				}
+			}
+
+			return new Summary(time, clock, title, levels, thumbnail);
+		}
+	}
+
+	/** Reads the summary of a save file with a single positional read,
+	 * without reading the rest of the file.  If the summary is damaged,
+	 * e.g., by a torn write, the save itself may be intact; then the
+	 * summary is read from the last entry of the save file's journal,
+	 * or, failing that, a stand-in is returned, so that the save still
+	 * shows and can be loaded.
+	 *
+	 * @param file The save file
+	 * @return The summary, or null if the file doesn't exist or isn't a
+	 * save file of the current version.
+	 */
+	static Summary readSummary(File file) {
+		ByteBuffer buf = ByteBuffer.allocate(SUMMARY_OFFSET + SUMMARY_SIZE);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			while (buf.hasRemaining()) {
+				if (channel.read(buf, buf.position()) < 0) {
+					return null;
+				}
+			}
+		} catch (IOException e) {
+			return null;
+		}
+
+		buf.flip();
+
+		if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+			return null;
+		}
+
+		long generation = buf.getLong();
+		Summary summary = Summary.fromBuffer(buf);
+
+		if (summary == null) {
+			summary = readJournalSummary(file, generation);
+		}
+
+		return (summary != null) ? summary : Summary.unknown(file.lastModified());
+	}
+
+	/** Reads the summary from the last valid entry of a save file's
+	 * journal.
+	 *
+	 * @param file The save file
+	 * @param generation The save file's generation
+	 * @return The summary, or null if there's no journal for this
+	 * generation, or no valid entry in it.
+	 */
+	private static Summary readJournalSummary(File file, long generation) {
+		File journal = journalFile(file);
+		byte[] last = null;
+
+		if (!journal.exists()) {
+			return null;
+		}
+
+		try (DataInputStream in = openData(journal)) {
+			if (readHeader(in, JOURNAL_MAGIC) != generation) {
+				return null;
+			}
+
+			byte[] payload;
+
+			while ((payload = readEntry(in)) != null) {
+				last = payload;
+			}
+		} catch (IOException e) {
+			// The entries read so far stand.
+		}
+
+		if (last == null || last.length < SUMMARY_SIZE) {
+			return null;
+		}
+
+		return Summary.fromBuffer(ByteBuffer.wrap(last, 0, SUMMARY_SIZE));
+	}
+
+	/** Replaces the summary of an existing save file.  The write is
+	 * small, and if interrupted damages only the summary, which then
+	 * fails its CRC check; see readSummary().
+	 *
+	 * @param file The save file
+	 * @param summary The summary
+	 * @throws IOException on any error
+	 */
+	private static void writeSummary(File file, Summary summary)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.WRITE)) {
+			ByteBuffer buf = summary.toBuffer();
+
+			while (buf.hasRemaining()) {
+				channel.write(buf, SUMMARY_OFFSET + buf.position());
+			}
+
+			channel.force(true);
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Records
+
+	/** Serializes and compresses an object tree.
+	 *
+	 * @param obj The root object
+	 * @return The record
+	 * @throws IOException on any error
+	 */
+	static byte[] pack(Object obj) throws IOException {
+		return compress(serialize(obj));
+	}
+
+	/** Serializes an object tree.
+	 *
+	 * @param obj The root object
+	 * @return The serialized bytes
+	 * @throws IOException on any error
+	 */
+	private static byte[] serialize(Object obj) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(obj);
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	/** Compresses serialized bytes, producing a record.
+	 *
+	 * @param data The serialized bytes
+	 * @return The record
+	 * @throws IOException on any error
+	 */
+	private static byte[] compress(byte[] data) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length/4);
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+		try {
+			DeflaterOutputStream zos =
+					new DeflaterOutputStream(bytes, deflater, BUFFER_SIZE);
+			zos.write(data);
+			zos.finish();
+		} finally {
+			deflater.end();
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/** Decompresses and deserializes an object tree.
+	 *
+	 * @param record The record
+	 * @return The root object
+	 * @throws IOException on any error
+	 */
+	static Object unpack(byte[] record) throws IOException {
+		Inflater inflater = new Inflater();
+
+		try {
+			ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(
+					new ByteArrayInputStream(record), inflater, BUFFER_SIZE));
+
+			return in.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Corrupt record: " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/** Writes a record, preceded by its length.
+	 *
+	 * @param out The output stream
+	 * @param record The record
+	 * @throws IOException on any error
+	 */
+	private static void writeRecord(DataOutputStream out, byte[] record)
+			throws IOException {
+		out.writeInt(record.length);
+		out.write(record);
+	}
+
+	/** Reads a record written by writeRecord.
+	 *
+	 * @param in The input stream
+	 * @return The record
+	 * @throws IOException on any error
+	 */
+	private static byte[] readRecord(DataInputStream in) throws IOException {
+		int length = in.readInt();
+
+		if (length < 0) {
+			throw new IOException("Corrupt record length: " + length);
+		}
+
+		byte[] record = new byte[length];
+		in.readFully(record);
+
+		return record;
+	}
+
+	//-------------------------------------------------------------------------
+	// Helpers
+
+	/** Returns the journal file for a save file.
+	 *
+	 * @param file The save file
+	 * @return The journal file
+	 */
+	static File journalFile(File file) {
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+
+		if (dot > 0) {
+			name = name.substring(0, dot);
+		}
+
+		return new File(file.getParentFile(), name + ".jnl");
+	}
+
+	/** Opens a file for buffered reading through a FileChannel.
+	 *
+	 * @param file The file
+	 * @return The stream
+	 * @throws IOException on any error
+	 */
+	private static DataInputStream openData(File file) throws IOException {
+		return new DataInputStream(new BufferedInputStream(
+				Channels.newInputStream(FileChannel.open(file.toPath(),
+						StandardOpenOption.READ)), BUFFER_SIZE));
+	}
+}
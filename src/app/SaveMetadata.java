@@ -1,47 +1,47 @@
 /**
- * 
+ *
  */
 package app;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
 import java.text.Format;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
-import app.Board.SaveSet;
+import javax.swing.ImageIcon;
 
-/** Metadata for the save files in the save slots.
+import app.SaveFile.Summary;
+
+/** Metadata for the save files in the save slots.  The metadata for
+ * each slot is the summary at the start of its save file; loading the
+ * metadata reads just the summaries, however large the saves.
  * @author will
  */
 
-class SaveMetadata implements Serializable {
-	private static final long serialVersionUID = 1L;
-	
+class SaveMetadata {
 	public static final int MIN = 0;
 	public static final int MAX = 7;
 
+	/** The autosave slot, which follows the others.  The user can load
+	 * from it, but can't save to it.
+	 */
+	public static final int AUTO = MAX + 1;
+
 	private String dirName = System.getProperty("user.home") + "/.george";
-	private String metaName = dirName + "/saveslots.dat";
-			
-	private List<String> slotList = new ArrayList<>(6);
-	
+
+	private List<Summary> slotList = new ArrayList<>(AUTO + 1);
+
 	/** Initialize the slot list. */
 	public SaveMetadata() {
-		for (int i = MIN; i <= MAX; i++) {
+		for (int i = MIN; i <= AUTO; i++) {
 			slotList.add(null);
 		}
 	}
-	
+
 	/** Returns a file object for the given slot.
-	 * 
+	 *
 	 * @param slot The slot number
 	 * @return A File for the slot's save file.
 	 */
@@ -49,34 +49,55 @@ class SaveMetadata implements Serializable {
 		String fileName = dirName + "/save" + slot + ".dat";
 		return new File(fileName);
 	}
-	
-	/** Set the metadata string associated with the slot.
-	 * 
-	 * @param slot The slot number
-	 * @param set The save set
-	 */
-	public void set(int slot, SaveSet set) {
-		Format formatter = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss a");
-		String dateText = formatter.format(new Date());
-		String text = dateText + ", " + set.region.title() +
-				" (" + Board.get().time() + " steps)";
-		
-		slotList.set(slot,text);
-	}
-	
+
 	/** Get the metadata string associated with the slot.
-	 * 
+	 *
 	 * @param slot The slot number.
 	 * @return The string, or null
 	 */
 	public String getSlotText(int slot) {
-		String text = slotList.get(slot);
-		
-		return (text != null) ? text : "Empty Slot --------------------------";
+		Summary summary = slotList.get(slot);
+
+		if (summary == null) {
+			return "Empty Slot --------------------------";
+		}
+
+		Format formatter = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss a");
+		StringBuilder text = new StringBuilder();
+
+		if (slot == AUTO) {
+			text.append("Autosave: ");
+		}
+
+		text.append(formatter.format(new Date(summary.time)))
+			.append(", ").append(summary.title);
+
+		if (summary.clock >= 0) {
+			text.append(" (").append(summary.clock).append(" steps)");
+		}
+
+		for (int i = 0; i < summary.levels.length; i++) {
+			text.append(i == 0 ? ", levels " : "/").append(summary.levels[i]);
+		}
+
+		return text.toString();
 	}
-	
+
+	/** Get the thumbnail of the slot's current region.
+	 *
+	 * @param slot The slot number
+	 * @return The thumbnail, or null if the slot is empty or has no
+	 * thumbnail.
+	 */
+	public ImageIcon getThumbnail(int slot) {
+		Summary summary = slotList.get(slot);
+
+		return (summary != null && summary.thumbnail != null)
+				? new ImageIcon(summary.thumbnail) : null;
+	}
+
 	/** Is there file data in the slot?
-	 * 
+	 *
 	 * @param slot The slot number
 	 * @return True if so, false otherwise.
 	 */
@@ -84,66 +105,20 @@ class SaveMetadata implements Serializable {
 		return slotList.get(slot) != null;
 	}
 
-	/** Serialize the current meta data to disk */
-	public void save() {
-		try {
-			// FIRST, make sure the save directory exists.
-			File dir = new File(dirName);
-			dir.mkdir();
-
-			// NEXT, save the file in the directory
-			File saveFile = new File(metaName);
-			ObjectOutput out = 
-					new ObjectOutputStream(new FileOutputStream(saveFile));
-			out.writeObject(this);
-			out.close();
-		} catch (Exception e) {
-			Board.get().log("Error, could not save metadata: " + e);
-			return;
-		}
-	}
-	
-	/** Load the current metadata from disk, coincidentally creating
-	 * the player's save directory.
-	 * If there's a slot for which we have data but no save file,
-	 * make it null.
+	/** Load the current metadata from the save files' summaries,
+	 * coincidentally creating the player's save directory.
+	 * A slot whose file doesn't exist, or isn't a save file of the
+	 * current version, is empty.  A save whose summary is damaged still
+	 * occupies its slot; see SaveFile.readSummary().
 	 */
 	public void load() {
 		// FIRST, make sure that the save directory exists.
 		File dir = new File(dirName);
 		dir.mkdir();
 
-		File f = new File(metaName);
-		SaveMetadata meta = null;
-		
-		if (f.exists()) {
-			try {
-				ObjectInputStream os = new ObjectInputStream(new FileInputStream(f));
-				meta = (SaveMetadata)os.readObject();
-				os.close();
-			} catch (Exception e) {
-				Board.get().println("Error loading saved game metadata: " 
-						+ e.getMessage());
-				return;
-			}
-		}
-		
-		if (meta == null) {
-			meta = new SaveMetadata();
-		}
-
-		// FIRST, Keep the loaded meta data.
-		slotList = meta.slotList;
-			
-		// NEXT, make sure the occupied slots have matching files.
-		// If not, clear the slot data for that slot.
-		for (int i = MIN; i <= MAX; i++) {
-			if (slotList.get(i) != null) {
-				File sf = slotFile(i);
-				if (!sf.exists()) {
-					slotList.set(i,null);
-				}
-			}
+		// NEXT, read the summaries.
+		for (int i = MIN; i <= AUTO; i++) {
+			slotList.set(i, SaveFile.readSummary(slotFile(i)));
 		}
 	}
 }
@@ -0,0 +1,184 @@
+/**
+ *
+ */
+package app;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import rpg.RPG;
+
+/** The Simulation runs the game model on a thread of its own, so that a
+ * slow turn (e.g., a monster planning a long route) doesn't freeze
+ * painting and input on the Swing event thread.  The simulation thread
+ * owns the game state: it is changed only by the simulation's step, and
+ * by commands submitted to the simulation from other threads, usually
+ * in response to user input.<p>
+ *
+ * While the simulation is running, it calls the step at a fixed rate,
+ * executing any pending commands in between; if it falls behind, it
+ * catches up by a few steps at most and then resumes from the current
+ * time.  While it's stopped, it simply waits for commands.  After each
+ * step or command, it calls the publisher, which hands a snapshot of the
+ * state to the GUI.
+ * @author will
+ */
+final class Simulation {
+	/** The number of steps we're willing to fall behind before
+	 * giving up on them.
+	 */
+	private static final int MAX_LAG = 4;
+
+	// Instance Variables
+	private final long period;
+	private final Runnable step;
+	private final Runnable publisher;
+	private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+	private final Thread thread;
+	private volatile boolean running = false;
+
+	/** Creates the simulation and starts its thread.  The simulation is
+	 * initially stopped.
+	 *
+	 * @param delay The time between steps, in milliseconds
+	 * @param step The step, called at a fixed rate while running.
+	 * @param publisher Called after each step or command.
+	 */
+	Simulation(int delay, Runnable step, Runnable publisher) {
+		this.period = TimeUnit.MILLISECONDS.toNanos(delay);
+		this.step = step;
+		this.publisher = publisher;
+
+		thread = new Thread(new Runnable() {
+			public void run() {
+				loop();
+			}
+		}, "Simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	//-------------------------------------------------------------------------
+	// Control
+
+	/** Starts calling the step; the first step comes after one period. */
+	void start() {
+		running = true;
+	}
+
+	/** Stops calling the step. */
+	void stop() {
+		running = false;
+	}
+
+	/** @return true if the simulation is calling the step, and false
+	 * otherwise.
+	 */
+	boolean isRunning() {
+		return running;
+	}
+
+	/** Submits a command to be executed on the simulation thread.
+	 * Commands are executed in the order submitted.
+	 *
+	 * @param command The command
+	 */
+	void submit(Runnable command) {
+		commands.add(command);
+	}
+
+	/** @return true if the caller is running on the simulation thread,
+	 * and false otherwise.
+	 */
+	boolean isSimulationThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	//-------------------------------------------------------------------------
+	// The Loop
+
+	/** The simulation thread's main loop. */
+	private void loop() {
+		long next = System.nanoTime() + period;
+
+		try {
+			while (true) {
+				// FIRST, if we're stopped, wait for a command.  If it
+				// starts us, the first step is one period away.
+				if (!running) {
+					execute(commands.take());
+					next = System.nanoTime() + period;
+					continue;
+				}
+
+				// NEXT, execute commands until the next step is due.
+				long wait = next - System.nanoTime();
+
+				if (wait > 0) {
+					Runnable command = commands.poll(wait, TimeUnit.NANOSECONDS);
+
+					if (command != null) {
+						execute(command);
+						continue;
+					}
+				}
+
+				// NEXT, take the step, and schedule the next one.  If
+				// we've fallen too far behind, don't try to catch up.
+				execute(step);
+
+				next += period;
+				long now = System.nanoTime();
+
+				if (now - next > MAX_LAG*period) {
+					next = now;
+				}
+			}
+		} catch (InterruptedException e) {
+			// The application is exiting.
+		}
+	}
+
+	/** Executes a step or command, and publishes the result.  An error
+	 * is reported, but doesn't kill the simulation: the simulation
+	 * thread is the only one there is, and the game would freeze without
+	 * it.  Only a VirtualMachineError, which leaves nothing to recover,
+	 * is passed on.
+	 *
+	 * @param action The step or command
+	 */
+	private void execute(Runnable action) {
+		try {
+			action.run();
+		} catch (VirtualMachineError e) {
+			throw e;
+		} catch (Throwable e) {
+			report(e);
+		}
+
+		try {
+			publisher.run();
+		} catch (VirtualMachineError e) {
+			throw e;
+		} catch (Throwable e) {
+			report(e);
+		}
+	}
+
+	/** Reports an error to stderr and to the game's log.
+	 *
+	 * @param e The error
+	 */
+	private void report(Throwable e) {
+		e.printStackTrace();
+
+		try {
+			RPG.game().log("Internal error: " + e);
+		} catch (VirtualMachineError e2) {
+			throw e2;
+		} catch (Throwable e2) {
+			// It's on stderr, at least.
+		}
+	}
+}
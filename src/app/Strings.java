@@ -7,6 +7,7 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
+import rpg.RegionAsset;
 import util.StringsTable;
 
 /** This class serves as a registry for StringsTable objects, so that Entities
@@ -35,6 +36,8 @@ public class Strings {
 	}
 	
 	/** Loads and registers a strings table with the registry for later access.
+	 * If the table has been compiled into a RegionAsset, it's read from
+	 * the asset instead.
 	 * 
 	 * @param tableKey  The key.  Any serializable object can be used, but
 	 * it will usually be a String.
@@ -43,7 +46,9 @@ public class Strings {
 	 * @return the strings table
 	 */
 	public static StringsTable register(String tableKey, Class<?> cls, String resource) {
-		StringsTable table = new StringsTable(cls,resource); 
+		RegionAsset asset = RegionAsset.find(cls, resource);
+		StringsTable table = (asset != null && asset.hasStrings()) 
+				? asset.strings() : new StringsTable(cls,resource); 
 		register(tableKey, table);
 		
 		return table;
@@ -0,0 +1,196 @@
+/**
+ *
+ */
+package app;
+
+import graphics.ImageUtils;
+import graphics.StandardTile;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import map.Cell;
+import map.TerrainTile;
+import rpg.Region;
+
+/** A cache of pre-rendered terrain for MapPanel.  The region's map is
+ * divided into square chunks of cells, and each chunk is rendered to an
+ * image showing the terrain of the cells the party has seen; the unseen
+ * cells are black.  A frame then needs only a few chunk images rather
+ * than an image per cell.<p>
+ *
+ * A chunk is brought up to date when it's requested.  If cells in it
+ * have been seen since it was rendered, the newly seen cells are drawn
+ * onto a copy of the old image; if the terrain has changed, it's
+ * rendered from scratch.  Chunk images are never changed once
+ * returned, as they may still be in use by a published frame.<p>
+ *
+ * Only recently used chunks are kept.
+ * @author will
+ */
+final class TerrainCache {
+	/** The width and height of a chunk, in cells.  A chunk's seen
+	 * flags fit in a single long.
+	 */
+	static final int CHUNK = 8;
+
+	/** The maximum number of chunks to keep. */
+	private static final int MAX_CHUNKS = 64;
+
+	// Instance Variables
+	private final Region region;
+	private final int chunkCols;
+	private long terrainEpoch = -1;
+
+	// The chunks by index, least recently used first.
+	private final Map<Integer,Chunk> chunks =
+		new LinkedHashMap<Integer,Chunk>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer,Chunk> e) {
+				return size() > MAX_CHUNKS;
+			}
+		};
+
+	/** Creates an empty cache for the region.
+	 *
+	 * @param region The region
+	 */
+	TerrainCache(Region region) {
+		this.region = region;
+		this.chunkCols = (region.cols() + CHUNK - 1) / CHUNK;
+	}
+
+	/** @return the region whose terrain is cached. */
+	Region region() {
+		return region;
+	}
+
+	/** Returns the image for a chunk, bringing it up to date.  Its
+	 * upper left corner is cell (cr*CHUNK, cc*CHUNK).  This must be
+	 * called on the simulation thread.
+	 *
+	 * @param cr The chunk's row index
+	 * @param cc The chunk's column index
+	 * @return The image
+	 */
+	Image chunk(int cr, int cc) {
+		// FIRST, if the terrain has changed, start over.
+		if (region.terrainEpoch() != terrainEpoch) {
+			chunks.clear();
+			terrainEpoch = region.terrainEpoch();
+		}
+
+		// NEXT, get the chunk, rendering it if need be.
+		int index = cr*chunkCols + cc;
+		Chunk chunk = chunks.get(index);
+
+		if (chunk == null) {
+			chunk = new Chunk(cr*CHUNK, cc*CHUNK);
+			chunks.put(index, chunk);
+		}
+
+		chunk.update();
+
+		return chunk.image;
+	}
+
+	//-------------------------------------------------------------------------
+	// Chunks
+
+	/** A single chunk of the map, with the seen flags of its cells as of
+	 * the last time its image was rendered.
+	 */
+	private final class Chunk {
+		final int r0;
+		final int c0;
+		final int rows;
+		final int cols;
+		BufferedImage image = null;
+		long seen = 0;
+
+		Chunk(int r0, int c0) {
+			this.r0 = r0;
+			this.c0 = c0;
+			this.rows = Math.min(CHUNK, region.rows() - r0);
+			this.cols = Math.min(CHUNK, region.cols() - c0);
+		}
+
+		/** Renders the cells that have been seen since the image was
+		 * last rendered, if any, onto a new image.
+		 */
+		void update() {
+			// FIRST, which cells are seen now?
+			long now = seenFlags();
+
+			if (image != null && now == seen) {
+				return;
+			}
+
+			// NEXT, copy the old image, if any.
+			BufferedImage img = ImageUtils.compatibleImage(
+					cols*StandardTile.SIZE, rows*StandardTile.SIZE,
+					Transparency.OPAQUE);
+			Graphics2D g = img.createGraphics();
+
+			if (image != null) {
+				g.drawImage(image, 0, 0, null);
+			} else {
+				g.setColor(Color.BLACK);
+				g.fillRect(0, 0, img.getWidth(), img.getHeight());
+			}
+
+			// NEXT, draw the newly seen cells.
+			long added = now & ~seen;
+
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < cols; j++) {
+					if ((added & bit(i, j)) != 0) {
+						TerrainTile tile = region.terrainAt(new Cell(r0 + i, c0 + j));
+
+						if (tile != null) {
+							g.drawImage(tile.image(),
+									j*StandardTile.SIZE, i*StandardTile.SIZE, null);
+						}
+					}
+				}
+			}
+
+			g.dispose();
+
+			image = img;
+			seen = now;
+		}
+
+		/** @return the chunk's current seen flags, one bit per cell. */
+		private long seenFlags() {
+			long flags = 0;
+
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < cols; j++) {
+					if (region.hasBeenSeen(r0 + i, c0 + j)) {
+						flags |= bit(i, j);
+					}
+				}
+			}
+
+			return flags;
+		}
+	}
+
+	/** Returns the bit for a cell in a chunk's seen flags.
+	 *
+	 * @param i The cell's row within the chunk
+	 * @param j The cell's column within the chunk
+	 * @return The bit
+	 */
+	private static long bit(int i, int j) {
+		return 1L << (i*CHUNK + j);
+	}
+}
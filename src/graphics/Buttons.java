@@ -46,10 +46,13 @@ public enum Buttons implements Sprite {
 
 	// Static Data
 
+	/** The resource name of the tile sheet. */
+	public static final String SHEET = "Buttons.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private SpriteImage[] images;
 	
 	static {
-		images = ImageUtils.loadTileSet(Buttons.class,"Buttons.png");
+		images = ImageUtils.loadTileSet(Buttons.class,SHEET);
 	}
 }
@@ -44,10 +44,13 @@ public enum Effects implements Sprite {
 
 	// Static Data
 
+	/** The resource name of the tile sheet. */
+	public static final String SHEET = "Effects.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private SpriteImage[] images;
 	
 	static {
-		images = ImageUtils.loadTileSet(Effects.class, "Effects.png");
+		images = ImageUtils.loadTileSet(Effects.class, SHEET);
 	}
 }
@@ -56,10 +56,13 @@ public enum Features implements Sprite {
 
 	// Static Data
 
+	/** The resource name of the tile sheet. */
+	public static final String SHEET = "Features.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private SpriteImage[] images;
 	
 	static {
-		images = ImageUtils.loadTileSet(Features.class,"Features.png");
+		images = ImageUtils.loadTileSet(Features.class,SHEET);
 	}
 }
@@ -3,11 +3,12 @@
  */
 package graphics;
 
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 
 import javax.imageio.ImageIO;
@@ -90,80 +91,54 @@ public final class ImageUtils {
     }
     
     /** Loads a tile set image into memory, returning a list of the tile images
-     * as Sprites.
+     * as Sprites.  See SpriteAtlas.
      * 
      * @param cls The class that owns the resource
      * @param resource  The resource name of the image file.
      * @return The array of sprite images.
      */
     public static SpriteImage[] loadTileSet(Class<?> cls, String resource) {
-		// FIRST, read the image.
-    	BufferedImage tileSet = null;
-    	
-    	try {
-    		InputStream istream = cls.getResourceAsStream(resource);
-    		tileSet = ImageIO.read(istream);
-    	} catch (IOException e) {
-    		System.err.println("Could not read tile set from " + resource);
-    		System.exit(1);
-    	}
-    	    	
-		// NEXT, get some metrics.
-		int cols = tileSet.getWidth(null) / Sprite.SIZE;
-		int rows = tileSet.getHeight(null) / Sprite.SIZE;
-		
-		// NEXT, prepare the array.
-		SpriteImage[] tiles = new SpriteImage[rows*cols];
-		
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < cols; j++) {
-				BufferedImage tile = 
-					tileSet.getSubimage(j*Sprite.SIZE, i*Sprite.SIZE, 
-										Sprite.SIZE, Sprite.SIZE);
-				tiles[i*cols + j] = new SpriteImage(tile);
-			}
-		}
-		
-		return tiles;
+    	return SpriteAtlas.load(cls, resource, Sprite.SIZE).sprites();
     }
     
-    
-    
     /** Loads a tile set image into memory, returning a list of the tile images.
+     * See SpriteAtlas.
      * 
      * @param cls  The class that owns the resource
      * @param resource  The resource name of the image file.
      * @param tileSize  The size of the tile in pixels.
-     * @return
+     * @return The array of tile images.
      */
     public static Image[] loadTileSet(Class<?> cls, String resource, int tileSize) {
-		// FIRST, read the image.
-    	BufferedImage tileSet = null;
-    	
-    	try {
-    		InputStream istream = cls.getResourceAsStream(resource);
-    		tileSet = ImageIO.read(istream);
-    	} catch (IOException e) {
-    		System.err.println("Could not read tile set from " + resource);
-    		System.exit(1);
-    	}
-    	    	
-		// NEXT, get some metrics.
-		int cols = tileSet.getWidth(null) / tileSize;
-		int rows = tileSet.getHeight(null) / tileSize;
-		
-		// NEXT, prepare the array.
-		Image[] tiles = new Image[rows*cols];
+    	SpriteAtlas atlas = SpriteAtlas.load(cls, resource, tileSize);
+		Image[] tiles = new Image[atlas.size()];
 		
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < cols; j++) {
-				BufferedImage tile = 
-					tileSet.getSubimage(j*tileSize, i*tileSize, 
-										tileSize, tileSize);
-				tiles[i*cols + j] = tile;
-			}
+		for (int i = 0; i < tiles.length; i++) {
+			tiles[i] = atlas.image(i);
 		}
 		
 		return tiles;
     }
+    
+    /** Creates an image in the format of the screen, so that it can be
+     * drawn quickly; when there's no screen, creates an ordinary ARGB or
+     * RGB image.
+     * 
+     * @param width The width in pixels
+     * @param height The height in pixels
+     * @param transparency A java.awt.Transparency constant
+     * @return The image
+     */
+    public static BufferedImage compatibleImage(int width, int height, 
+    		int transparency) {
+    	if (GraphicsEnvironment.isHeadless()) {
+    		int type = (transparency == Transparency.OPAQUE) 
+    				? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+    		return new BufferedImage(width, height, type);
+    	}
+    	
+    	return GraphicsEnvironment.getLocalGraphicsEnvironment()
+    			.getDefaultScreenDevice().getDefaultConfiguration()
+    			.createCompatibleImage(width, height, transparency);
+    }
 }
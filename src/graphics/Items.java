@@ -88,10 +88,13 @@ public enum Items implements Sprite {
 
 	// Static Data
 
+	/** The resource name of the tile sheet. */
+	public static final String SHEET = "Items.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private SpriteImage[] images;
 	
 	static {
-		images = ImageUtils.loadTileSet(Items.class,"Items.png");
+		images = ImageUtils.loadTileSet(Items.class,SHEET);
 	}
 }
@@ -160,6 +160,18 @@ public enum Mobiles implements Sprite {
 
 	// Static Data
 
+	/** The resource names of the tile sheets, in the order in which 
+	 * they are loaded. */
+	public static final String HUMAN_SHEET = "mobile_human.png";
+	public static final String ANIMAL_SHEET = "mobile_animal.png";
+	public static final String DEMON_SHEET = "mobile_demon.png";
+	public static final String FAIRY_SHEET = "mobile_fairy.png";
+	public static final String HUMANOID_SHEET = "mobile_humanoid.png";
+	public static final String INSECT_SHEET = "mobile_insect.png";
+	public static final String ROBOT_SHEET = "mobile_robot.png";
+	public static final String SLIME_SHEET = "mobile_slime.png";
+	public static final String UNDEAD_SHEET = "mobile_undead.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private List<SpriteImage> images = new ArrayList<>();
 	
@@ -170,14 +182,14 @@ public enum Mobiles implements Sprite {
 	}
 
 	static {
-		loadTileSet("mobile_human.png");
-		loadTileSet("mobile_animal.png");
-		loadTileSet("mobile_demon.png");
-		loadTileSet("mobile_fairy.png");
-		loadTileSet("mobile_humanoid.png");
-		loadTileSet("mobile_insect.png");
-		loadTileSet("mobile_robot.png");
-		loadTileSet("mobile_slime.png");
-		loadTileSet("mobile_undead.png");
+		loadTileSet(HUMAN_SHEET);
+		loadTileSet(ANIMAL_SHEET);
+		loadTileSet(DEMON_SHEET);
+		loadTileSet(FAIRY_SHEET);
+		loadTileSet(HUMANOID_SHEET);
+		loadTileSet(INSECT_SHEET);
+		loadTileSet(ROBOT_SHEET);
+		loadTileSet(SLIME_SHEET);
+		loadTileSet(UNDEAD_SHEET);
 	}
 }
@@ -0,0 +1,269 @@
+/**
+ *
+ */
+package graphics;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+
+/** Reads tile sheets for SpriteAtlas, decoding them ahead of time when
+ * asked to.<p>
+ *
+ * A sheet can be preloaded, on any thread; the decoded sheet is held
+ * until the atlas asks for it, and then dropped.  Preloaded sheets are
+ * only softly reachable, so the garbage collector may drop them sooner,
+ * if memory runs short.  If a cache directory
+ * has been set, each decoded sheet is also saved there as raw ARGB
+ * pixels, in a file named for the SHA-1 hash of the PNG's bytes, and
+ * later runs read the pixels instead of decoding the PNG again.  A
+ * changed sheet has a new hash, and so is decoded afresh; stale files
+ * can simply be deleted.
+ * @author will
+ *
+ */
+public final class SheetCache {
+	// Not instantiable
+	private SheetCache() {}
+
+	/** The magic number of a cached sheet, "GPIX". */
+	private static final int MAGIC = 0x47504958;
+
+	/** The size of a cached sheet's header, in bytes. */
+	private static final int HEADER_SIZE = 12;
+
+	/** The file name extension for cached sheets. */
+	private static final String SUFFIX = ".pixels";
+
+	// The preloaded sheets, by resource URL.  They are held softly, so
+	// that the sheets of regions the player never enters don't stay in
+	// memory when it's needed; a collected sheet is simply read again.
+	private static final Map<String,SoftReference<BufferedImage>> sheets =
+			new ConcurrentHashMap<>();
+
+	// The directory for cached sheets, or null for none.
+	private static volatile File cacheDir = null;
+
+	//-------------------------------------------------------------------------
+	// Public Methods
+
+	/** Sets the directory in which decoded sheets are cached on disk.
+	 * It's created if need be.
+	 *
+	 * @param dir The directory, or null to cache nothing on disk.
+	 */
+	public static void setCacheDir(File dir) {
+		if (dir != null) {
+			dir.mkdirs();
+		}
+
+		cacheDir = dir;
+	}
+
+	/** Decodes a tile sheet and holds it until it's read.  Does nothing
+	 * if the sheet can't be read; the error is reported when it's read.
+	 *
+	 * @param cls The class that owns the resource
+	 * @param resource The resource name of the image file.
+	 */
+	public static void preload(Class<?> cls, String resource) {
+		URL url = cls.getResource(resource);
+
+		if (url == null) {
+			return;
+		}
+
+		try {
+			sheets.put(url.toString(), new SoftReference<>(decode(url)));
+		} catch (IOException e) {
+			// Reported when it's read.
+		}
+	}
+
+	/** Reads a tile sheet, using the preloaded sheet if there is one.
+	 *
+	 * @param cls The class that owns the resource
+	 * @param resource The resource name of the image file.
+	 * @return The sheet, or null if there's no such resource.
+	 * @throws IOException if it can't be read.
+	 */
+	public static BufferedImage read(Class<?> cls, String resource)
+			throws IOException {
+		URL url = cls.getResource(resource);
+
+		if (url == null) {
+			return null;
+		}
+
+		SoftReference<BufferedImage> ref = sheets.remove(url.toString());
+		BufferedImage sheet = (ref != null) ? ref.get() : null;
+
+		return (sheet != null) ? sheet : decode(url);
+	}
+
+	//-------------------------------------------------------------------------
+	// Decoding
+
+	/** Decodes a sheet, or reads its pixels from the cache.
+	 *
+	 * @param url The sheet's URL
+	 * @return The sheet
+	 * @throws IOException if it can't be read.
+	 */
+	private static BufferedImage decode(URL url) throws IOException {
+		byte[] bytes = readBytes(url);
+		File dir = cacheDir;
+		File cached = (dir != null) ? new File(dir, hash(bytes) + SUFFIX) : null;
+
+		// FIRST, use the cached pixels if we have them.
+		if (cached != null && cached.isFile()) {
+			try {
+				return readPixels(cached);
+			} catch (IOException e) {
+				// Decode it again.
+			}
+		}
+
+		// NEXT, decode the PNG.
+		BufferedImage sheet = ImageIO.read(new ByteArrayInputStream(bytes));
+
+		if (sheet == null) {
+			throw new IOException("Not an image: " + url);
+		}
+
+		// NEXT, cache it.  A sheet that can't be cached is simply decoded
+		// again next time.
+		if (cached != null) {
+			try {
+				writePixels(cached, sheet);
+			} catch (IOException e) {
+				System.err.println("Could not cache tile sheet " + url +
+						": " + e);
+			}
+		}
+
+		return sheet;
+	}
+
+	/** Reads a sheet's cached pixels.
+	 *
+	 * @param file The cache file
+	 * @return The sheet, as an ARGB image.
+	 * @throws IOException if the file can't be read.
+	 */
+	private static BufferedImage readPixels(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+
+			int width = buf.getInt(4);
+			int height = buf.getInt(8);
+
+			if (buf.getInt(0) != MAGIC ||
+				buf.capacity() != HEADER_SIZE + 4L*width*height) {
+				throw new IOException("Bad cached sheet: " + file);
+			}
+
+			BufferedImage sheet = new BufferedImage(width, height,
+					BufferedImage.TYPE_INT_ARGB);
+			int[] pixels =
+				((DataBufferInt)sheet.getRaster().getDataBuffer()).getData();
+
+			buf.position(HEADER_SIZE);
+			buf.asIntBuffer().get(pixels);
+
+			return sheet;
+		}
+	}
+
+	/** Writes a sheet's pixels to the cache.  The file is written under a
+	 * temporary name and then renamed, so that a reader never sees a
+	 * partial file.
+	 *
+	 * @param file The cache file
+	 * @param sheet The sheet
+	 * @throws IOException if the file can't be written.
+	 */
+	private static void writePixels(File file, BufferedImage sheet)
+			throws IOException {
+		int width = sheet.getWidth();
+		int height = sheet.getHeight();
+		int[] pixels = sheet.getRGB(0, 0, width, height, null, 0, width);
+
+		ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + 4*pixels.length);
+		buf.putInt(MAGIC).putInt(width).putInt(height);
+		buf.asIntBuffer().put(pixels);
+
+		File temp = File.createTempFile("sheet", ".tmp", file.getParentFile());
+
+		try {
+			Files.write(temp.toPath(), buf.array());
+			Files.move(temp.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Utilities
+
+	/** Reads the whole of a resource.
+	 *
+	 * @param url The resource's URL
+	 * @return Its bytes
+	 * @throws IOException on error.
+	 */
+	private static byte[] readBytes(URL url) throws IOException {
+		try (InputStream in = url.openStream()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] chunk = new byte[8192];
+			int n;
+
+			while ((n = in.read(chunk)) > 0) {
+				out.write(chunk, 0, n);
+			}
+
+			return out.toByteArray();
+		}
+	}
+
+	/** Computes the SHA-1 hash of some bytes, as hex.
+	 *
+	 * @param bytes The bytes
+	 * @return The hash
+	 */
+	private static String hash(byte[] bytes) {
+		try {
+			StringBuilder sb = new StringBuilder();
+
+			for (byte b : MessageDigest.getInstance("SHA-1").digest(bytes)) {
+				sb.append(String.format("%02x", b));
+			}
+
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM has SHA-1.
+			throw new IllegalStateException(e);
+		}
+	}
+}
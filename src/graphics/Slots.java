@@ -44,10 +44,13 @@ public enum Slots implements Sprite {
 
 	// Static Data
 
+	/** The resource name of the tile sheet. */
+	public static final String SHEET = "Slots.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private SpriteImage[] images;
 	
 	static {
-		images = ImageUtils.loadTileSet(Slots.class, "Slots.png");
+		images = ImageUtils.loadTileSet(Slots.class, SHEET);
 	}
 }
@@ -0,0 +1,118 @@
+/**
+ *
+ */
+package graphics;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/** A SpriteAtlas holds the tiles of a tile sheet, ready for drawing.
+ * The sheet is read once, and each tile is copied into an image of its
+ * own that's compatible with the screen, so that Java2D can cache it in
+ * video memory.  (Tiles taken with getSubimage() share the sheet's
+ * raster, which may be in any format, and are drawn in software.)<p>
+ *
+ * Each tile is handed out as a SpriteImage, which also caches the tile's
+ * magnified image and its icons.
+ * @author will
+ */
+public final class SpriteAtlas {
+	// Instance Variables
+	private final int tileSize;
+	private final SpriteImage[] sprites;
+
+	/** Creates an atlas from a tile sheet.  The tiles are read left to
+	 * right and top to bottom; any partial tiles at the right and bottom
+	 * edges are ignored.
+	 *
+	 * @param sheet The tile sheet
+	 * @param tileSize The height and width of a tile, in pixels.
+	 */
+	public SpriteAtlas(BufferedImage sheet, int tileSize) {
+		this.tileSize = tileSize;
+
+		int cols = sheet.getWidth() / tileSize;
+		int rows = sheet.getHeight() / tileSize;
+		sprites = new SpriteImage[rows*cols];
+
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				BufferedImage tile = ImageUtils.compatibleImage(
+						tileSize, tileSize, Transparency.TRANSLUCENT);
+				Graphics2D g = tile.createGraphics();
+				g.drawImage(sheet,
+						0, 0, tileSize, tileSize,
+						j*tileSize, i*tileSize, (j+1)*tileSize, (i+1)*tileSize,
+						null);
+				g.dispose();
+
+				sprites[i*cols + j] = new SpriteImage(tile);
+			}
+		}
+	}
+
+	/** Loads an atlas from a tile sheet resource; halts with an error
+	 * if the resource can't be read.  The sheet may have been preloaded;
+	 * see SheetCache.
+	 *
+	 * @param cls The class that owns the resource
+	 * @param resource The resource name of the image file.
+	 * @param tileSize The height and width of a tile, in pixels.
+	 * @return The atlas
+	 */
+	public static SpriteAtlas load(Class<?> cls, String resource, int tileSize) {
+		BufferedImage sheet = null;
+
+		try {
+			sheet = SheetCache.read(cls, resource);
+		} catch (IOException e) {
+			// Handled below
+		}
+
+		if (sheet == null) {
+			System.err.println("Could not read tile set from " + resource);
+			System.exit(1);
+		}
+
+		return new SpriteAtlas(sheet, tileSize);
+	}
+
+	//-------------------------------------------------------------------------
+	// Queries
+
+	/** @return the height and width of a tile, in pixels. */
+	public int tileSize() {
+		return tileSize;
+	}
+
+	/** @return the number of tiles in the atlas. */
+	public int size() {
+		return sprites.length;
+	}
+
+	/** Returns a tile as a sprite.
+	 *
+	 * @param index The tile's index, counting from the upper left.
+	 * @return The sprite
+	 */
+	public SpriteImage sprite(int index) {
+		return sprites[index];
+	}
+
+	/** Returns a tile's image.
+	 *
+	 * @param index The tile's index, counting from the upper left.
+	 * @return The image
+	 */
+	public Image image(int index) {
+		return sprites[index].image();
+	}
+
+	/** @return a new array of all of the tiles, as sprites. */
+	public SpriteImage[] sprites() {
+		return sprites.clone();
+	}
+}
@@ -3,18 +3,28 @@
  */
 package graphics;
 
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 
 import javax.swing.ImageIcon;
 
-/**
+/** A sprite with a given image.  The magnified image and the icons are
+ * created the first time they are needed, and then reused.
+ *
  * @author will
  *
  */
 public class SpriteImage implements Sprite {
 	private BufferedImage image;
 
+	// Derived images, created on demand.  If two threads ask at once,
+	// both may create them; that's harmless.
+	private volatile Image bigImage = null;
+	private volatile ImageIcon icon = null;
+	private volatile ImageIcon bigIcon = null;
+
 	/** Creates a new SpriteImage from a BufferedImage.
 	 * 
 	 * @param image The buffered image.
@@ -32,19 +42,36 @@ public class SpriteImage implements Sprite {
 	/** @return the sprite's image, magnified. */
 	@Override
 	public Image bigImage() {
-		int size = 3*Sprite.SIZE;
-		return image.getScaledInstance(size, size, Image.SCALE_DEFAULT);
+		if (bigImage == null) {
+			int size = 3*Sprite.SIZE;
+			BufferedImage big = ImageUtils.compatibleImage(size, size,
+					Transparency.TRANSLUCENT);
+			Graphics2D g = big.createGraphics();
+			g.drawImage(image, 0, 0, size, size, null);
+			g.dispose();
+			bigImage = big;
+		}
+
+		return bigImage;
 	}
 	
 	/** @return the sprite's icon. */
 	@Override
 	public ImageIcon icon() {
-		return new ImageIcon(image);
+		if (icon == null) {
+			icon = new ImageIcon(image);
+		}
+
+		return icon;
 	}
 
 	/** @return a sprite's icon, magnified. */
 	@Override
 	public ImageIcon bigIcon() {
-		return new ImageIcon(bigImage());
+		if (bigIcon == null) {
+			bigIcon = new ImageIcon(bigImage());
+		}
+
+		return bigIcon;
 	}
 }
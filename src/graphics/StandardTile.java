@@ -100,11 +100,14 @@ public enum StandardTile implements TerrainTile {
 
 	// Static Data
 
+	/** The resource name of the tile sheet. */
+	public static final String SHEET = "standard.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private SpriteImage[] images;
 		
 	
 	static {
-		images = ImageUtils.loadTileSet(StandardTile.class, "standard.png");
+		images = ImageUtils.loadTileSet(StandardTile.class, SHEET);
 	}
 }
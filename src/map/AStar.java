@@ -0,0 +1,370 @@
+/**
+ *
+ */
+package map;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** The A* route-finding engine used by TerrainGrid.  Cells are encoded
+ * as integer indices, row*cols + col, and the open set is a binary heap
+ * of indices with decrease-key.  The per-node scratch arrays belong to
+ * the engine and are reused from search to search; each search bumps a
+ * generation counter, and a node's data is valid only if its stamp
+ * matches the current generation, so the arrays never need clearing.<p>
+ *
+ * An engine is not thread-safe; each TerrainGrid owns its own.
+ * @author will
+ */
+final class AStar {
+	/** Cost of an orthogonal step. */
+	private static final double ORTHOGONAL = 1.0;
+
+	/** Cost of a diagonal step. */
+	private static final double DIAGONAL = Math.sqrt(2.0);
+
+	// Instance Variables
+	private final int rows;
+	private final int cols;
+
+	/** Cell objects by index, created on demand, so that the assessor
+	 * can be called without allocating a new Cell for every neighbor. */
+	private final Cell[] cells;
+
+	// Per-node scratch data, valid when stamp[i] == generation.
+	private final int[] stamp;
+	private final boolean[] closed;
+	private final int[] parent;
+	private final double[] gScore;
+	private final double[] fScore;
+
+	/** The open set: a binary min-heap of node indices ordered by fScore. */
+	private final int[] heap;
+
+	/** The position of each open node in the heap, or -1. */
+	private final int[] heapPos;
+	private int heapSize = 0;
+
+	/** The current search generation. */
+	private int generation = 0;
+
+	/** The number of nodes expanded by the most recent search. */
+	private int expanded = 0;
+
+	/** Creates an engine for a grid of the given size.
+	 *
+	 * @param rows The number of rows
+	 * @param cols The number of columns
+	 */
+	AStar(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+
+		int size = rows*cols;
+		cells = new Cell[size];
+		stamp = new int[size];
+		closed = new boolean[size];
+		parent = new int[size];
+		gScore = new double[size];
+		fScore = new double[size];
+		heap = new int[size];
+		heapPos = new int[size];
+	}
+
+	/** @return the number of nodes expanded by the most recent search. */
+	int expanded() {
+		return expanded;
+	}
+
+	//-------------------------------------------------------------------------
+	// Searches
+
+	/** Finds the best route from start to goal.
+	 *
+	 * @param start The starting point
+	 * @param goal The point to go to.
+	 * @param assessor The movement assessor; the goal is always assumed
+	 * to be passable.
+	 * @return The route from start to goal, or null if there is none.  The
+	 * returned route does not include the starting point.
+	 */
+	List<Cell> findRoute(Cell start, Cell goal, MovementAssessor assessor) {
+		int node = search(start, goal, assessor);
+
+		if (node < 0) {
+			return null;
+		}
+
+		// Count the steps, then fill the route in from the goal backwards.
+		int startNdx = index(start.row, start.col);
+		int length = 0;
+
+		for (int n = node; n != startNdx; n = parent[n]) {
+			length++;
+		}
+
+		Cell[] steps = new Cell[length];
+
+		for (int n = node, i = length - 1; n != startNdx; n = parent[n], i--) {
+			steps[i] = cell(n);
+		}
+
+		List<Cell> route = new ArrayList<>(length);
+
+		for (Cell step : steps) {
+			route.add(step);
+		}
+
+		return route;
+	}
+
+	/** Finds the length of the best route from start to goal, without
+	 * building the route itself.
+	 *
+	 * @param start The starting point
+	 * @param goal The point to go to.
+	 * @param assessor The movement assessor.
+	 * @return The number of steps in the route, or Integer.MAX_VALUE if
+	 * there is no route.
+	 */
+	int routeLength(Cell start, Cell goal, MovementAssessor assessor) {
+		int node = search(start, goal, assessor);
+
+		if (node < 0) {
+			return Integer.MAX_VALUE;
+		}
+
+		int startNdx = index(start.row, start.col);
+		int length = 0;
+
+		for (int n = node; n != startNdx; n = parent[n]) {
+			length++;
+		}
+
+		return length;
+	}
+
+	/** The A* search proper.  On success, the route can be recovered
+	 * by following the parent links from the goal back to the start.
+	 *
+	 * @param start The starting point
+	 * @param goal The point to go to.
+	 * @param assessor The movement assessor.
+	 * @return The goal's index, or -1 if there is no route.  There is
+	 * never a route to or from a cell outside the grid.
+	 */
+	private int search(Cell start, Cell goal, MovementAssessor assessor) {
+		if (!inBounds(start) || !inBounds(goal)) {
+			expanded = 0;
+			return -1;
+		}
+
+		nextGeneration();
+
+		int startNdx = index(start.row, start.col);
+		int goalNdx = index(goal.row, goal.col);
+		int gr = goal.row;
+		int gc = goal.col;
+
+		touch(startNdx);
+		gScore[startNdx] = 0.0;
+		fScore[startNdx] = heuristic(start.row, start.col, gr, gc);
+		push(startNdx);
+
+		while (heapSize > 0) {
+			// FIRST, take the node with the best fScore.  If it's the
+			// goal, we are there.
+			int current = pop();
+
+			if (current == goalNdx) {
+				return goalNdx;
+			}
+
+			closed[current] = true;
+			expanded++;
+
+			// NEXT, relax each of its passable neighbors.
+			int cr = current / cols;
+			int cc = current % cols;
+			int r0 = Math.max(cr - 1, 0);
+			int r1 = Math.min(cr + 1, rows - 1);
+			int c0 = Math.max(cc - 1, 0);
+			int c1 = Math.min(cc + 1, cols - 1);
+
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					int n = r*cols + c;
+
+					if (n == current) {
+						continue;
+					}
+
+					boolean seen = stamp[n] == generation;
+
+					if (seen && closed[n]) {
+						continue;
+					}
+
+					if (n != goalNdx && !assessor.isPassable(cell(n))) {
+						continue;
+					}
+
+					double g = gScore[current] +
+							((r == cr || c == cc) ? ORTHOGONAL : DIAGONAL);
+
+					if (!seen) {
+						touch(n);
+						parent[n] = current;
+						gScore[n] = g;
+						fScore[n] = g + heuristic(r, c, gr, gc);
+						push(n);
+					} else if (g < gScore[n]) {
+						parent[n] = current;
+						gScore[n] = g;
+						fScore[n] = g + heuristic(r, c, gr, gc);
+						siftUp(heapPos[n]);
+					}
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/** Starts a new search: a new generation invalidates all of the
+	 * scratch data from the previous search.
+	 */
+	private void nextGeneration() {
+		heapSize = 0;
+		expanded = 0;
+		generation++;
+
+		// On wrap-around, the old stamps might collide with new
+		// generations; clear them once and start over.
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+	}
+
+	/** Marks a node as part of the current search.
+	 *
+	 * @param n The node index
+	 */
+	private void touch(int n) {
+		stamp[n] = generation;
+		closed[n] = false;
+		heapPos[n] = -1;
+	}
+
+	//-------------------------------------------------------------------------
+	// Indexed binary heap
+
+	private void push(int n) {
+		heap[heapSize] = n;
+		heapPos[n] = heapSize;
+		heapSize++;
+		siftUp(heapSize - 1);
+	}
+
+	private int pop() {
+		int top = heap[0];
+		heapPos[top] = -1;
+		heapSize--;
+
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapPos[heap[0]] = 0;
+			siftDown(0);
+		}
+
+		return top;
+	}
+
+	private void siftUp(int pos) {
+		int n = heap[pos];
+		double f = fScore[n];
+
+		while (pos > 0) {
+			int up = (pos - 1) >>> 1;
+			int p = heap[up];
+
+			if (fScore[p] <= f) {
+				break;
+			}
+
+			heap[pos] = p;
+			heapPos[p] = pos;
+			pos = up;
+		}
+
+		heap[pos] = n;
+		heapPos[n] = pos;
+	}
+
+	private void siftDown(int pos) {
+		int n = heap[pos];
+		double f = fScore[n];
+		int half = heapSize >>> 1;
+
+		while (pos < half) {
+			int child = 2*pos + 1;
+			int right = child + 1;
+
+			if (right < heapSize && fScore[heap[right]] < fScore[heap[child]]) {
+				child = right;
+			}
+
+			if (f <= fScore[heap[child]]) {
+				break;
+			}
+
+			heap[pos] = heap[child];
+			heapPos[heap[pos]] = pos;
+			pos = child;
+		}
+
+		heap[pos] = n;
+		heapPos[n] = pos;
+	}
+
+	//-------------------------------------------------------------------------
+	// Utilities
+
+	private int index(int r, int c) {
+		return r*cols + c;
+	}
+
+	/** Is the cell within the grid?
+	 *
+	 * @param cell The cell
+	 * @return true if so, and false otherwise.
+	 */
+	private boolean inBounds(Cell cell) {
+		return cell.row >= 0 && cell.row < rows &&
+			cell.col >= 0 && cell.col < cols;
+	}
+
+	/** Returns the shared Cell object for a node index.
+	 *
+	 * @param n The node index
+	 * @return The cell
+	 */
+	private Cell cell(int n) {
+		Cell cell = cells[n];
+
+		if (cell == null) {
+			cell = cells[n] = new Cell(n / cols, n % cols);
+		}
+
+		return cell;
+	}
+
+	/** The Cartesian distance heuristic, as used by the original
+	 * algorithm.
+	 */
+	private static double heuristic(int r1, int c1, int r2, int c2) {
+		return Cell.cartesian(r1, c1, r2, c2);
+	}
+}
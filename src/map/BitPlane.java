@@ -0,0 +1,96 @@
+/**
+ *
+ */
+package map;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/** A BitPlane is a rectangular array of boolean flags, one per cell,
+ * packed 64 to a long in row-major order.  It's used for per-cell
+ * properties that are queried far more often than they change, e.g.,
+ * terrain walkability and opacity.
+ * @author will
+ */
+public final class BitPlane implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	// Instance Variables
+	private final int rows;
+	private final int cols;
+	private final long[] bits;
+
+	/** Creates a new plane, initially all false.
+	 *
+	 * @param rows The number of rows
+	 * @param cols The number of columns
+	 */
+	public BitPlane(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		this.bits = new long[(rows*cols + 63) >>> 6];
+	}
+
+	/** @return the number of rows. */
+	public int rows() {
+		return rows;
+	}
+
+	/** @return the number of columns. */
+	public int cols() {
+		return cols;
+	}
+
+	/** Gets the flag for cell r,c.
+	 *
+	 * @param r The row index
+	 * @param c The column index
+	 * @return The flag
+	 */
+	public boolean get(int r, int c) {
+		int n = r*cols + c;
+		return (bits[n >>> 6] & (1L << n)) != 0;
+	}
+
+	/** Gets the flag for a cell.
+	 *
+	 * @param cell The cell
+	 * @return The flag
+	 */
+	public boolean get(Cell cell) {
+		return get(cell.row, cell.col);
+	}
+
+	/** Sets the flag for cell r,c.
+	 *
+	 * @param r The row index
+	 * @param c The column index
+	 * @param flag The new value
+	 */
+	public void set(int r, int c, boolean flag) {
+		int n = r*cols + c;
+
+		if (flag) {
+			bits[n >>> 6] |= (1L << n);
+		} else {
+			bits[n >>> 6] &= ~(1L << n);
+		}
+	}
+
+	/** Sets the flag for a cell.
+	 *
+	 * @param cell The cell
+	 * @param flag The new value
+	 */
+	public void set(Cell cell, boolean flag) {
+		set(cell.row, cell.col, flag);
+	}
+
+	/** Sets every flag in the plane to the same value.
+	 *
+	 * @param flag The new value
+	 */
+	public void fill(boolean flag) {
+		Arrays.fill(bits, flag ? -1L : 0L);
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ *
+ */
+package map;
+
+/** A FieldOfView is the set of cells visible from a viewer's cell, as
+ * computed by recursive shadowcasting.  The area around the viewer is
+ * divided into eight octants, and each octant is scanned outward row by
+ * row; an opaque cell casts a shadow, a range of slopes, which is
+ * excluded from the scan of the rows beyond it.  Every cell is examined
+ * at most once per octant, so the whole field costs little more than
+ * the number of cells that are actually visible.<p>
+ *
+ * As with TerrainGrid.getLine, the viewer's own cell is always visible,
+ * and opaque cells are not: they block sight, but are not themselves
+ * "in LOS".  The visible set is kept in a BitPlane that is reused each
+ * time the field is computed.
+ * @author will
+ */
+public final class FieldOfView {
+	// Octant transforms: each maps (dx, dy) in the canonical octant to
+	// a column and row offset.
+	private static final int[] XX = { 1,  0,  0, -1, -1,  0,  0,  1 };
+	private static final int[] XY = { 0,  1, -1,  0,  0, -1,  1,  0 };
+	private static final int[] YX = { 0,  1,  1,  0,  0, -1, -1,  0 };
+	private static final int[] YY = { 1,  0,  0,  1, -1,  0,  0, -1 };
+
+	// Instance Variables
+	private final int rows;
+	private final int cols;
+	private final int range;
+	private final BitPlane visible;
+	private Cell origin = null;
+
+	// Set only while computing.
+	private OpacityAssessor assessor;
+
+	/** Creates a new field for a map of the given size.  Until it is
+	 * computed, no cell is visible.
+	 *
+	 * @param rows The number of rows
+	 * @param cols The number of columns
+	 */
+	public FieldOfView(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		this.range = Math.max(rows, cols);
+		this.visible = new BitPlane(rows, cols);
+	}
+
+	/** Computes the field for a viewer at the given cell.
+	 *
+	 * @param origin The viewer's cell
+	 * @param assessor The opacity assessor
+	 */
+	public void compute(Cell origin, OpacityAssessor assessor) {
+		this.origin = origin;
+		this.assessor = assessor;
+
+		visible.fill(false);
+		visible.set(origin, true);
+
+		for (int oct = 0; oct < 8; oct++) {
+			castLight(origin.col, origin.row, 1, 1.0, 0.0,
+					XX[oct], XY[oct], YX[oct], YY[oct]);
+		}
+
+		this.assessor = null;
+	}
+
+	/** @return the viewer's cell, or null if the field hasn't been
+	 * computed.
+	 */
+	public Cell origin() {
+		return origin;
+	}
+
+	/** Is cell r,c visible from the origin?
+	 *
+	 * @param r The row index
+	 * @param c The column index
+	 * @return true if it is, and false otherwise.
+	 */
+	public boolean isVisible(int r, int c) {
+		return visible.get(r, c);
+	}
+
+	/** Is the cell visible from the origin?
+	 *
+	 * @param cell The cell
+	 * @return true if it is, and false otherwise.
+	 */
+	public boolean isVisible(Cell cell) {
+		return visible.get(cell.row, cell.col);
+	}
+
+	//-------------------------------------------------------------------------
+	// Shadowcasting
+
+	/** Scans one octant outward from the given row, lighting the cells
+	 * whose slopes lie between start and end.  When an opaque cell is
+	 * found, the rows beyond it are scanned recursively with the
+	 * narrowed range of slopes.
+	 *
+	 * @param cx The origin's column
+	 * @param cy The origin's row
+	 * @param row The distance of the first row to scan
+	 * @param start The starting slope
+	 * @param end The ending slope
+	 * @param xx Octant transform
+	 * @param xy Octant transform
+	 * @param yx Octant transform
+	 * @param yy Octant transform
+	 */
+	private void castLight(int cx, int cy, int row, double start, double end,
+			int xx, int xy, int yx, int yy) {
+		if (start < end) {
+			return;
+		}
+
+		double newStart = 0.0;
+
+		for (int j = row; j <= range; j++) {
+			int dy = -j;
+			boolean blocked = false;
+
+			for (int dx = -j; dx <= 0; dx++) {
+				double lSlope = (dx - 0.5) / (dy + 0.5);
+				double rSlope = (dx + 0.5) / (dy - 0.5);
+
+				if (start < rSlope) {
+					continue;
+				} else if (end > lSlope) {
+					break;
+				}
+
+				int c = cx + dx*xx + dy*xy;
+				int r = cy + dx*yx + dy*yy;
+
+				if (r < 0 || r >= rows || c < 0 || c >= cols) {
+					continue;
+				}
+
+				boolean opaque = assessor.isOpaque(r, c);
+
+				if (!opaque) {
+					visible.set(r, c, true);
+				}
+
+				if (blocked) {
+					// Still in shadow?
+					if (opaque) {
+						newStart = rSlope;
+					} else {
+						blocked = false;
+						start = newStart;
+					}
+				} else if (opaque && j < range) {
+					// Starting a shadow: scan the rows beyond it with
+					// the part of the range before the shadow.
+					blocked = true;
+					castLight(cx, cy, j + 1, start, lSlope, xx, xy, yx, yy);
+					newStart = rSlope;
+				}
+			}
+
+			if (blocked) {
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ *
+ */
+package map;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** A FlowField records the travel distance from every cell of a map to
+ * the nearest of a set of source cells, as computed by a single
+ * breadth-first search outward from all of the sources at once.  A
+ * mobile that wants to reach the nearest source simply steps "downhill"
+ * from wherever it happens to be, which costs a handful of lookups
+ * rather than a route search.<p>
+ *
+ * Travel distance is the number of steps, diagonal steps included, as
+ * for TerrainMap.travelDistance.  The search can be limited to some
+ * maximum distance; cells beyond it are treated as unreachable.
+ * @author will
+ */
+public final class FlowField {
+	/** The distance of an unreachable cell. */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	// Instance Variables
+	private final int rows;
+	private final int cols;
+	private final int[] dist;
+	private final int[] queue;
+	private final Cell[] cells;
+
+	/** Creates a new field for a map of the given size.  Until it is
+	 * computed, every cell is unreachable.
+	 *
+	 * @param rows The number of rows
+	 * @param cols The number of columns
+	 */
+	public FlowField(int rows, int cols) {
+		this.rows = rows;
+		this.cols = cols;
+		dist = new int[rows*cols];
+		queue = new int[rows*cols];
+		cells = new Cell[rows*cols];
+
+		Arrays.fill(dist, UNREACHABLE);
+	}
+
+	/** Computes the field.  Each source cell has distance 0, whether
+	 * the assessor finds it passable or not; the search expands into
+	 * other cells only if the assessor finds them passable.
+	 *
+	 * @param sources The source cells
+	 * @param assessor The movement assessor
+	 * @param maxDistance The maximum distance to search.
+	 */
+	public void compute(List<Cell> sources, MovementAssessor assessor,
+			int maxDistance) {
+		Arrays.fill(dist, UNREACHABLE);
+
+		int head = 0;
+		int tail = 0;
+
+		// FIRST, seed the queue with the sources.
+		for (Cell source : sources) {
+			int n = source.row*cols + source.col;
+
+			if (dist[n] != 0) {
+				dist[n] = 0;
+				queue[tail++] = n;
+			}
+		}
+
+		// NEXT, expand outward one ring at a time.
+		while (head < tail) {
+			int current = queue[head++];
+			int d = dist[current] + 1;
+
+			if (d > maxDistance) {
+				continue;
+			}
+
+			int cr = current / cols;
+			int cc = current % cols;
+			int r0 = Math.max(cr - 1, 0);
+			int r1 = Math.min(cr + 1, rows - 1);
+			int c0 = Math.max(cc - 1, 0);
+			int c1 = Math.min(cc + 1, cols - 1);
+
+			for (int r = r0; r <= r1; r++) {
+				for (int c = c0; c <= c1; c++) {
+					int n = r*cols + c;
+
+					if (dist[n] != UNREACHABLE || !assessor.isPassable(cell(n))) {
+						continue;
+					}
+
+					dist[n] = d;
+					queue[tail++] = n;
+				}
+			}
+		}
+	}
+
+	/** Returns the distance from the cell to the nearest source.
+	 *
+	 * @param cell The cell
+	 * @return The travel distance, or UNREACHABLE.
+	 */
+	public int distance(Cell cell) {
+		return dist[cell.row*cols + cell.col];
+	}
+
+	/** Returns the best next step from a cell toward the nearest source:
+	 * the adjacent cell with the smallest distance, provided that it is
+	 * closer than the cell itself.  Source cells are always acceptable
+	 * steps; any other candidate must be passable by the caller's
+	 * assessor, which will usually be stricter than the one used to
+	 * compute the field (e.g., it will avoid other mobiles).  On ties,
+	 * orthogonal steps are preferred to diagonal ones.
+	 *
+	 * @param from The cell to step from
+	 * @param assessor The caller's movement assessor
+	 * @return The cell to step to, or null if there's no step downhill.
+	 */
+	public Cell stepFrom(Cell from, MovementAssessor assessor) {
+		int here = dist[from.row*cols + from.col];
+
+		if (here == UNREACHABLE || here == 0) {
+			return null;
+		}
+
+		int best = -1;
+		int bestDist = here;
+		boolean bestOrthogonal = false;
+
+		int r0 = Math.max(from.row - 1, 0);
+		int r1 = Math.min(from.row + 1, rows - 1);
+		int c0 = Math.max(from.col - 1, 0);
+		int c1 = Math.min(from.col + 1, cols - 1);
+
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				int n = r*cols + c;
+				int d = dist[n];
+				boolean orthogonal = (r == from.row || c == from.col);
+
+				if (d > bestDist || (d == bestDist && (best < 0 || bestOrthogonal || !orthogonal))) {
+					continue;
+				}
+
+				if (d != 0 && !assessor.isPassable(cell(n))) {
+					continue;
+				}
+
+				best = n;
+				bestDist = d;
+				bestOrthogonal = orthogonal;
+			}
+		}
+
+		return (best >= 0) ? cell(best) : null;
+	}
+
+	/** Returns the shared Cell object for a cell index.
+	 *
+	 * @param n The index
+	 * @return The cell
+	 */
+	private Cell cell(int n) {
+		Cell cell = cells[n];
+
+		if (cell == null) {
+			cell = cells[n] = new Cell(n / cols, n % cols);
+		}
+
+		return cell;
+	}
+}
@@ -0,0 +1,19 @@
+/**
+ * 
+ */
+package map;
+
+/** An OpacityAssessor assesses a cell for opacity, i.e., whether it
+ * blocks line of sight.  A region will usually consider both terrain
+ * and features.
+ * @author will
+ */
+public interface OpacityAssessor {
+	/** Does the cell block line of sight?
+	 * 
+	 * @param row The cell's row
+	 * @param col The cell's column
+	 * @return true if it does, and false otherwise.
+	 */
+	public boolean isOpaque(int row, int col);
+}
@@ -0,0 +1,217 @@
+/**
+ *
+ */
+package map;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** A RouteCache memoizes A* routes computed on a TerrainMap.  Routes are
+ * keyed by assessor and goal, and are valid only for the epoch in which
+ * they were computed; the owner of the cache is responsible for bumping
+ * the epoch whenever anything that might affect passability changes.<p>
+ *
+ * Any suffix of a best route is itself a best route, so if a mobile asks
+ * for a route to the same goal from a cell on a cached route (i.e., it
+ * is following the route step by step) the remainder of the cached
+ * route is returned without searching again.<p>
+ *
+ * Routes are returned as fresh lists, which the caller may modify.  The
+ * cache holds at most a fixed number of routes, discarding the least
+ * recently used.
+ * @author will
+ */
+public final class RouteCache {
+	/** The maximum number of routes retained. */
+	private static final int MAX_ROUTES = 64;
+
+	// Instance Variables
+	private final TerrainMap map;
+	private long epoch = -1;
+	private int hits = 0;
+	private int misses = 0;
+
+	@SuppressWarnings("serial") // Never serialized.
+	private final Map<Key,Route> routes =
+			new LinkedHashMap<Key,Route>(MAX_ROUTES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key,Route> eldest) {
+			return size() > MAX_ROUTES;
+		}
+	};
+
+	/** Creates a route cache for a terrain map.
+	 *
+	 * @param map The map on which routes are computed.
+	 */
+	public RouteCache(TerrainMap map) {
+		this.map = map;
+	}
+
+	//-------------------------------------------------------------------------
+	// Queries
+
+	/** Returns the best route from start to goal, as computed by
+	 * TerrainMap.findAStarRoute, using a cached route if possible.
+	 *
+	 * @param start The starting point (usually "here")
+	 * @param goal The point to go to.
+	 * @param assessor The terrain assessor to use, or null.
+	 * @param epoch The map's current change epoch.
+	 * @return The route from start to goal, or null if there is none.  The
+	 * returned route does not include the starting point.
+	 */
+	public List<Cell> findAStarRoute(Cell start, Cell goal,
+			MovementAssessor assessor, long epoch) {
+		Route route = lookup(start, goal, assessor, epoch);
+
+		if (route.cells == null) {
+			return null;
+		}
+
+		int from = route.indexOf(start) + 1;
+		List<Cell> result = new ArrayList<>(route.cells.length - from);
+
+		for (int i = from; i < route.cells.length; i++) {
+			result.add(route.cells[i]);
+		}
+
+		return result;
+	}
+
+	/** Returns the length of the best route from start to goal, using
+	 * a cached route if possible.
+	 *
+	 * @param start The starting point (usually "here")
+	 * @param goal The point to go to.
+	 * @param assessor The terrain assessor to use, or null.
+	 * @param epoch The map's current change epoch.
+	 * @return The length of the route, or Integer.MAX_VALUE if there is
+	 * no route.
+	 */
+	public int travelDistance(Cell start, Cell goal,
+			MovementAssessor assessor, long epoch) {
+		Route route = lookup(start, goal, assessor, epoch);
+
+		if (route.cells == null) {
+			return Integer.MAX_VALUE;
+		}
+
+		return route.cells.length - (route.indexOf(start) + 1);
+	}
+
+	/** Discards all cached routes. */
+	public void clear() {
+		routes.clear();
+	}
+
+	/** @return the number of lookups answered from the cache. */
+	public int hits() {
+		return hits;
+	}
+
+	/** @return the number of lookups that required a search. */
+	public int misses() {
+		return misses;
+	}
+
+	//-------------------------------------------------------------------------
+	// Helpers
+
+	/** Finds a cached route from start to goal, computing and caching
+	 * it if necessary.
+	 *
+	 * @param start The starting point
+	 * @param goal The goal
+	 * @param assessor The terrain assessor to use, or null.
+	 * @param epoch The map's current change epoch.
+	 * @return A route that is either from start or passes through it.
+	 */
+	private Route lookup(Cell start, Cell goal,
+			MovementAssessor assessor, long epoch) {
+		// FIRST, if the map has changed everything we have is stale.
+		if (epoch != this.epoch) {
+			routes.clear();
+			this.epoch = epoch;
+		}
+
+		// NEXT, see if we have a usable route to this goal.
+		Key key = new Key(goal, assessor);
+		Route route = routes.get(key);
+
+		if (route != null &&
+			(route.start.equals(start) ||
+			 (route.cells != null && route.indexOf(start) >= 0))) {
+			hits++;
+			return route;
+		}
+
+		// NEXT, compute a new route and remember it.
+		misses++;
+		route = new Route(start, map.findAStarRoute(start, goal, assessor));
+		routes.put(key, route);
+
+		return route;
+	}
+
+	/** A cached route, from its starting point. */
+	private static final class Route {
+		final Cell start;
+		final Cell[] cells;  // null if there is no route.
+
+		Route(Cell start, List<Cell> cells) {
+			this.start = start;
+			this.cells = (cells != null) ? cells.toArray(new Cell[0]) : null;
+		}
+
+		/** Finds a cell on the route.
+		 *
+		 * @param cell The cell
+		 * @return The index of the cell on the route, -1 if it's the
+		 * start, or -2 if it isn't on the route at all.
+		 */
+		int indexOf(Cell cell) {
+			if (cell.equals(start)) {
+				return -1;
+			}
+
+			for (int i = 0; i < cells.length; i++) {
+				if (cells[i].equals(cell)) {
+					return i;
+				}
+			}
+
+			return -2;
+		}
+	}
+
+	/** A route key: the goal and the assessor.  Assessors are compared
+	 * by identity.
+	 */
+	private static final class Key {
+		final Cell goal;
+		final MovementAssessor assessor;
+
+		Key(Cell goal, MovementAssessor assessor) {
+			this.goal = goal;
+			this.assessor = assessor;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31*goal.hashCode() + System.identityHashCode(assessor);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key)obj;
+
+			return goal.equals(other.goal) && assessor == other.assessor;
+		}
+	}
+}
@@ -8,14 +8,17 @@ import graphics.StandardTile;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import util.Metrics;
 
 
 /** A rectangular array of Terrain objects.  Cells can be null.
@@ -26,7 +29,14 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 
 	private final int rows;
 	private final int cols;
-	private TerrainTile[][] map;
+	private transient TerrainTile[][] map;  // Saved as palette + runs
+	private transient AStar astar = null;
+	private transient long changes = 0;
+	
+	// Terrain property bit planes, derived from the map.
+	private transient BitPlane walkable = null;
+	private transient BitPlane flyable = null;
+	private transient BitPlane opaque = null;
 	
 	/** Creates a new Grid with the given number of rows and columns.
 	 * @param rows  The number of rows in the array (1 or more)
@@ -74,6 +84,14 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 			   cell.col < cols;		
 	}
 	
+	/** @return a count that increases whenever the terrain changes.  Callers
+	 * that cache information derived from the terrain can compare counts
+	 * to see whether their data is stale.
+	 */
+	public long changeCount() {
+		return changes;
+	}
+	
 	/** Clear to walls */
 	public void clear() {
 		clearTo(StandardTile.STONE_WALL);
@@ -88,6 +106,14 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 				map[r][c] = t;
 			}
 		}
+		
+		if (walkable != null) {
+			walkable.fill(t != null && t.isWalkable());
+			flyable.fill(t != null && t.isFlyable());
+			opaque.fill(t == null || t.isOpaque());
+		}
+		
+		changes++;
 	}
 	
 	/** Sets the terrain in the given cell.
@@ -106,6 +132,8 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 	 */
 	public void set(int r, int c, TerrainTile t) {
 		map[r][c] = t;
+		updatePlanes(r, c, t);
+		changes++;
 	}
 	
 	/** Sets the terrain in a rectangle with upperleft
@@ -120,8 +148,11 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 		for (int i = r; i < r + height; i++) {
 			for (int j = c; j < c + width; j++) {
 				map[i][j] = t;
+				updatePlanes(i, j, t);
 			}
 		}
+		
+		changes++;
 	}
 	
 	/** Gets the terrain in the given cell.
@@ -143,6 +174,91 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 		return map[r][c];
 	}
 	
+	//-------------------------------------------------------------------------
+	// Terrain Properties
+	//
+	// The walkable, flyable, and opaque flags for each cell are cached
+	// in bit planes, so that the hot queries don't need to call through
+	// the tile objects.  The planes aren't saved; they are rebuilt
+	// on demand.
+	
+	/** Is the terrain at r,c walkable?  A null tile is not.
+	 * @param r the row index
+	 * @param c the column index
+	 * @return true if so, and false otherwise.
+	 */
+	public boolean isWalkable(int r, int c) {
+		if (walkable == null) {
+			buildPlanes();
+		}
+		
+		return walkable.get(r, c);
+	}
+	
+	/** Is the terrain at r,c flyable?  A null tile is not.
+	 * @param r the row index
+	 * @param c the column index
+	 * @return true if so, and false otherwise.
+	 */
+	public boolean isFlyable(int r, int c) {
+		if (walkable == null) {
+			buildPlanes();
+		}
+		
+		return flyable.get(r, c);
+	}
+	
+	/** Is the terrain at r,c opaque?  A null tile is.
+	 * @param r the row index
+	 * @param c the column index
+	 * @return true if so, and false otherwise.
+	 */
+	public boolean isOpaque(int r, int c) {
+		if (walkable == null) {
+			buildPlanes();
+		}
+		
+		return opaque.get(r, c);
+	}
+	
+	/** Builds any caches that are otherwise built lazily on first use.
+	 * Call this before sharing the grid with concurrent readers, so that
+	 * they don't race to build them.
+	 */
+	public void prepareForReaders() {
+		if (walkable == null) {
+			buildPlanes();
+		}
+	}
+	
+	/** Builds the bit planes from the tile array. */
+	private void buildPlanes() {
+		walkable = new BitPlane(rows, cols);
+		flyable = new BitPlane(rows, cols);
+		opaque = new BitPlane(rows, cols);
+		
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				updatePlanes(r, c, map[r][c]);
+			}
+		}
+	}
+	
+	/** Updates the bit planes for a single cell, if they exist.
+	 * @param r the row index
+	 * @param c the column index
+	 * @param t the cell's tile, or null.
+	 */
+	private void updatePlanes(int r, int c, TerrainTile t) {
+		if (walkable == null) {
+			return;
+		}
+		
+		walkable.set(r, c, t != null && t.isWalkable());
+		flyable.set(r, c, t != null && t.isFlyable());
+		opaque.set(r, c, t == null || t.isOpaque());
+	}
+	
 	//-------------------------------------------------------------------------
 	// Lines of Sight and Trajectories
 	
@@ -203,6 +319,67 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 		return path;
 	}
 	
+	/** Determines whether the straight line from point a to point b
+	 * is clear, i.e., whether none of the cells on it are opaque.  The
+	 * line is the one computed by getLine, excluding a and including b,
+	 * but it is walked in place, without allocating the path, and the
+	 * walk stops at the first opaque cell.
+	 * 
+	 * @param r0 The first point's row
+	 * @param c0 The first point's column
+	 * @param r1 The second point's row
+	 * @param c1 The second point's column
+	 * @param assessor The opacity assessor
+	 * @return true if the line is clear, and false otherwise.
+	 */
+	public static boolean isLineClear(int r0, int c0, int r1, int c1,
+			OpacityAssessor assessor) {
+		int rNext = r0;
+		int cNext = c0;
+		int rDelta = r1 - r0;
+		int cDelta = c1 - c0;
+		
+		int rStep = (rDelta < 0) ? -1 : 1;
+		int cStep = (cDelta < 0) ? -1 : 1;
+		
+		int rDelta2 = 2*Math.abs(rDelta);
+		int cDelta2 = 2*Math.abs(cDelta);
+		
+		if (cDelta2 > rDelta2) {
+			int fraction = 2*rDelta2 - cDelta2;
+			
+			while (cNext != c1) {
+				if (fraction >= 0) {
+					rNext += rStep;
+					fraction -= cDelta2;
+				}
+				
+				cNext += cStep;
+				fraction += rDelta2;
+				
+				if (assessor.isOpaque(rNext, cNext))
+					return false;
+			}
+		} else {
+			int fraction = 2*cDelta2 - rDelta2;
+			
+			while (rNext != r1) {
+				if (fraction >= 0) {
+					cNext += cStep;
+					fraction -= rDelta2;
+				}
+				
+				rNext += rStep;
+				fraction += cDelta2;
+				
+				if (assessor.isOpaque(rNext, cNext))
+					return false;
+			}
+		}
+		
+		return true;
+	}
+	
 	//-------------------------------------------------------------------------
 	// A* route-finding algorithm.
 	
@@ -210,7 +387,7 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 	private final class Walkability implements MovementAssessor {
 		@Override
 		public boolean isPassable(Cell cell) {
-			return map[cell.row][cell.col].isWalkable();
+			return isWalkable(cell.row, cell.col);
 		}
 	}
 	
@@ -230,61 +407,22 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 			assessor = new Walkability();
 		}
 		
-		// The set of nodes already evaluated
-		Set<Cell> closedSet = new HashSet<Cell>();
-	
-		// The set of tentative nodes to be evaluated.
-		Set<Cell> openSet = new HashSet<Cell>();
-		openSet.add(start);
-		
-		// The map of navigated nodes
-		Map<Cell,Cell> cameFrom = new HashMap<>();
-		
-		// Scores for the positions
-		Map<Cell,Double> gScore = new HashMap<>();
-		Map<Cell,Double> fScore = new HashMap<>();
+		List<Cell> route = astar().findRoute(start, goal, assessor);
+		Metrics.value("astar.nodes", astar.expanded());
+		Metrics.value("astar.route", route != null ? route.size() : 0);
 		
-		// Cost from start along best known path. 
-		gScore.put(start, 0.0);
-		
-		// Estimated total cost from start to goal through y
-		fScore.put(start, 0.0 + start.cartesian(goal));
-		
-		while (openSet.size() > 0) {
-			// FIRST, find the node with the best fScore in the open set.
-			Cell current = null;
-			
-			for (Cell pos : openSet) {
-				if (current == null || fScore.get(pos) < fScore.get(current)) {
-					current = pos;
-				}
-			}
-			
-			// NEXT, if it's the goal, then we are there.
-			if (current.equals(goal)) {
-				return reconstructRoute(cameFrom, goal);
-			}
-			
-			openSet.remove(current);
-			closedSet.add(current);
-			
-			for (Cell neighbor : neighborsOf(current, goal, assessor)) {
-				if (closedSet.contains(neighbor))
-					continue;
-				
-				double tentativeGScore = gScore.get(current) + current.cartesian(neighbor);
-				
-				if (!openSet.contains(neighbor) || tentativeGScore <= gScore.get(neighbor)) {
-					cameFrom.put(neighbor, current);
-					gScore.put(neighbor, tentativeGScore);
-					fScore.put(neighbor, gScore.get(neighbor) + neighbor.cartesian(goal));
-					if (!openSet.contains(neighbor))
-						openSet.add(neighbor);
-				}
-			}
+		return route;
+	}
+	
+	/** @return the grid's A* engine, creating it if need be.  The engine
+	 * holds only scratch data, and so isn't saved with the grid.
+	 */
+	private AStar astar() {
+		if (astar == null) {
+			astar = new AStar(rows, cols);
 		}
 		
-		return null;
+		return astar;
 	}
 	
 	/** Return a list of passable spaces adjacent to a particular cell,
@@ -313,25 +451,6 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 		return moves;
 	}
 	
-	/** Builds the actual route from the tree of routes computed by A*.
-	 * 
-	 * @param cameFrom A* route tree
-	 * @param node The last node in the route (i.e, the goal)
-	 * @return A list of positions leading from the start point to the goal.
-	 */
-	private List<Cell> reconstructRoute(Map<Cell,Cell> cameFrom, Cell node) {
-		List<Cell> route = new ArrayList<>(0);
-		
-		while (cameFrom.containsKey(node)) {
-			route.add(node);
-			node = cameFrom.get(node);
-		}
-		
-		Collections.reverse(route);
-		
-		return route;
-	}
-	
 	/** Returns the length of the best route from start to goal.  The caller's assessor
 	 * is used to find valid moves.  If no assessor is given, then the algorithm
 	 * uses walkability of the terrain.
@@ -342,12 +461,14 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 	 * @return The length of the route, or Integer.MAX_VALUE if there is no route.
 	 */
 	public int travelDistance(Cell start, Cell goal, MovementAssessor assessor) {
-		List<Cell> route = findAStarRoute(start, goal, assessor);
+		if (assessor == null) {
+			assessor = new Walkability();
+		}
+		
+		int length = astar().routeLength(start, goal, assessor);
+		Metrics.value("astar.nodes", astar.expanded());
 		
-		if (route != null)
-			return route.size();
-		else 
-			return Integer.MAX_VALUE;
+		return length;
 	}
 	
 	
@@ -378,4 +499,204 @@ public final class TerrainGrid implements TerrainMap, Serializable {
 		
 		return img;		
 	}
+	
+	/** Returns a thumbnail of the map, no larger than the given size
+	 * in either direction.  Each pixel shows one cell, in the average
+	 * color of its tile; if the map is too large, only every nth row and
+	 * column are shown.  Rendering the full image and scaling it down 
+	 * would give much the same result at vastly greater cost.
+	 * 
+	 * @param maxSize The maximum width and height, in pixels
+	 * @param shown The cells to show, or null for all cells.  The
+	 * others are black.
+	 * @return The thumbnail
+	 */
+	public BufferedImage toThumbnail(int maxSize, BitPlane shown) {
+		// An empty map gets a single black pixel.
+		if (rows == 0 || cols == 0 || maxSize <= 0) {
+			return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+		}
+		
+		int step = (Math.max(rows, cols) + maxSize - 1) / maxSize;
+		int width = (cols + step - 1) / step;
+		int height = (rows + step - 1) / step;
+		
+		BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int r = y*step;
+				int c = x*step;
+				
+				if (map[r][c] != null && (shown == null || shown.get(r, c))) {
+					img.setRGB(x, y, averageColor(map[r][c]));
+				}
+			}
+		}
+		
+		return img;
+	}
+	
+	/** The average colors of the tiles, computed as needed. */
+	private static final Map<TerrainTile,Integer> averageColors = 
+			new ConcurrentHashMap<>();
+	
+	/** Returns the average color of a tile's image.
+	 * 
+	 * @param tile The tile
+	 * @return The color, as an RGB value.
+	 */
+	private static int averageColor(TerrainTile tile) {
+		Integer rgb = averageColors.get(tile);
+		
+		if (rgb == null) {
+			BufferedImage img = new BufferedImage(TerrainTile.SIZE, 
+					TerrainTile.SIZE, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = img.createGraphics();
+			g.drawImage(tile.image(), 0, 0, null);
+			g.dispose();
+			
+			long red = 0;
+			long green = 0;
+			long blue = 0;
+			
+			for (int y = 0; y < TerrainTile.SIZE; y++) {
+				for (int x = 0; x < TerrainTile.SIZE; x++) {
+					int p = img.getRGB(x, y);
+					red += (p >> 16) & 0xFF;
+					green += (p >> 8) & 0xFF;
+					blue += p & 0xFF;
+				}
+			}
+			
+			int n = TerrainTile.SIZE*TerrainTile.SIZE;
+			rgb = (int)((red/n) << 16 | (green/n) << 8 | (blue/n));
+			averageColors.put(tile, rgb);
+		}
+		
+		return rgb;
+	}
+	
+	//-------------------------------------------------------------------------
+	// Serialization
+	//
+	// Maps are mostly long runs of a few distinct tiles, so rather than
+	// write a reference for every cell, the grid writes a palette of the
+	// distinct tiles followed by (run length, palette index) pairs in 
+	// row-major order, both as variable-length integers.
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		
+		// FIRST, build and write the palette.
+		List<TerrainTile> palette = new ArrayList<>();
+		Map<TerrainTile,Integer> index = new HashMap<>();
+		
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				if (!index.containsKey(map[r][c])) {
+					index.put(map[r][c], palette.size());
+					palette.add(map[r][c]);
+				}
+			}
+		}
+		
+		out.writeInt(palette.size());
+		
+		for (TerrainTile t : palette) {
+			out.writeObject(t);
+		}
+		
+		// NEXT, write the runs.
+		int size = rows*cols;
+		int i = 0;
+		
+		while (i < size) {
+			TerrainTile t = map[i / cols][i % cols];
+			int run = 1;
+			
+			while (i + run < size && map[(i + run) / cols][(i + run) % cols] == t) {
+				run++;
+			}
+			
+			writeVarInt(out, run);
+			writeVarInt(out, index.get(t));
+			i += run;
+		}
+	}
+	
+	private void readObject(ObjectInputStream in) 
+			throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		
+		// FIRST, read the palette.
+		int count = in.readInt();
+		
+		if (rows < 0 || cols < 0 || count < 0) {
+			throw new IOException("Corrupt terrain header");
+		}
+		
+		TerrainTile[] palette = new TerrainTile[count];
+		
+		for (int i = 0; i < count; i++) {
+			palette[i] = (TerrainTile)in.readObject();
+		}
+		
+		// NEXT, read the runs.
+		map = new TerrainTile[rows][cols];
+		int size = rows*cols;
+		int i = 0;
+		
+		while (i < size) {
+			int run = readVarInt(in);
+			int index = readVarInt(in);
+			
+			if (run <= 0 || run > size - i || index < 0 || index >= count) {
+				throw new IOException("Corrupt terrain runs");
+			}
+			
+			TerrainTile t = palette[index];
+			
+			for (int end = i + run; i < end; i++) {
+				map[i / cols][i % cols] = t;
+			}
+		}
+	}
+	
+	/** Writes a non-negative integer in 7-bit groups, low group first.
+	 * 
+	 * @param out The stream
+	 * @param value The value
+	 * @throws IOException on write error
+	 */
+	private static void writeVarInt(ObjectOutputStream out, int value) 
+			throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		out.writeByte(value);
+	}
+	
+	/** Reads an integer written by writeVarInt.
+	 * 
+	 * @param in The stream
+	 * @return The value
+	 * @throws IOException on read error
+	 */
+	private static int readVarInt(ObjectInputStream in) throws IOException {
+		int value = 0;
+		
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		
+		throw new IOException("Corrupt variable-length integer");
+	}
 }
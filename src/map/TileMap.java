@@ -8,14 +8,13 @@ import graphics.StandardTile;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /** This class loads text-formatted tile maps export by PyxelEdit.  It presumes
@@ -62,8 +61,8 @@ public final class TileMap {
 	private int rows;  
 	private int cols;  
 	
-	// Terrain map, height by width
-	private TerrainTile terrain[][];
+	// Terrain map, as indices into tiles, row by row.
+	private int terrain[];
 	
 	// Features and mobile pre-positioned on the map.
 	private Map<Cell,TerrainTile> features = new HashMap<>();
@@ -82,136 +81,135 @@ public final class TileMap {
 		// FIRST, save the tiles
 		this.tiles = tiles;
 		
-		// NEXT, read the file.
-		File file = new File(url.getFile());
-		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII);
-		
-		// NEXT, get the metadata
-		cols = readMetaInteger(lines, "tileswide");
-		rows = readMetaInteger(lines, "tileshigh");
-		skipLine(lines);   					 		// Don't need tilewidth
-		skipLine(lines);							// Don't need tileheight
-		skipLine(lines);                            // Blank line
-		
-		// NEXT, we will always have a terrain layer.
-		readTerrain(lines);
-		skipLine(lines);
-		
-		// NEXT, if we've got features, read them.
-		if (lines.size() >= rows) {
-			readLayer(lines, features);
-			skipLine(lines);
-		}
-		
-		// NEXT, if we've got mobiles, read them.
-		if (lines.size() >= rows) {
-			readLayer(lines, mobiles);
-			skipLine(lines);
+		// NEXT, read the file, in a single pass.
+		try (Reader reader = new InputStreamReader(url.openStream(), 
+				StandardCharsets.US_ASCII)) {
+			Cursor in = new Cursor(reader);
+			
+			// NEXT, get the metadata
+			cols = readMetaInteger(in, "tileswide");
+			rows = readMetaInteger(in, "tileshigh");
+			in.skipLine();   					 		// Don't need tilewidth
+			in.skipLine();							// Don't need tileheight
+			in.skipLine();                            // Blank line
+			
+			// NEXT, we will always have a terrain layer.
+			readTerrain(in);
+			
+			// NEXT, if we've got features, read them.
+			if (in.skipBlankLines()) {
+				readLayer(in, features);
+			}
+			
+			// NEXT, if we've got mobiles, read them.
+			if (in.skipBlankLines()) {
+				readLayer(in, mobiles);
+			}
 		}
-		
-	}
-	
-	/** Skip one line in the input.
-	 * 
-	 * @param lines The lines of input data.
-	 */
-	private void skipLine(List<String> lines) {
-		if (lines.size() > 0)
-			lines.remove(0);
 	}
 	
 	/** Read an integer data field on the next line in the input.
 	 * 
-	 * @param lines The lines of input data.
+	 * @param in The input
 	 * @param name The name of the data field
 	 * @return The integer value
+	 * @throws IOException If the input couldn't be read.
 	 * @throws FormatException If the data couldn't be read.
 	 */
-	private int readMetaInteger(List<String> lines, String name) throws FormatException {
-		if (lines.size() == 0)
+	private int readMetaInteger(Cursor in, String name) 
+			throws IOException, FormatException {
+		if (!in.skipWord(name))
 			throw new FormatException("Missing data item: " + name);
 
-		String line = lines.remove(0);
-		
-		if (!line.startsWith(name))
-			throw new FormatException("Missing data item: " + name);
+		if (!in.skipChar(' '))
+			throw new FormatException("Data item " + name + " is malformed");
 
-		try {
-			return Integer.valueOf(line.substring(name.length() + 1));
-		} catch (NumberFormatException e) {
-			throw new FormatException("Data item " + name + " is malformed: " + e);
-		}
+		int value = in.readInt();
+		in.skipLine();
+		
+		return value;
 	}
 	
 	/** Reads the terrain layer (layer 0) from the map.
 	 * 
-	 * @param lines the lines of input data.
+	 * @param in The input
+	 * @throws IOException If the input couldn't be read.
+	 * @throws FormatException If the layer is malformed.
 	 */
-	private void readTerrain(List<String> lines) throws FormatException {
+	private void readTerrain(Cursor in) throws IOException, FormatException {
 		// FIRST, skip the layer tag
-		skipLine(lines);
-		
-		// NEXT, there must be a line for each row in the map.
-		if (lines.size() < rows)
-			throw new FormatException("Missing rows in the terrain layer");
+		in.skipLine();
 		
-		// NEXT, allow the row vector.
-		terrain = new TerrainTile[rows][];
+		// NEXT, allocate the terrain, and read each row.
+		terrain = new int[rows*cols];
 		
-		// NEXT, read each row.
 		for (int r = 0; r < rows; r++) {
-			// FIRST, allocate the columns.
-			terrain[r] = new TerrainTile[cols];
-			
-			String[] indices = lines.remove(0).split(",");
-			
-			if (indices.length < cols)
-				throw new FormatException("Missing columns in the terrain layer");
+			if (in.atEnd())
+				throw new FormatException("Missing rows in the terrain layer");
 			
 			for (int c = 0; c < cols; c++) {
-				int index = -1;
+				int index = readIndex(in, c, "terrain layer");
 				
-				try {
-					index = Integer.valueOf(indices[c]);
-				} catch (NumberFormatException e) {
-					throw new FormatException("Invalid tile index: " + e);
-				}
+				if (index < 0 || index >= tiles.length)
+					throw new FormatException("Invalid tile index: " + index);
 				
-				terrain[r][c] = tiles[index];
+				terrain[r*cols + c] = index;
 			}
+			
+			in.skipLine();
 		}
 	}
 	
-	private void readLayer(List<String> lines, Map<Cell,TerrainTile> layerMap) throws FormatException {
+	/** Reads an optional layer from the map.
+	 * 
+	 * @param in The input
+	 * @param layerMap The map from cells to tiles for the layer.
+	 * @throws IOException If the input couldn't be read.
+	 * @throws FormatException If the layer is malformed.
+	 */
+	private void readLayer(Cursor in, Map<Cell,TerrainTile> layerMap) 
+			throws IOException, FormatException {
 		// FIRST, skip the layer tag
-		skipLine(lines);
+		in.skipLine();
 		
 		// NEXT, there must be a line for each row in the map.
-		if (lines.size() < rows)
-			throw new FormatException("Missing rows in optional layer");
-		
 		for (int r = 0; r < rows; r++) {
-			String[] indices = lines.remove(0).split(",");
-			
-			if (indices.length < cols)
-				throw new FormatException("Missing columns in optional layer");
+			if (in.atEnd())
+				throw new FormatException("Missing rows in optional layer");
 			
 			for (int c = 0; c < cols; c++) {
-				int index = -1;
+				int index = readIndex(in, c, "optional layer");
 				
-				try {
-					index = Integer.valueOf(indices[c]);
-				} catch (NumberFormatException e) {
-					throw new FormatException("Invalid tile index: " + e);
-				}
+				if (index < -1 || index >= tiles.length)
+					throw new FormatException("Invalid tile index: " + index);
 				
 				if (index != -1) {
 					layerMap.put(new Cell(r,c), tiles[index]);
 				}
 			}
+			
+			in.skipLine();
 		}
 	}
 	
+	/** Reads the tile index in a given column of a row: a number, 
+	 * preceded by a comma unless it's in the first column.
+	 * 
+	 * @param in The input
+	 * @param c The column
+	 * @param layer The name of the layer, for error messages
+	 * @return The tile index
+	 * @throws IOException If the input couldn't be read.
+	 * @throws FormatException If the index is missing.
+	 */
+	private int readIndex(Cursor in, int c, String layer) 
+			throws IOException, FormatException {
+		if ((c > 0 && !in.skipChar(',')) || in.atEndOfLine())
+			throw new FormatException("Missing columns in the " + layer);
+		
+		return in.readInt();
+	}
+	
 	// Queries
 	
 	/** @return the height of the tile map in tiles. */
@@ -231,7 +229,7 @@ public final class TileMap {
 	 * @return The sprite
 	 */
 	public TerrainTile getTerrain(int r, int c) {
-		return terrain[r][c];
+		return tiles[terrain[r*cols + c]];
 	}
 	
 	/** Get the terrain sprite at a particular cell.
@@ -240,7 +238,7 @@ public final class TileMap {
 	 * @return The sprite
 	 */
 	public TerrainTile getTerrain(Cell cell) {
-		return terrain[cell.row][cell.col];
+		return getTerrain(cell.row, cell.col);
 	}
 	
 	/** Return the feature sprite at r,c, or null if none.
@@ -314,7 +312,7 @@ public final class TileMap {
 		for (int r = 0; r < rows; r++) {
 			for (int c = 0; c < cols; c++) {
 				// Remember, i is vertical but x is horizontal
-				g.drawImage(terrain[r][c].image(), c*StandardTile.SIZE, r*StandardTile.SIZE, null);
+				g.drawImage(getTerrain(r,c).image(), c*StandardTile.SIZE, r*StandardTile.SIZE, null);
 				
 				TerrainTile feature = featureAt(r,c);
 				
@@ -350,4 +348,133 @@ public final class TileMap {
 		return grid;
 	}
 	
+	
+	//-------------------------------------------------------------------------
+	// Input
+	
+	/** A cursor on the text of the tile map: it reads the text through
+	 * a buffer of its own, one character at a time, and parses tile
+	 * indices directly from the characters, without making strings.
+	 */
+	private final class Cursor {
+		private final Reader in;
+		private final char[] buf = new char[8192];
+		private int pos = 0;
+		private int len = 0;
+		private int line = 1;
+		
+		Cursor(Reader in) {
+			this.in = in;
+		}
+		
+		/** @return the next character, without consuming it, or -1 at the
+		 * end of the input. */
+		int peek() throws IOException {
+			if (pos == len) {
+				len = Math.max(0, in.read(buf, 0, buf.length));
+				pos = 0;
+				
+				if (len == 0) {
+					return -1;
+				}
+			}
+			
+			return buf[pos];
+		}
+		
+		/** @return the next character, or -1 at the end of the input. */
+		int next() throws IOException {
+			int ch = peek();
+			
+			if (ch != -1) {
+				pos++;
+				
+				if (ch == '\n') {
+					line++;
+				}
+			}
+			
+			return ch;
+		}
+		
+		/** @return true if there's no more input. */
+		boolean atEnd() throws IOException {
+			return peek() == -1;
+		}
+		
+		/** @return true if the rest of the line is empty. */
+		boolean atEndOfLine() throws IOException {
+			int ch = peek();
+			
+			return ch == -1 || ch == '\n' || ch == '\r';
+		}
+
+		/** Skips the rest of the current line, and its line ending. */
+		void skipLine() throws IOException {
+			int ch;
+			
+			while ((ch = next()) != -1 && ch != '\n') {
+				// Skip it
+			}
+		}
+		
+		/** Skips any blank lines.
+		 * @return true if there's more input, and false otherwise. */
+		boolean skipBlankLines() throws IOException {
+			int ch;
+			
+			while ((ch = peek()) == '\n' || ch == '\r' || ch == ' ') {
+				next();
+			}
+			
+			return ch != -1;
+		}
+		
+		/** Skips a character, if it's next.
+		 * @param expected The character
+		 * @return true if it was skipped, and false otherwise. */
+		boolean skipChar(char expected) throws IOException {
+			if (peek() == expected) {
+				next();
+				return true;
+			}
+			
+			return false;
+		}
+		
+		/** Skips a word, if it's next.
+		 * @param word The word
+		 * @return true if it was skipped, and false otherwise. */
+		boolean skipWord(String word) throws IOException {
+			for (int i = 0; i < word.length(); i++) {
+				if (!skipChar(word.charAt(i))) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		/** Reads an integer, possibly negative, from the input.
+		 * @return The integer
+		 * @throws FormatException if there's no integer. */
+		int readInt() throws IOException, FormatException {
+			boolean negative = skipChar('-');
+			int value = 0;
+			int digits = 0;
+			int ch;
+			
+			while ((ch = peek()) >= '0' && ch <= '9') {
+				next();
+				value = 10*value + (ch - '0');
+				digits++;
+			}
+			
+			if (digits == 0) {
+				throw new FormatException("Expected a number on line " + line);
+			}
+			
+			return negative ? -value : value;
+		}
+	}
 }
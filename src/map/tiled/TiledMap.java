@@ -3,9 +3,10 @@
  */
 package map.tiled;
 
-import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import map.Cell;
 
@@ -203,32 +204,29 @@ public class TiledMap {
 	
 	/** Read a Tiled Map Editor tile map from disk.  The tile map must be
 	 * saved in JSON format as a resource of a known class.  If the resource
-	 * cannot be read, the application terminates.
+	 * cannot be read, the application terminates.<p>
+	 * 
+	 * The whole map is loaded into memory, and its tile layers must be 
+	 * stored as arrays of GIDs; use TiledMapReader to stream a map, or to 
+	 * read one whose layers are compressed.
 	 * @param cls The class
 	 * @param resource The resource name
 	 * @return The TiledMap object.
 	 */
 	public static TiledMap read(Class<?> cls, String resource) {
 		URL url = cls.getResource(resource);
-		StringBuilder jsonText = new StringBuilder();
+		TiledMap map = null;
 		
-		try {
-			BufferedReader in = new BufferedReader(
-				new InputStreamReader(url.openStream()));
-
-			String inputLine;
-			while ((inputLine = in.readLine()) != null)
-				jsonText.append(inputLine);
-			in.close();
+		// Let Gson parse the JSON straight from the stream.
+		try (Reader in = new InputStreamReader(url.openStream(),
+				StandardCharsets.UTF_8)) {
+			map = new Gson().fromJson(in, TiledMap.class);
 		} catch (Exception e) {
 			System.err.println("Error reading TiledMap from disk: " + e);
 			System.exit(1);
 		}
 		
-		// NEXT, parse the JSON.
-		Gson gson = new Gson();
-		
-		return gson.fromJson(jsonText.toString(), TiledMap.class);
+		return map;
 	}
 
 	/** Main: test routine.
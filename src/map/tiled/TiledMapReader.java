@@ -0,0 +1,317 @@
+/**
+ *
+ */
+package map.tiled;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import map.Cell;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/** Reads a Tiled Map Editor tile map, as exported into JSON format, a
+ * token at a time, handing each layer to a listener as it's read.  Unlike
+ * TiledMap.read(), it never holds the whole document, as text or as
+ * objects: each tile layer is decoded into an array of GIDs that's passed
+ * to the listener and then dropped, so the listener can build its terrain
+ * grid directly from it.<p>
+ *
+ * A tile layer's data may be a JSON array of GIDs, or a string of
+ * little-endian GIDs in base64, optionally compressed with zlib or gzip;
+ * Tiled writes the latter when the map's Tile Layer Format is set to
+ * "Base64 (zlib compressed)" or "Base64 (gzip compressed)".<p>
+ *
+ * The map's tile size usually follows its layers in the file, so the
+ * objects in object groups are handed to the listener after the whole
+ * map has been read, once their cells are known.  Thus the listener sees
+ * every tile layer before any object.
+ * @author will
+ *
+ */
+public final class TiledMapReader {
+	/** Tiled keeps the tile's flip flags in the top three bits of each
+	 * GID. */
+	private static final int FLIP_FLAGS = 0xE0000000;
+
+	/** Receives the contents of the map as they are read. */
+	public interface Listener {
+		/** Called for each tile layer, in order, as soon as it is read.
+		 *
+		 * @param name The name of the layer
+		 * @param height The height of the layer, in tiles
+		 * @param width The width of the layer, in tiles
+		 * @param gids The tile GIDs in row-major order, or 0 for no tile.
+		 */
+		void tileLayer(String name, int height, int width, int[] gids);
+
+		/** Called for each object in each object group, in order, once
+		 * the whole map has been read.
+		 *
+		 * @param group The name of the object group
+		 * @param cell The cell of the object's upper left corner
+		 * @param o The object
+		 */
+		void object(String group, Cell cell, TiledMap.MapObject o);
+	}
+
+	// Instance Variables
+	private final Listener listener;
+	private final Gson gson = new Gson();
+	private int tileheight = 0;
+	private int tilewidth = 0;
+
+	// The object groups, by name, held until the tile size is known.
+	private final List<String> groupNames = new ArrayList<>();
+	private final List<List<TiledMap.MapObject>> groups = new ArrayList<>();
+
+	/** Creates a reader that reports to the given listener.
+	 *
+	 * @param listener The listener
+	 */
+	private TiledMapReader(Listener listener) {
+		this.listener = listener;
+	}
+
+	//-------------------------------------------------------------------------
+	// Public Methods
+
+	/** Reads a Tiled Map Editor tile map from disk, handing its layers to
+	 * the listener.  The tile map must be saved in JSON format as a
+	 * resource of a known class.  If the resource cannot be read, the
+	 * application terminates.
+	 *
+	 * @param cls The class
+	 * @param resource The resource name
+	 * @param listener The listener
+	 */
+	public static void read(Class<?> cls, String resource, Listener listener) {
+		URL url = cls.getResource(resource);
+
+		try {
+			if (url == null) {
+				throw new IOException("No such resource: " + resource);
+			}
+
+			try (Reader in = new InputStreamReader(url.openStream(),
+					StandardCharsets.UTF_8)) {
+				read(in, listener);
+			}
+		} catch (IOException | RuntimeException e) {
+			System.err.println("Error reading TiledMap from disk: " + e);
+			System.exit(1);
+		}
+	}
+
+	/** Reads a map from a stream of JSON text, handing its layers to the
+	 * listener.
+	 *
+	 * @param in The stream
+	 * @param listener The listener
+	 * @throws IOException if the map can't be read.
+	 */
+	public static void read(Reader in, Listener listener) throws IOException {
+		new TiledMapReader(listener).parse(in);
+	}
+
+	/** Reads a map from a stream of JSON text.
+	 *
+	 * @param in The stream
+	 * @throws IOException if the map can't be read.
+	 */
+	private void parse(Reader in) throws IOException {
+		JsonReader json = new JsonReader(in);
+
+		// FIRST, read the map, handing off the tile layers.
+		json.beginObject();
+
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case "layers":
+				json.beginArray();
+
+				while (json.hasNext()) {
+					readLayer(json);
+				}
+
+				json.endArray();
+				break;
+			case "tileheight":
+				tileheight = json.nextInt();
+				break;
+			case "tilewidth":
+				tilewidth = json.nextInt();
+				break;
+			default:
+				json.skipValue();
+				break;
+			}
+		}
+
+		json.endObject();
+
+		// NEXT, hand off the objects, now that their cells can be found.
+		for (int i = 0; i < groups.size(); i++) {
+			for (TiledMap.MapObject o : groups.get(i)) {
+				Cell cell = new Cell(o.y / tileheight, o.x / tilewidth);
+				listener.object(groupNames.get(i), cell, o);
+			}
+		}
+	}
+
+	/** Reads one layer.  A tile layer is passed to the listener at once;
+	 * an object group is saved for later.
+	 *
+	 * @param json The JSON reader
+	 * @throws IOException if the layer can't be read.
+	 */
+	private void readLayer(JsonReader json) throws IOException {
+		String name = null;
+		String type = null;
+		String compression = null;
+		int height = 0;
+		int width = 0;
+		int[] gids = null;
+		byte[] encoded = null;
+		List<TiledMap.MapObject> objects = null;
+
+		// FIRST, read the fields; they can come in any order.
+		json.beginObject();
+
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+			case "name":
+				name = json.nextString();
+				break;
+			case "type":
+				type = json.nextString();
+				break;
+			case "compression":
+				compression = json.nextString();
+				break;
+			case "height":
+				height = json.nextInt();
+				break;
+			case "width":
+				width = json.nextInt();
+				break;
+			case "data":
+				if (json.peek() == JsonToken.STRING) {
+					encoded = Base64.getMimeDecoder().decode(json.nextString());
+				} else {
+					gids = readGids(json);
+				}
+				break;
+			case "objects":
+				objects = new ArrayList<>();
+				json.beginArray();
+
+				while (json.hasNext()) {
+					objects.add(gson.<TiledMap.MapObject>fromJson(json,
+							TiledMap.MapObject.class));
+				}
+
+				json.endArray();
+				break;
+			default:
+				json.skipValue();
+				break;
+			}
+		}
+
+		json.endObject();
+
+		// NEXT, hand off the layer.
+		if ("tilelayer".equals(type)) {
+			if (encoded != null) {
+				gids = decodeGids(encoded, compression, height*width);
+			}
+
+			if (gids == null || gids.length < height*width) {
+				throw new IOException("Tile layer \"" + name +
+						"\" is missing data");
+			}
+
+			listener.tileLayer(name, height, width, gids);
+		} else if ("objectgroup".equals(type) && objects != null) {
+			groupNames.add(name);
+			groups.add(objects);
+		}
+	}
+
+	/** Reads a JSON array of GIDs.
+	 *
+	 * @param json The JSON reader
+	 * @return The GIDs
+	 * @throws IOException if the array can't be read.
+	 */
+	private int[] readGids(JsonReader json) throws IOException {
+		int[] gids = new int[1024];
+		int count = 0;
+
+		json.beginArray();
+
+		while (json.hasNext()) {
+			if (count == gids.length) {
+				gids = Arrays.copyOf(gids, 2*count);
+			}
+
+			// GIDs are unsigned 32-bit numbers.
+			gids[count++] = (int)json.nextLong() & ~FLIP_FLAGS;
+		}
+
+		json.endArray();
+
+		return Arrays.copyOf(gids, count);
+	}
+
+	/** Decodes base64 layer data.
+	 *
+	 * @param bytes The data, decoded from base64
+	 * @param compression "zlib", "gzip", or null
+	 * @param count The number of GIDs
+	 * @return The GIDs
+	 * @throws IOException if the data can't be decoded.
+	 */
+	private int[] decodeGids(byte[] bytes, String compression, int count)
+			throws IOException {
+		InputStream in = new ByteArrayInputStream(bytes);
+
+		if (compression == null || compression.isEmpty()) {
+			// Uncompressed
+		} else if (compression.equals("zlib")) {
+			in = new InflaterInputStream(in);
+		} else if (compression.equals("gzip")) {
+			in = new GZIPInputStream(in);
+		} else {
+			throw new IOException("Unsupported layer compression: " +
+					compression);
+		}
+
+		int[] gids = new int[count];
+
+		try (DataInputStream data = new DataInputStream(
+				new BufferedInputStream(in))) {
+			for (int i = 0; i < count; i++) {
+				gids[i] = Integer.reverseBytes(data.readInt()) & ~FLIP_FLAGS;
+			}
+		}
+
+		return gids;
+	}
+}
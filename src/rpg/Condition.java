@@ -32,10 +32,13 @@ public enum Condition {
 
 	// Static Data
 
+	/** The resource name of the tile sheet. */
+	public static final String SHEET = "condition.png";
+	
 	/** The list of tile images, read from the disk. */
 	static private Image[] images;
 	
 	static {
-		images = ImageUtils.loadTileSet(Condition.class,"condition.png", 10);
+		images = ImageUtils.loadTileSet(Condition.class,SHEET, 10);
 	}
 }
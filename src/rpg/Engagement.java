@@ -15,7 +15,6 @@ import map.Cell;
 import map.TerrainGrid;
 import util.Script;
 import util.ScriptAction;
-import app.Board;
 
 
 /** This object packages up an engagement between an attacker and a defender.
@@ -126,7 +125,7 @@ public final class Engagement {
 		// NEXT, apply the result.
 		script.add(new ScriptAction() {
 			public void execute() {
-				Board.get().clearEffect();
+				RPG.game().clearEffect();
 				
 				switch (outcome) {
 				case MISS:
@@ -141,7 +140,7 @@ public final class Engagement {
 					defender.damage(actual);
 					break;
 				case CRITICAL:
-					Board.get().log("Critical Hit!");
+					RPG.game().log("Critical Hit!");
 					attacker.log(attack.verb() + " " + defender + " for " +
 							actual + " points of damage.");
 					defender.damage(actual);
@@ -150,12 +149,12 @@ public final class Engagement {
 				
 				// NEXT, was the defender killed?
 				if (!defender.isAlive()) {
-					Board.get().log(defender + " is dead.");
+					RPG.game().log(defender + " is dead.");
 					
 					// If the attacker is a PC, award experience to the
 					// party.
 					if (attacker instanceof PlayerCharacter) {
-						Board.get().party.award(defender.expAwarded());
+						RPG.game().party().award(defender.expAwarded());
 					}
 				}
 			}
@@ -167,11 +166,11 @@ public final class Engagement {
 		int chance = RPG.chanceToHit(attack.skill(), defender.defense().ac());
 		int roll = RPG.roll(100);
 		
-		Board.get().println(attacker + " attacks " + defender);
-		Board.get().println("attack skill = " + attack.skill());
-		Board.get().println("defense AC = " + defender.defense().ac());
-		Board.get().println("chance to hit = " + chance);
-		Board.get().println("roll = " + roll);
+		RPG.game().println(attacker + " attacks " + defender);
+		RPG.game().println("attack skill = " + attack.skill());
+		RPG.game().println("defense AC = " + defender.defense().ac());
+		RPG.game().println("chance to hit = " + chance);
+		RPG.game().println("roll = " + roll);
 
 		// NEXT, if the roll > 95, it's an outright miss.
 		if (roll > 95) {
@@ -218,7 +217,7 @@ public final class Engagement {
 		
 		/** Show the attack */
 		public void execute() {
-			Board.get().setEffect(sprite, cell);
+			RPG.game().setEffect(sprite, cell);
 		}
 	}
 }
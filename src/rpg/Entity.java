@@ -6,6 +6,11 @@ package rpg;
 import graphics.Sprite;
 
 import java.awt.Image;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,7 +19,6 @@ import javax.swing.Icon;
 
 import map.Cell;
 import util.RandomPlus;
-import app.Board;
 
 /** Defines an entity in the game: something that can appear on the map.
  * @author will
@@ -69,7 +73,13 @@ abstract public class Entity implements Serializable {
 	 * @param isVisible True if the mobile is visible, and false otherwise.
 	 */
 	public final void setVisible(boolean isVisible) {
-		this.isVisible = isVisible;
+		if (this.isVisible != isVisible) {
+			this.isVisible = isVisible;
+			
+			if (region != null) {
+				region.entityShown(this);
+			}
+		}
 	}
 
 	/** @return whether the entity is visible or not. */
@@ -84,8 +94,14 @@ abstract public class Entity implements Serializable {
 	 * @param cell The cell
 	 */
 	public final void place(Region region, Cell cell) {
+		Cell from = (region == this.region) ? place : null;
+		
 		this.region = region;
 		this.place = cell;
+		
+		if (region != null) {
+			region.entityMoved(this, from);
+		}
 	}
 
 	/** @return the entity's region */
@@ -98,7 +114,12 @@ abstract public class Entity implements Serializable {
 	 * @param cell The cell
 	 */
 	public final void place(Cell cell) {
+		Cell from = place;
 		place = cell;
+		
+		if (region != null) {
+			region.entityMoved(this, from);
+		}
 	}
 
 	/** @return The mobile's cell. */
@@ -195,14 +216,74 @@ abstract public class Entity implements Serializable {
 	 * @param message The message.
 	 */
 	public final void println(String message) {
-		Board.get().println(this + ": " + message);
+		RPG.game().println(this + ": " + message);
 	}
 	
 	/** The entity writes a message to the user.
 	 * @param message The message.
 	 */
 	public final void log(String message) {
-		Board.get().log(name() + ": " + message);
+		RPG.game().log(name() + ": " + message);
+	}
+	
+	//------------------------------------------------------------------------
+	// Serialization
+	//
+	// The entity's own state is saved as an explicit record with a version
+	// number, rather than by default serialization, so that its fields can
+	// change without breaking saved games.  A field missing from an older
+	// record gets its default value; a record newer than this code is
+	// rejected.  Subclasses' fields are saved as usual.
+	
+	/** The current version of the entity record. */
+	private static final int RECORD_VERSION = 1;
+	
+	/** The fields of the entity record. */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("version", Integer.TYPE),
+		new ObjectStreamField("isVisible", Boolean.TYPE),
+		new ObjectStreamField("region", Region.class),
+		new ObjectStreamField("place", Cell.class),
+		new ObjectStreamField("listeners", Map.class)
+	};
+	
+	/** Writes the entity record.
+	 * 
+	 * @param out The stream
+	 * @throws IOException on write error
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		
+		fields.put("version", RECORD_VERSION);
+		fields.put("isVisible", isVisible);
+		fields.put("region", region);
+		fields.put("place", place);
+		fields.put("listeners", listeners);
+		out.writeFields();
 	}
 	
+	/** Reads the entity record.
+	 * 
+	 * @param in The stream
+	 * @throws IOException on read error, or if the record is newer than
+	 * this code.
+	 * @throws ClassNotFoundException if a field's class is unknown.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) 
+			throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		int version = fields.get("version", 0);
+		
+		if (version > RECORD_VERSION) {
+			throw new InvalidObjectException("Unsupported entity record version: " +
+					version);
+		}
+		
+		isVisible = fields.get("isVisible", true);
+		region = (Region)fields.get("region", null);
+		place = (Cell)fields.get("place", null);
+		listeners = (Map<EntityListener,Object>)fields.get("listeners", null);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+/**
+ *
+ */
+package rpg;
+
+import graphics.Sprite;
+
+import javax.swing.Icon;
+
+import map.Cell;
+import rpg.pc.PlayerCharacter;
+import app.Board;
+
+/** The services the model needs from whatever is running the game: the
+ * clock, the mode, the party, the log, and the display of effects and
+ * messages.  The Board is the game when the application is running;
+ * a headless game, e.g., the combat simulator, can stand in for it.
+ * The model finds the current game via RPG.game().
+ * @author will
+ *
+ */
+public interface Game {
+	/** @return the current game time in ticks. */
+	int time();
+
+	/** @return true if we are in combat mode, and false otherwise. */
+	boolean inCombat();
+
+	/** Enters combat right now. */
+	void enterCombat();
+
+	/** @return the party of player characters. */
+	Board.PartyManager party();
+
+	/** @return the PC currently selected by the player. */
+	PlayerCharacter getSelectedPlayerCharacter();
+
+	/** Logs a message for the player to read.
+	 *
+	 * @param text The message
+	 */
+	void log(String text);
+
+	/** Writes debugging info.
+	 *
+	 * @param text The text to output.
+	 */
+	void println(String text);
+
+	/** Displays a sprite on the map at a particular location.
+	 *
+	 * @param sprite  The sprite
+	 * @param cell The location
+	 */
+	void setEffect(Sprite sprite, Cell cell);
+
+	/** Clears away the effect sprite. */
+	void clearEffect();
+
+	/** Shows a message to the player, and waits until it's acknowledged.
+	 *
+	 * @param message The message: text, or a component to display
+	 * @param title The dialog title
+	 * @param icon The icon
+	 */
+	void showMessage(Object message, String title, Icon icon);
+}
@@ -9,8 +9,6 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.swing.JOptionPane;
-
 import rpg.pc.PlayerCharacter;
 import util.Script;
 import util.StringsTable;
@@ -136,10 +134,8 @@ public class Mannikin extends Mobile  implements Serializable {
 	public void talk(PlayerCharacter pc) {
 		// Add some newlines to the greeting, so that extra whitespace
 		// goes to the bottom.
-		JOptionPane.showMessageDialog(Board.get(), 
-				getGreeting() + "\n\n\n", 
+		Board.get().showMessage(getGreeting() + "\n\n\n", 
 				name(), 
-				JOptionPane.PLAIN_MESSAGE, 
 				bigIcon());
 
 	}
@@ -15,7 +15,6 @@ import map.MovementAssessor;
 import rpg.pc.PlayerCharacter;
 import util.Script;
 import util.ScriptAction;
-import app.Board;
 
 /** This class collects all of the shared code/interface/behavior
  * for Mobiles.
@@ -135,6 +134,18 @@ public abstract class Mobile extends Entity {
 	 */
 	public abstract boolean move(Script script);
 	
+	/** This routine is called before move() to let the mobile do any
+	 * planning that only reads the state of the region, e.g., looking
+	 * for enemies.  Plans for several mobiles may be made concurrently,
+	 * so it must not change anything but the mobile's own plan; and
+	 * move() must check that the plan is still good, as mobiles that 
+	 * move before it might have changed things.  By default, mobiles
+	 * don't plan.
+	 */
+	public void plan() {
+		// Do nothing.
+	}
+	
 	//------------------------------------------------------------------------
 	// Condition Methods
 	
@@ -146,7 +157,7 @@ public abstract class Mobile extends Entity {
 	 * @param ticks The number of ticks.
 	 */
 	public final void setCondition(Condition condition, int ticks) {
-		conditions.put(condition, Board.get().time() + ticks);
+		conditions.put(condition, RPG.game().time() + ticks);
 	}
 	
 	/** Clears the given condition. 
@@ -166,7 +177,7 @@ public abstract class Mobile extends Entity {
 		if (conditions.containsKey(condition)) {
 			int time = conditions.get(condition);
 
-			if (Board.get().time() <= time) {
+			if (RPG.game().time() <= time) {
 				return true;
 			}
 		}
@@ -192,6 +203,11 @@ public abstract class Mobile extends Entity {
 	//------------------------------------------------------------------------
 	// Queries
 
+	/** @return the mobile's preferred movement assessor. */
+	final MovementAssessor preferredAssessor() {
+		return preferredAssessor;
+	}
+	
 	/** @return true if the mobile can move onto the cell,
 	 * and false otherwise, using the mobile's preferred
 	 * assessor.
@@ -492,6 +508,25 @@ public abstract class Mobile extends Entity {
 		}
 	}
 
+	/** The mobile steps one cell closer to the nearest living member of
+	 * the party, following the region's party flow field.  If the field
+	 * offers no step (e.g., other mobiles are in the way, or the party is
+	 * out of the field's range) the mobile steps smartly toward the 
+	 * fallback goal instead.
+	 * @param from The cell to move from
+	 * @param fallback The goal to use if the field offers no step, or null.
+	 * @return the cell to step to, or null if none.
+	 */
+	public final Cell stepTowardParty(Cell from, Cell fallback) {
+		Cell next = region().stepTowardParty(this, from);
+		
+		if (next == null && fallback != null) {
+			next = stepSmartly(from, fallback);
+		}
+		
+		return next;
+	}
+
 	/** The mobile steps so as to maximize the Cartesian distance to the threat, 
 	 * even if this means that it gets stuck in a corner.
 	 * TBD: Should possibly return the cell and let the mobile make the move.
@@ -680,17 +715,13 @@ public abstract class Mobile extends Entity {
 			if (avoidance.hazards && m != null && isEnemyOf(m))
 				return false;
 
-			// NEXT, check for features.
-			Feature f = region().featureAt(cell);
-			
-			if (avoidance.features && f != null)
-				return f.isPassableBy(movementType());
+			// NEXT, check for features; if there's a feature, it determines
+			// passability.
+			if (avoidance.features)
+				return region().canEnter(movementType(), cell);
 			
 			// FINALLY, if the terrain is not passable, then the cell isn't passable.
-			if (!region().isPassableBy(movementType(), cell))
-				return false;
-			
-			return true;
+			return region().isPassableBy(movementType(), cell);
 		}
 	}
 	
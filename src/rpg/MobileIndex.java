@@ -0,0 +1,190 @@
+/**
+ *
+ */
+package rpg;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import map.Cell;
+
+/** A cell-indexed occupancy map for the mobiles in a region, so that
+ * "who is at this cell?" doesn't require a scan of all of the mobiles.
+ * For each cell it records the number of indexed mobiles there and, if
+ * there is exactly one, which one it is.  Cells with more than one mobile
+ * (e.g., the party in normal mode) are rare, and are resolved by scanning
+ * the region's list of mobiles, so that the answer is the same as it
+ * would be without the index.<p>
+ *
+ * The index is kept up to date by the Region, which adds and removes
+ * mobiles as they enter and leave, and tells it whenever an entity moves.
+ * @author will
+ */
+final class MobileIndex {
+	// Instance Variables
+	private final int rows;
+	private final int cols;
+	private final List<Mobile> mobiles;
+	private final int[] counts;
+	private final Mobile[] occupants;
+	private final Set<Mobile> members =
+			Collections.newSetFromMap(new IdentityHashMap<Mobile,Boolean>());
+
+	/** Creates an index for the given list of mobiles.
+	 *
+	 * @param rows The number of rows in the region's map
+	 * @param cols The number of columns in the region's map
+	 * @param mobiles The region's list of mobiles, in priority order.
+	 */
+	MobileIndex(int rows, int cols, List<Mobile> mobiles) {
+		this.rows = rows;
+		this.cols = cols;
+		this.mobiles = mobiles;
+		this.counts = new int[rows*cols];
+		this.occupants = new Mobile[rows*cols];
+
+		for (Mobile m : mobiles) {
+			add(m);
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Updates
+
+	/** Adds a mobile to the index at its current place.
+	 *
+	 * @param m The mobile
+	 */
+	void add(Mobile m) {
+		if (members.add(m)) {
+			enter(m, m.place());
+		}
+	}
+
+	/** Removes a mobile from the index.
+	 *
+	 * @param m The mobile
+	 */
+	void remove(Mobile m) {
+		if (members.remove(m)) {
+			leave(m.place());
+		}
+	}
+
+	/** Notes that a mobile has moved.  Mobiles that aren't in the index
+	 * are ignored.
+	 *
+	 * @param m The mobile
+	 * @param from The cell it moved from, or null.
+	 */
+	void moved(Mobile m, Cell from) {
+		if (!members.contains(m)) {
+			return;
+		}
+
+		leave(from);
+		enter(m, m.place());
+	}
+
+	/** Records a mobile's arrival in a cell.
+	 *
+	 * @param m The mobile
+	 * @param cell The cell, or null
+	 */
+	private void enter(Mobile m, Cell cell) {
+		if (!inBounds(cell)) {
+			return;
+		}
+
+		int n = cell.row*cols + cell.col;
+
+		if (counts[n]++ == 0) {
+			occupants[n] = m;
+		} else {
+			occupants[n] = null;
+		}
+	}
+
+	/** Records a mobile's departure from a cell.  If there is only one
+	 * mobile left there, find out which one it is.
+	 *
+	 * @param cell The cell, or null.
+	 */
+	private void leave(Cell cell) {
+		if (!inBounds(cell)) {
+			return;
+		}
+
+		int n = cell.row*cols + cell.col;
+
+		if (counts[n] == 0) {
+			return;
+		}
+
+		counts[n]--;
+		occupants[n] = null;
+
+		if (counts[n] == 1) {
+			occupants[n] = scan(cell);
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Queries
+
+	/** Returns the number of mobiles in the cell.
+	 *
+	 * @param cell The cell
+	 * @return The count
+	 */
+	int count(Cell cell) {
+		return counts[cell.row*cols + cell.col];
+	}
+
+	/** Returns the mobile at the given cell, if any.  If there are
+	 * several, returns the first in the region's list.
+	 *
+	 * @param cell The cell
+	 * @return The mobile, or null.
+	 */
+	Mobile mobileAt(Cell cell) {
+		int n = cell.row*cols + cell.col;
+
+		switch (counts[n]) {
+		case 0:
+			return null;
+		case 1:
+			return occupants[n];
+		default:
+			return scan(cell);
+		}
+	}
+
+	/** Finds the first indexed mobile in the list at the given cell.
+	 *
+	 * @param cell The cell
+	 * @return The mobile, or null.
+	 */
+	private Mobile scan(Cell cell) {
+		for (Mobile m : mobiles) {
+			if (cell.equals(m.place()) && members.contains(m)) {
+				return m;
+			}
+		}
+
+		return null;
+	}
+
+	/** Is the cell a valid cell in the map?
+	 *
+	 * @param cell The cell, or null
+	 * @return true if so, and false otherwise.
+	 */
+	private boolean inBounds(Cell cell) {
+		return cell != null &&
+			cell.row >= 0 && cell.row < rows &&
+			cell.col >= 0 && cell.col < cols;
+	}
+}
@@ -4,6 +4,7 @@
 package rpg;
 
 import util.RandomPlus;
+import app.Board;
 
 /** This class gathers together general algorithms required by
  * the RPG, such as die rolls and so forth. 
@@ -18,7 +19,35 @@ public class RPG {
 	
 	private static RandomPlus random = new RandomPlus();
 	
+	// The game being played on this thread, if it isn't the Board.
+	private static final ThreadLocal<Game> game = new ThreadLocal<>();
+	
+	//-------------------------------------------------------------------------
+	// The Game
+	
+	/** @return the game being played on this thread: the Board, unless
+	 * another game has been set. */
+	public static Game game() {
+		Game result = game.get();
+		
+		return (result != null) ? result : Board.get();
+	}
+	
+	/** Sets the game being played on this thread, e.g., a headless
+	 * simulation.  Each thread can run a game of its own.
+	 * 
+	 * @param theGame The game, or null to use the Board.
+	 */
+	public static void setGame(Game theGame) {
+		if (theGame != null) {
+			game.set(theGame);
+		} else {
+			game.remove();
+		}
+	}
+	
 	//-------------------------------------------------------------------------
+	// Rolls
 	
 	/** Makes a success roll against an effective skill.  Returns
 	 * the resulting roll, with an assessment as to whether or not it's
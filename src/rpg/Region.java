@@ -14,13 +14,23 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import map.BitPlane;
 import map.Cell;
+import map.FieldOfView;
+import map.FlowField;
 import map.MovementAssessor;
+import map.OpacityAssessor;
+import map.RouteCache;
 import map.TerrainGrid;
 import map.TerrainMap;
 import map.TerrainTile;
 import map.tiled.TiledMap;
+import map.tiled.TiledMapReader;
 import rpg.feature.Door;
 import rpg.feature.Exit;
 import rpg.feature.Furniture;
@@ -30,6 +40,7 @@ import rpg.feature.PlainChest;
 import rpg.feature.Sign;
 import rpg.monster.Monster;
 import rpg.pc.PlayerCharacter;
+import util.Metrics;
 import util.RandomPlus;
 import util.StringsTable;
 import app.Board;
@@ -40,7 +51,8 @@ import app.Strings;
  * user.  It may have any number of named "points of interest".
  * @author will
  */
-public abstract class Region implements TerrainMap, Serializable {
+public abstract class Region 
+	implements TerrainMap, OpacityAssessor, Serializable {
 	private static final long serialVersionUID = 1L;
 
 	// Instance Variables
@@ -53,7 +65,31 @@ public abstract class Region implements TerrainMap, Serializable {
 	private List<Monster> monsters = new ArrayList<>();
 	private List<Mobile> npcs = new ArrayList<>();
 	private Map<String,Cell> points = new HashMap<>();
-	private boolean seen[][];
+	private BitPlane seen;
+	
+	// Transient Data: caches derived from the above.
+	private transient long changes = 0;
+	private transient long layoutChanges = 0;
+	private transient long[] sideChanges = null;
+	private transient RouteCache routes = null;
+	private transient Map<MovementType,PartyField> partyFields = null;
+	private transient List<FieldOfView> views = null;
+	private transient long viewLayout = -1;
+	
+	// Save tracking: whether the region has changed since it was last
+	// saved or loaded.
+	private transient boolean dirty = true;
+	private transient long cleanTerrain = -1;
+	
+	// Feature overlay: the cells that contain features, and the 
+	// movement and visibility properties of those features.
+	private transient BitPlane featureCells = null;
+	private transient BitPlane featureWalkable = null;
+	private transient BitPlane featureFlyable = null;
+	private transient BitPlane featureOpaque = null;
+	
+	// Mobile occupancy index
+	private transient MobileIndex mobileIndex = null;
 	
 	// Construction
 	
@@ -79,6 +115,12 @@ public abstract class Region implements TerrainMap, Serializable {
 		return Board.get();
 	}
 	
+	/** @return the game being played: the board, or a headless
+	 * simulation. */
+	protected final Game game() {
+		return RPG.game();
+	}
+	
 	/** @return the region's human-readable title */
 	abstract public String title();
 		
@@ -89,16 +131,11 @@ public abstract class Region implements TerrainMap, Serializable {
 	 */
 	protected final void setMap(TerrainGrid map) {
 		this.map = map;
+		featureCells = null;
+		mobileIndex = null;
+		views = null;
 		
-		seen = new boolean[map.rows()][];
-		
-		for (int r = 0; r < map.rows(); r++) {
-			seen[r] = new boolean[map.cols()];
-			
-			for (int c = 0; c < map.cols(); c++) {
-				seen[r][c] = false;
-			}
-		}
+		seen = new BitPlane(map.rows(), map.cols());
 	}
 	
 	/** Add a point of interest for the region.
@@ -127,6 +164,8 @@ public abstract class Region implements TerrainMap, Serializable {
 	protected final void addFeature(Cell cell, Feature f) {
 		f.place(this, cell);
 		features.put(cell, f);
+		updateOverlay(cell);
+		layoutChanged();
 	}
 	
 	/** Remove a feature from the region.
@@ -135,6 +174,8 @@ public abstract class Region implements TerrainMap, Serializable {
 	 */
 	public final void removeFeature(Feature f) {
 		features.remove(f.place());
+		updateOverlay(f.place());
+		layoutChanged();
 	}
 
 	/** Add a monster to the various lists.
@@ -145,6 +186,9 @@ public abstract class Region implements TerrainMap, Serializable {
 		monster.place(this,cell);
 		mobiles.add(monster);
 		monsters.add(monster);
+		indexAdd(monster);
+		sideChanged(monster);
+		changed();
 	}
 	
 	/** Add an NPC to the various lists.
@@ -155,6 +199,9 @@ public abstract class Region implements TerrainMap, Serializable {
 		npc.place(this,cell);
 		mobiles.add(npc);
 		npcs.add(npc);
+		indexAdd(npc);
+		sideChanged(npc);
+		changed();
 	}
 	
 	/** Remove an NPC from the region. 
@@ -163,6 +210,9 @@ public abstract class Region implements TerrainMap, Serializable {
 	public final void removeNPC(Mobile npc) {
 		mobiles.remove(npc);
 		npcs.remove(npc);
+		indexRemove(npc);
+		sideChanged(npc);
+		changed();
 	}
 	
 
@@ -190,7 +240,11 @@ public abstract class Region implements TerrainMap, Serializable {
 		// NEXT, add them to the region's list of PCs.
 		for (PlayerCharacter pc : party) {
 			mobiles.add(pc);
+			indexAdd(pc);
+			sideChanged(pc);
 		}
+		
+		changed();
 	}
 	
 	/** The party exits the region.
@@ -199,6 +253,13 @@ public abstract class Region implements TerrainMap, Serializable {
 	 */
 	public void exit(String toRegion, String point) {
 		mobiles.removeAll(board().party.allMembers());
+		
+		for (PlayerCharacter pc : board().party.allMembers()) {
+			indexRemove(pc);
+			sideChanged(pc);
+		}
+		
+		changed();
 		board().enter(toRegion, point);
 	}
 
@@ -215,9 +276,231 @@ public abstract class Region implements TerrainMap, Serializable {
 		mobiles.removeAll(dead);
 		monsters.removeAll(dead);
 		
+		for (Mobile m : dead) {
+			indexRemove(m);
+			sideChanged(m);
+		}
+		
+		if (dead.size() > 0) {
+			changed();
+		}
+		
 		return dead;
 	}
 	
+	//-------------------------------------------------------------------------
+	// Change Tracking
+	//
+	// Anything that might change what a mobile can move through bumps
+	// the change count; cached routes are valid only until then.
+	
+	/** @return the region's change epoch, a number that increases whenever
+	 * the terrain, the features, or the positions of the mobiles change.
+	 */
+	public final long epoch() {
+		return changes + map.changeCount();
+	}
+	
+	/** @return the region's layout epoch, a number that increases whenever
+	 * the terrain or the features change.  Unlike the change epoch, it
+	 * ignores the movement of mobiles.
+	 */
+	public final long layoutEpoch() {
+		return layoutChanges + map.changeCount();
+	}
+
+	/** @return the region's terrain epoch, a number that increases
+	 * whenever the terrain changes.
+	 */
+	public final long terrainEpoch() {
+		return map.changeCount();
+	}
+
+	/** Returns the enemy epoch for a side: a number that increases
+	 * whenever the terrain or the features change, or a mobile on a side
+	 * hostile to the given side enters, leaves, moves, or is shown or 
+	 * hidden.  The movements of the side's friends don't affect it.
+	 * 
+	 * @param side The side
+	 * @return The epoch
+	 */
+	public final long enemyEpoch(Side side) {
+		long epoch = layoutEpoch();
+		
+		if (sideChanges != null) {
+			for (Side other : Side.values()) {
+				if (side.isEnemy(other)) {
+					epoch += sideChanges[other.ordinal()];
+				}
+			}
+		}
+		
+		return epoch;
+	}
+
+	/** Notes that something in the region has changed. */
+	private void changed() {
+		changes++;
+		dirty = true;
+	}
+	
+	/** Notes that a mobile on a given side has entered, left, moved, or
+	 * been shown or hidden.
+	 * 
+	 * @param m The mobile
+	 */
+	private void sideChanged(Mobile m) {
+		if (sideChanges == null) {
+			sideChanges = new long[Side.values().length];
+		}
+		
+		sideChanges[m.side().ordinal()]++;
+	}
+	
+	/** Notes that the region's features have changed. */
+	private void layoutChanged() {
+		layoutChanges++;
+		changes++;
+		dirty = true;
+	}
+	
+	/** A region is dirty if it has changed since it was last saved or 
+	 * loaded: if its terrain, its features, the positions or number
+	 * of its mobiles, or the cells the party has seen have changed.  A
+	 * new region is always dirty.
+	 * 
+	 * @return true if the region is dirty, and false otherwise.
+	 */
+	public final boolean isDirty() {
+		return dirty || map.changeCount() != cleanTerrain;
+	}
+	
+	/** Notes that the region has just been saved or loaded. */
+	public final void markClean() {
+		dirty = false;
+		cleanTerrain = map.changeCount();
+	}
+	
+	/** Called by Entity when an entity in this region moves.
+	 * 
+	 * @param e The entity that moved.
+	 * @param from The cell it moved from, or null if it's new to the
+	 * region.
+	 */
+	final void entityMoved(Entity e, Cell from) {
+		if (e instanceof Mobile) {
+			if (mobileIndex != null) {
+				mobileIndex.moved((Mobile)e, from);
+			}
+			
+			sideChanged((Mobile)e);
+		}
+		
+		changed();
+	}
+	
+	/** Called by Entity when an entity in this region is shown or
+	 * hidden.
+	 * 
+	 * @param e The entity
+	 */
+	final void entityShown(Entity e) {
+		if (e instanceof Mobile) {
+			sideChanged((Mobile)e);
+		}
+	}
+	
+	/** Features call this when their state changes in a way that
+	 * might affect movement or visibility, e.g., when a door opens or
+	 * closes.
+	 * 
+	 * @param f The feature
+	 */
+	public final void featureChanged(Feature f) {
+		updateOverlay(f.place());
+		layoutChanged();
+	}
+	
+	/** Builds the feature overlay from the features map. */
+	private void buildOverlay() {
+		featureCells = new BitPlane(map.rows(), map.cols());
+		featureWalkable = new BitPlane(map.rows(), map.cols());
+		featureFlyable = new BitPlane(map.rows(), map.cols());
+		featureOpaque = new BitPlane(map.rows(), map.cols());
+		
+		for (Cell cell : features.keySet()) {
+			updateOverlay(cell);
+		}
+	}
+	
+	/** Updates the feature overlay for a cell, if the overlay exists.
+	 * 
+	 * @param cell The cell
+	 */
+	private void updateOverlay(Cell cell) {
+		if (featureCells == null || cell == null) {
+			return;
+		}
+		
+		Feature f = features.get(cell);
+		
+		featureCells.set(cell, f != null);
+		featureWalkable.set(cell, f != null && f.isWalkable());
+		featureFlyable.set(cell, f != null && f.isFlyable());
+		featureOpaque.set(cell, f != null && f.isOpaque());
+	}
+	
+	/** @return the region's mobile index, creating it if need be. */
+	private MobileIndex index() {
+		if (mobileIndex == null) {
+			mobileIndex = new MobileIndex(map.rows(), map.cols(), mobiles);
+		}
+		
+		return mobileIndex;
+	}
+	
+	/** Adds a mobile to the mobile index, if it exists.
+	 * 
+	 * @param m The mobile
+	 */
+	private void indexAdd(Mobile m) {
+		if (mobileIndex != null) {
+			mobileIndex.add(m);
+		}
+	}
+	
+	/** Removes a mobile from the mobile index, if it exists.
+	 * 
+	 * @param m The mobile
+	 */
+	private void indexRemove(Mobile m) {
+		if (mobileIndex != null) {
+			mobileIndex.remove(m);
+		}
+	}
+	
+	/** Does the cell contain a feature?
+	 * 
+	 * @param cell The cell
+	 * @return true if so, and false otherwise.
+	 */
+	private boolean hasFeature(Cell cell) {
+		if (featureCells == null) {
+			buildOverlay();
+		}
+		
+		return featureCells.get(cell);
+	}
+	
+	/** @return the region's route cache, creating it if need be. */
+	private RouteCache routes() {
+		if (routes == null) {
+			routes = new RouteCache(map);
+		}
+		
+		return routes;
+	}
+	
 	//-------------------------------------------------------------------------
 	// Terrain Map Functions
 	
@@ -249,7 +532,7 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @return true if it has, and false otherwise.
 	 */
 	public boolean hasBeenSeen(int row, int col) {
-		return seen[row][col];
+		return seen.get(row, col);
 	}
 	
 	/** Marks a cell as having been seen by the party.  To be
@@ -276,17 +559,18 @@ public abstract class Region implements TerrainMap, Serializable {
 	
 		for (int r = r0; r <= r1; r++) {
 			for (int c = c0; c <= c1; c++) {
-				seen[r][c] = true;
+				seen.set(r, c, true);
 			}
 		}
+		
+		dirty = true;
 	}
 
 	/** Marks the entire region as having been seen by the party.
 	 */
 	public void markSeen() {
-		for (int r = 0; r < map.rows(); r++)
-			for (int c = 0; c < map.cols(); c++)
-				seen[r][c] = true;
+		seen.fill(true);
+		dirty = true;
 	}
 	
 	/** Returns the terrain at a given cell in the map.
@@ -304,7 +588,7 @@ public abstract class Region implements TerrainMap, Serializable {
 	 */
 	@Override
 	public List<Cell> findAStarRoute(Cell start, Cell goal, MovementAssessor assessor) {
-		return map.findAStarRoute(start, goal, assessor);
+		return routes().findAStarRoute(start, goal, assessor, epoch());
 	}
 
 	/* (non-Javadoc)
@@ -320,7 +604,224 @@ public abstract class Region implements TerrainMap, Serializable {
 	 */
 	@Override
 	public int travelDistance(Cell start, Cell goal, MovementAssessor assessor) {
-		return map.travelDistance(start, goal, assessor);
+		return routes().travelDistance(start, goal, assessor, epoch());
+	}
+
+	//-------------------------------------------------------------------------
+	// Party Flow Fields
+	//
+	// Chasing monsters all want to get to the same place: the nearest
+	// member of the party.  Rather than have each plan its own route, the
+	// region keeps a flow field of travel distances to the party for each
+	// movement type.  A field is recomputed only when it's requested and
+	// the party has moved or the layout has changed since it was last
+	// computed.
+	
+	/** Party fields extend no farther than this from the party. */
+	private static final int PARTY_FIELD_RANGE = 32;
+	
+	/** Returns the field of travel distances to the nearest living
+	 * party member for the given movement type.  Mobiles are ignored
+	 * when computing the field; features and terrain are not.
+	 * 
+	 * @param mtype The movement type
+	 * @return The flow field
+	 */
+	public final FlowField getPartyField(MovementType mtype) {
+		// FIRST, get the cells the party occupies.
+		List<Cell> sources = new ArrayList<>();
+		
+		for (Mobile m : mobiles) {
+			if (m.side() == Side.HERO && m.isAlive() && !sources.contains(m.place())) {
+				sources.add(m.place());
+			}
+		}
+		
+		// NEXT, retrieve the field, and recompute it if it's stale.
+		if (partyFields == null) {
+			partyFields = new HashMap<>();
+		}
+		
+		PartyField pf = partyFields.get(mtype);
+		
+		if (pf == null) {
+			pf = new PartyField(new FlowField(map.rows(), map.cols()));
+			partyFields.put(mtype, pf);
+		}
+		
+		long layout = layoutEpoch();
+		
+		if (pf.layout != layout || !pf.sources.equals(sources)) {
+			pf.field.compute(sources, new FieldAssessor(mtype), PARTY_FIELD_RANGE);
+			pf.layout = layout;
+			pf.sources = sources;
+		}
+		
+		return pf.field;
+	}
+	
+	/** Returns the mobile's best step from a cell toward the nearest 
+	 * living member of the party, using the party field for the mobile's
+	 * movement type.  The step must be passable by the mobile's 
+	 * preferred assessor, unless it's the party member's own cell.
+	 * 
+	 * @param m The mobile
+	 * @param from The cell to step from
+	 * @return The cell to step to, or null if there's no step that
+	 * brings the mobile closer.
+	 */
+	public final Cell stepTowardParty(Mobile m, Cell from) {
+		return getPartyField(m.movementType()).stepFrom(from, m.preferredAssessor());
+	}
+	
+	/** A party flow field, and the state of the region for which it
+	 * was computed.
+	 */
+	private static final class PartyField {
+		final FlowField field;
+		List<Cell> sources = new ArrayList<>();
+		long layout = -1;
+		
+		PartyField(FlowField field) {
+			this.field = field;
+		}
+	}
+	
+	/** This class is used to compute the party flow fields; it 
+	 * considers terrain and features, but not mobiles.
+	 * @author will
+	 */
+	private final class FieldAssessor implements MovementAssessor {
+		private MovementType mtype;
+		
+		public FieldAssessor(MovementType mtype) {
+			this.mtype = mtype;
+		}
+		
+		public boolean isPassable(Cell cell) {
+			return canEnter(mtype, cell);
+		}
+	}
+	
+	//-------------------------------------------------------------------------
+	// Move Planning
+	//
+	// Before the non-party mobiles move, each gets to plan its move
+	// against the region as it stands.  Planning only reads the region,
+	// so the plans can be made in parallel; the moves themselves are 
+	// then made one at a time, in order, by the caller.
+	
+	/** Fewer plans than this aren't worth farming out. */
+	private static final int MIN_PARALLEL_PLANS = 4;
+	
+	/** The pool of threads used for planning. */
+	private static final ForkJoinPool planners = new ForkJoinPool();
+	
+	/** Asks each of the mobiles to plan its next move, in parallel if
+	 * there are enough of them.  Returns when all plans are made.
+	 * 
+	 * @param movers The mobiles that are about to move.
+	 */
+	public final void planMoves(List<Mobile> movers) {
+		// FIRST, build the caches the planners will read, so that they 
+		// don't race to build them.
+		map.prepareForReaders();
+		
+		if (featureCells == null) {
+			buildOverlay();
+		}
+		
+		index();
+		
+		// NEXT, if there are only a few, just do it.
+		if (movers.size() < MIN_PARALLEL_PLANS) {
+			for (Mobile m : movers) {
+				m.plan();
+			}
+			return;
+		}
+		
+		// NEXT, plan in parallel.
+		List<Callable<Void>> tasks = new ArrayList<>(movers.size());
+		
+		for (final Mobile m : movers) {
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					m.plan();
+					return null;
+				}
+			});
+		}
+		
+		try {
+			for (Future<Void> f : planners.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error planning moves", e.getCause());
+		}
+	}
+	
+	//-------------------------------------------------------------------------
+	// Fields of View
+	//
+	// Drawing the map requires knowing which of hundreds of cells are
+	// in the party's line of sight.  Rather than trace a line to each
+	// one, the region computes the field of view from each viewer's cell
+	// in a single pass, and keeps the most recently used fields until
+	// the layout changes.
+	
+	/** The maximum number of fields of view retained. */
+	private static final int MAX_VIEWS = 8;
+	
+	/** Returns the field of view from the given cell, computing it if
+	 * need be.
+	 * 
+	 * @param viewer The viewer's cell
+	 * @return The field of view.
+	 */
+	public final FieldOfView getView(Cell viewer) {
+		// FIRST, if the layout has changed, the views are stale.
+		long layout = layoutEpoch();
+		
+		if (views == null) {
+			views = new ArrayList<>(MAX_VIEWS);
+		}
+		
+		if (viewLayout != layout) {
+			views.clear();
+			viewLayout = layout;
+		}
+		
+		// NEXT, look for a view from this cell, moving it to the front
+		// of the list if it isn't already.
+		for (int i = 0; i < views.size(); i++) {
+			FieldOfView view = views.get(i);
+			
+			if (view.origin().equals(viewer)) {
+				if (i > 0) {
+					views.remove(i);
+					views.add(0, view);
+				}
+				
+				return view;
+			}
+		}
+		
+		// NEXT, compute a new one, reusing the least recently used view
+		// if the list is full.
+		FieldOfView view = (views.size() < MAX_VIEWS) 
+			? new FieldOfView(map.rows(), map.cols())
+			: views.remove(views.size() - 1);
+		
+		long start = Metrics.start();
+		view.compute(viewer, this);
+		Metrics.time("fov", start);
+		views.add(0, view);
+		
+		return view;
 	}
 
 	/* (non-Javadoc)
@@ -331,6 +832,16 @@ public abstract class Region implements TerrainMap, Serializable {
 	public BufferedImage toBufferedImage() {
 		return map.toBufferedImage();
 	}
+	
+	/** Returns a thumbnail of the region's map, showing only the cells
+	 * the party has seen.
+	 * 
+	 * @param maxSize The maximum width and height, in pixels
+	 * @return The thumbnail
+	 */
+	public BufferedImage toThumbnail(int maxSize) {
+		return map.toThumbnail(maxSize, seen);
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -343,7 +854,7 @@ public abstract class Region implements TerrainMap, Serializable {
 
 	/** @return true if we're in combat, and false otherwise. */
 	public final boolean inCombat() {
-		return board().inCombat();
+		return game().inCombat();
 	}
 	
 	/** Determines whether the cell's terrain is passable to a 
@@ -355,11 +866,39 @@ public abstract class Region implements TerrainMap, Serializable {
 	public final boolean isPassableBy(MovementType type, Cell cell) {
 		switch (type) {
 		case WALKING:
-			return map.terrainAt(cell).isWalkable();
+			return map.isWalkable(cell.row, cell.col);
+		case FLYING:
+			return map.isFlyable(cell.row, cell.col);
+		default:
+			game().println("Error, unknown movement type: " + type);
+			return false;
+		}
+	}
+	
+	/** Determines whether a mobile of the given movement type could 
+	 * move into the cell, disregarding other mobiles.  If the cell 
+	 * contains a feature, the feature determines passability; otherwise
+	 * the terrain does.
+	 * @param type Movement type
+	 * @param cell The cell in question
+	 * @return True if it is passable, and false otherwise.
+	 */
+	public final boolean canEnter(MovementType type, Cell cell) {
+		if (featureCells == null) {
+			buildOverlay();
+		}
+		
+		if (!featureCells.get(cell)) {
+			return isPassableBy(type, cell);
+		}
+		
+		switch (type) {
+		case WALKING:
+			return featureWalkable.get(cell);
 		case FLYING:
-			return map.terrainAt(cell).isFlyable();
+			return featureFlyable.get(cell);
 		default:
-			board().println("Error, unknown movement type: " + type);
+			game().println("Error, unknown movement type: " + type);
 			return false;
 		}
 	}
@@ -370,15 +909,22 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @return True if the cell blocks visibility, and false otherwise.
 	 */
 	public final boolean isOpaque(Cell cell) {
-		if (map.terrainAt(cell).isOpaque())
-			return true;
-		
-		Feature f = features.get(cell);
+		return isOpaque(cell.row, cell.col);
+	}
+	
+	/** A cell is opaque if the terrain is opaque or if
+	 * there's an opaque feature.  
+	 * @param row The cell's row
+	 * @param col The cell's column
+	 * @return True if the cell blocks visibility, and false otherwise.
+	 */
+	@Override
+	public final boolean isOpaque(int row, int col) {
+		if (featureCells == null) {
+			buildOverlay();
+		}
 		
-		if (f != null)
-			return f.isOpaque();
-		else
-			return false;
+		return map.isOpaque(row, col) || featureOpaque.get(row, col);
 	}
 	
 	/** Determines whether cell b is in line-of-sight of cell
@@ -388,30 +934,26 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @return True if a has a line-of-sight to b, and false otherwise.
 	 */
 	public final boolean inLOS(Cell a, Cell b) {
-		List<Cell> path = TerrainGrid.getLine(a, b);
-		
-		for (int i = 0; i < path.size(); i++) {
-			if (isOpaque(path.get(i)))
-				return false;
-		}
-		
-		return true;
+		Metrics.count("los");
+		return TerrainGrid.isLineClear(a.row, a.col, b.row, b.col, this);
 	}
 	
 	/** Determines whether the cell is in LOS of some member of the
-	 * party.
+	 * party, using the party members' fields of view.
 	 * @param cell
 	 * @return true if it is, and false otherwise.
 	 */
 	public final boolean inLOS(Cell cell) {
+		Metrics.count("los");
+		
 		// FIRST, in normal mode we only need to check the leader.
-		if (!board().inCombat()) {
-			return inLOS(board().party.leader().place(), cell);
+		if (!game().inCombat()) {
+			return getView(game().party().leader().place()).isVisible(cell);
 		}
 		
 		// OTHERWISE, we need to check each PC
-		for (PlayerCharacter pc : board().party.members()) {
-			if (inLOS(pc.place(), cell)) {
+		for (PlayerCharacter pc : game().party().members()) {
+			if (getView(pc.place()).isVisible(cell)) {
 				return true;
 			}
 		}
@@ -425,15 +967,15 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @return The distance
 	 */
 	public final int diagonal(Cell cell) {
-		int min = board().party.leader().place().diagonal(cell);
+		int min = game().party().leader().place().diagonal(cell);
 		
-		if (!board().inCombat()) {
+		if (!game().inCombat()) {
 			return min;
 		}
 		
 		int dist = min;
 		
-		for (Mobile m : board().party.members()) {
+		for (Mobile m : game().party().members()) {
 			dist = m.place().diagonal(cell);
 			if (dist < min)
 				min = dist;
@@ -523,13 +1065,7 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @return the mobile, or null if none.
 	 */
 	public final Mobile mobileAt(Cell cell) {
-		for (Mobile m : mobiles) {
-			if (m.place().equals(cell)) {
-				return m;
-			}
-		}
-		
-		return null;
+		return index().mobileAt(cell);
 	}
 	
 	/** Returns the entity at the given cell, if any.
@@ -563,6 +1099,14 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @return the monster, or null if none.
 	 */
 	public final Monster monsterAt(Cell cell) {
+		// FIRST, the usual case: zero or one mobile in the cell.
+		if (index().count(cell) <= 1) {
+			Mobile m = index().mobileAt(cell);
+			
+			return (m instanceof Monster) ? (Monster)m : null;
+		}
+		
+		// NEXT, there are several; find the first monster.
 		for (Monster m : monsters) {
 			if (m.place().equals(cell)) {
 				return m;
@@ -585,24 +1129,24 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * that contain no entities.
 	 */
 	public final List<Cell> getOpenCells() {
-		// FIRST, get the cells with walkable terrain.
+		// Get the cells with walkable terrain that contain no features
+		// or mobiles.
 		List<Cell> open = new ArrayList<>(0);
 		
 		for (int r = 0; r < map.rows(); r++) {
 			for (int c = 0; c < map.cols(); c++) {
+				if (!map.isWalkable(r, c)) {
+					continue;
+				}
+				
 				Cell cell = new Cell(r,c);
-				if (isPassableBy(MovementType.WALKING, cell)) {
+				
+				if (!hasFeature(cell) && index().count(cell) == 0) {
 					open.add(cell);
 				}
 			}
 		}	
 		
-		// NEXT, remove any cells containing features or mobiles.
-		open.removeAll(features.keySet());
-
-		for (Mobile m : mobiles)
-			open.remove(m.place());
-		
 		return open;
 	}
 	
@@ -612,23 +1156,18 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @return a list of cells with the given tile that contain no entities.
 	 */
 	public final List<Cell> getOpenCellsWith(TerrainTile tile) {
-		// FIRST, get the cells with walkable terrain.
+		// Get the cells with the tile that contain no entities.
 		List<Cell> open = new ArrayList<>(0);
 		
 		for (int r = 0; r < map.rows(); r++) {
 			for (int c = 0; c < map.cols(); c++) {
 				Cell cell = new Cell(r,c);
-				if (map.terrainAt(cell).equals(tile))
+				if (map.terrainAt(cell).equals(tile) &&
+					!hasFeature(cell) && index().count(cell) == 0)
 					open.add(cell);
 			}
 		}	
 		
-		// NEXT, remove any cells containing features or mobiles.
-		open.removeAll(features.keySet());
-
-		for (Mobile m : mobiles)
-			open.remove(m.place());
-		
 		return open;
 	}
 	
@@ -774,12 +1313,7 @@ public abstract class Region implements TerrainMap, Serializable {
 			if (mobileAt(cell) != null)
 				return false;
 			
-			Feature f = featureAt(cell);
-			
-			if (f != null)
-				return f.isPassableBy(mtype);
-			
-			return isPassableBy(mtype, cell);
+			return canEnter(mtype, cell);
 		}
 	}
 	
@@ -806,36 +1340,124 @@ public abstract class Region implements TerrainMap, Serializable {
 	 */
 	public final void setupRegion(TiledMap tm, TerrainTile[] tiles, String tableKey) {
 		// FIRST, create and populate the terrain grid.
-		setupTerrainGrid(tm, tiles);
+		TiledMap.Layer terrain = tm.getTileLayer(TERRAIN_LAYER);
+		assert terrain != null;
+		setupTerrainGrid(tm.height, tm.width, terrain.data, tiles);
 		
 		// NEXT, get features defined as tiles.
-		setupTileFeatures(tm, tiles);
+		TiledMap.Layer features = tm.getTileLayer(FEATURES_LAYER);
+		assert features != null;
+		setupTileFeatures(tm.height, tm.width, features.data, tiles);
 		
 		// NEXT, get features defined as objects in the Features object
 		// group.
-		setupObjectFeatures(tm, tableKey);
+		TiledMap.Layer flayer = tm.getObjectGroup(FEATURES_LAYER);
+		StringsTable strings = Strings.table(tableKey);
+		
+		if (flayer != null) {
+			for (TiledMap.MapObject o : flayer.objects) {
+				addObjectFeature(tm.getObjectCell(o), o, strings);
+			}
+		}
 		
 		// NEXT, get mobiles defines as objects in the Mobiles object
 		// group.
-		setupMobiles(tm, tableKey);
+		TiledMap.Layer mobiles = tm.getObjectGroup(MOBILES_LAYER);
+		
+		if (mobiles != null) {
+			for (TiledMap.MapObject o : mobiles.objects) {
+				addObjectMobile(tm.getObjectCell(o), o, tableKey);
+			}
+		}
 	}
 
-	/** Create the region's map from the TiledMap we read in.
-	 * @param tm The TiledMap read from disk.
-	 * @param tiles The array of terrain tiles used by this region.
+	/** Initializes the region's map, features, and so forth, as for 
+	 * setupRegion(TiledMap,...), but streams the Tiled map from its
+	 * resource: the layers are set up as they are read, and the map
+	 * as a whole is never held in memory.  The map's tile layers may
+	 * be compressed.  If the map has been compiled into a RegionAsset,
+	 * the map is read from the asset instead.
+	 * 
+	 * @param cls The class that owns the Tiled map resource.
+	 * @param resource The resource name of the Tiled map's .json file.
+	 * @param tiles The terrain tile constants for this region.
+	 * @param tableKey The ID of the region's strings table in the Strings
+	 * registry.
 	 */
-	private void setupTerrainGrid(TiledMap tm, TerrainTile[] tiles) {
-		TerrainGrid grid = new TerrainGrid(tm.height, tm.width);
+	public final void setupRegion(Class<?> cls, String resource, 
+			TerrainTile[] tiles, String tableKey) {
+		MapLoader loader = new MapLoader(tiles, tableKey);
+		RegionAsset asset = RegionAsset.find(cls, resource);
 		
-		// FIRST, find the tm's Terrain Layer
-		TiledMap.Layer terrain = tm.getTileLayer(TERRAIN_LAYER);
-		assert terrain != null;
+		if (asset != null && asset.hasMap()) {
+			asset.replay(loader);
+		} else {
+			TiledMapReader.read(cls, resource, loader);
+		}
+	}
+	
+	/** Sets up the region from a Tiled map as it is read.  The terrain 
+	 * grid is built straight from the Terrain layer; the Features layer 
+	 * is set up as soon as the grid exists, and the objects are set up 
+	 * as they are handed over.
+	 */
+	private final class MapLoader implements TiledMapReader.Listener {
+		private final TerrainTile[] tiles;
+		private final String tableKey;
+		private final StringsTable strings;
+		
+		// The Features layer, if it was read before the Terrain layer.
+		private int[] featureTiles = null;
+		
+		MapLoader(TerrainTile[] tiles, String tableKey) {
+			this.tiles = tiles;
+			this.tableKey = tableKey;
+			this.strings = Strings.table(tableKey);
+		}
+		
+		@Override
+		public void tileLayer(String name, int height, int width, int[] gids) {
+			if (name.equals(TERRAIN_LAYER)) {
+				setupTerrainGrid(height, width, gids, tiles);
+				
+				if (featureTiles != null) {
+					setupTileFeatures(height, width, featureTiles, tiles);
+					featureTiles = null;
+				}
+			} else if (name.equals(FEATURES_LAYER)) {
+				if (map != null) {
+					setupTileFeatures(height, width, gids, tiles);
+				} else {
+					featureTiles = gids;
+				}
+			}
+		}
+		
+		@Override
+		public void object(String group, Cell cell, TiledMap.MapObject o) {
+			if (group.equals(FEATURES_LAYER)) {
+				addObjectFeature(cell, o, strings);
+			} else if (group.equals(MOBILES_LAYER)) {
+				addObjectMobile(cell, o, tableKey);
+			}
+		}
+	}
+
+	/** Create the region's map from the Terrain layer of the Tiled map.
+	 * @param height The height of the map, in tiles.
+	 * @param width The width of the map, in tiles.
+	 * @param data The layer's tile GIDs, in row-major order.
+	 * @param tiles The array of terrain tiles used by this region.
+	 */
+	private void setupTerrainGrid(int height, int width, int[] data, 
+			TerrainTile[] tiles) {
+		TerrainGrid grid = new TerrainGrid(height, width);
 		
-		// NEXT, look up the terrain objects that match the tile GIDs.
-		for (int r = 0; r < tm.height; r++) {
-			for (int c = 0; c < tm.width; c++) {
-				int ndx = r*tm.width + c;
-				int tile = terrain.data[ndx];
+		// FIRST, look up the terrain objects that match the tile GIDs.
+		for (int r = 0; r < height; r++) {
+			for (int c = 0; c < width; c++) {
+				int ndx = r*width + c;
+				int tile = data[ndx];
 				
 				if (tile > 0) {
 					// Our tiles start at 0; Tiled's GIDs start at 1.
@@ -851,20 +1473,19 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * are defined as feature tiles; they create default features, e.g.,
 	 * doors, chests, and furniture.<p>
 	 *
-	 * @param tm  The tile map
+	 * @param height The height of the map, in tiles.
+	 * @param width The width of the map, in tiles.
+	 * @param data The layer's tile GIDs, in row-major order.
 	 * @param tiles The terrain tiles used in this region.
 	 */
-	private void setupTileFeatures(TiledMap tm, TerrainTile[] tiles) {
-		// FIRST, retrieve the layer.
-		TiledMap.Layer features = tm.getTileLayer(FEATURES_LAYER);
-		assert features != null;
-		
-		// NEXT, iterate over the defined features.
-		for (int r = 0; r < tm.height; r++) {
-			for (int c = 0; c < tm.width; c++) {
+	private void setupTileFeatures(int height, int width, int[] data, 
+			TerrainTile[] tiles) {
+		// FIRST, iterate over the defined features.
+		for (int r = 0; r < height; r++) {
+			for (int c = 0; c < width; c++) {
 				Cell cell = new Cell(r,c);
-				int ndx = r*tm.width + c;
-				int tile = features.data[ndx];
+				int ndx = r*width + c;
+				int tile = data[ndx];
 				
 				if (tile == 0) {
 					continue;
@@ -959,71 +1580,60 @@ public abstract class Region implements TerrainMap, Serializable {
 		return defSprite;
 	}
 	
-	/** Retrieves features defined as objects in the Tiled map's
+	/** Sets up a feature defined as an object in the Tiled map's
 	 * Features object group.  Unrecognized features are passed back
 	 * to the subclass.
-	 * @param tm The Tiled map.
-	 * @param tableKey The ID of the region's StringsTable in the registry
+	 * @param cell The cell at which the feature appears
+	 * @param o The map object itself.
+	 * @param strings The region's StringsTable
 	 */
-	private void setupObjectFeatures(TiledMap tm, String tableKey) {
-		// FIRST, retrieve the layer and the strings table.
-		TiledMap.Layer flayer = tm.getObjectGroup(FEATURES_LAYER);
-		StringsTable strings = Strings.table(tableKey);
+	private void addObjectFeature(Cell cell, TiledMap.MapObject o, 
+			StringsTable strings) {
+		Feature f = features.get(cell);
+		String point[];
 		
-		if (flayer == null) {
-			return;
+		// FIRST, if the object has a point property defined, define
+		// the point of interest.
+		if (o.properties.point != null) {
+			addPointOfInterest(o.properties.point, cell);
 		}
 		
-		String point[];
-		
-		for (TiledMap.MapObject o : flayer.objects) {
-			Cell cell = tm.getObjectCell(o);
-			Feature f = features.get(cell);
-			
+		switch (o.type) {
+		case "Exit":
+			// FIRST, get the link information.
+			point = o.name.split(":");
+			assert point.length == 2;
 			
-			// FIRST, if the object has a point property defined, define
-			// the point of interest.
-			if (o.properties.point != null) {
-				addPointOfInterest(o.properties.point, cell);
+			if (o.properties.point == null) {
+				addPointOfInterest(point[0], cell);
 			}
 			
-			switch (o.type) {
-			case "Exit":
-				// FIRST, get the link information.
-				point = o.name.split(":");
-				assert point.length == 2;
-				
-				if (o.properties.point == null) {
-					addPointOfInterest(point[0], cell);
-				}
-				
-				// NEXT, create exit given the data we have.  If there's
-				// already a feature here, copy its name and sprite; otherwise
-				// the exit will be invisible and the terrain will show through.
-				Exit e;
-				
-				if (f != null) {
-					e = new Exit(f.name(), f.sprite(), point[0], point[1]);
-				} else {
-					e = new Exit(point[0], point[1]);
-				}
-
-				addFeature(cell, e);
-				break;
-			case "Narrative":
-				addFeature(cell, new Narrative(name() + "." + o.name, 
-						                       strings.get(o.name)));
-				break;
-			case "Point":
-				addPointOfInterest(o.name, cell);
-				break;
-			case "Sign":
-				addFeature(cell, new Sign(strings.get(o.name)));
-				break;
-			default:
-				setupObjectFeature(cell, o);
-				break;
+			// NEXT, create exit given the data we have.  If there's
+			// already a feature here, copy its name and sprite; otherwise
+			// the exit will be invisible and the terrain will show through.
+			Exit e;
+			
+			if (f != null) {
+				e = new Exit(f.name(), f.sprite(), point[0], point[1]);
+			} else {
+				e = new Exit(point[0], point[1]);
 			}
+
+			addFeature(cell, e);
+			break;
+		case "Narrative":
+			addFeature(cell, new Narrative(name() + "." + o.name, 
+					                       strings.get(o.name)));
+			break;
+		case "Point":
+			addPointOfInterest(o.name, cell);
+			break;
+		case "Sign":
+			addFeature(cell, new Sign(strings.get(o.name)));
+			break;
+		default:
+			setupObjectFeature(cell, o);
+			break;
 		}
 	}
 	
@@ -1037,49 +1647,41 @@ public abstract class Region implements TerrainMap, Serializable {
 				+ cell + ": " + o.type + ":" + o.name);
 	}
 
-	/** Retrieves mobiles defined as objects in the Tiled map's
+	/** Sets up a mobile defined as an object in the Tiled map's
 	 * Mobiles object group.  Unrecognized Mobiles are passed back
 	 * to the subclass.
-	 * @param tm The Tiled map.
+	 * @param cell The cell at which the mobile appears
+	 * @param o The map object itself.
 	 * @param tableKey The ID of the region's StringsTable.
 	 */
-	private void setupMobiles(TiledMap tm, String tableKey) {
-		// FIRST, retrieve the layer.
-		TiledMap.Layer mobiles = tm.getObjectGroup(MOBILES_LAYER);
-		if (mobiles == null) {
-			return;
-		}
-		
+	private void addObjectMobile(Cell cell, TiledMap.MapObject o, 
+			String tableKey) {
 		Mannikin man;
 		
-		for (TiledMap.MapObject o : mobiles.objects) {
-			Cell cell = tm.getObjectCell(o);
+		// FIRST, if the object has a point property defined, define
+		// the point of interest.
+		if (o.properties.point != null) {
+			addPointOfInterest(o.properties.point, cell);
+		}
+		
+		switch (o.type) {
+		case "Mannikin":
+			Sprite s;
 			
-			// FIRST, if the object has a point property defined, define
-			// the point of interest.
-			if (o.properties.point != null) {
-				addPointOfInterest(o.properties.point, cell);
+			if (o.properties.sprite != null) {
+				s = Mobiles.valueOf(o.properties.sprite.toUpperCase());
+			} else {
+				s = Mobiles.PEASANT1;
 			}
 			
-			switch (o.type) {
-			case "Mannikin":
-				Sprite s;
-				
-				if (o.properties.sprite != null) {
-					s = Mobiles.valueOf(o.properties.sprite.toUpperCase());
-				} else {
-					s = Mobiles.PEASANT1;
-				}
-				
-				// NOTE: The "name" from the TiledMap is the mannikin's
-				// root key into its strings table.
-				man = new Mannikin(o.name, s, tableKey);
-				addNPC(cell, man);
-				break;
-			default:
-				setupMobile(cell, o);
-				break;
-			}
+			// NOTE: The "name" from the TiledMap is the mannikin's
+			// root key into its strings table.
+			man = new Mannikin(o.name, s, tableKey);
+			addNPC(cell, man);
+			break;
+		default:
+			setupMobile(cell, o);
+			break;
 		}
 	}
 	
@@ -1101,13 +1703,13 @@ public abstract class Region implements TerrainMap, Serializable {
 	 * @param message The message.
 	 */
 	protected final void println(String message) {
-		board().println(message);
+		game().println(message);
 	}
 	
 	/** The region writes a message to the user.
 	 * @param message The message.
 	 */
 	protected final void log(String message) {
-		board().log(message);
+		game().log(message);
 	}
 }
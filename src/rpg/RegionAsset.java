@@ -0,0 +1,623 @@
+/**
+ *
+ */
+package rpg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import map.Cell;
+import map.tiled.TiledMap;
+import map.tiled.TiledMapReader;
+import util.StringsTable;
+
+/** A RegionAsset is a region's Tiled map and strings table, compiled into
+ * a compact binary file by tools.RegionCompiler.  The asset for X.json
+ * and X.strings is X.region, in the same package.  At run time the asset
+ * is memory-mapped, if it's a file, and the region reads its map and its
+ * strings straight from it, with no parsing.<p>
+ *
+ * The file contains:<p>
+ *
+ * <ul>
+ * <li> A header: the magic number, the format version, the CRC-32 of
+ *      each source (or -1 if there was none), and the offsets of the
+ *      sections.
+ * <li> The string pool: each distinct string in the asset, once, as a
+ *      length and UTF-8 bytes.  Everything else refers to strings by
+ *      their index in the pool, or -1 for null.
+ * <li> The tile layers: for each, its name, size, and palette of GIDs,
+ *      and then a palette index for each cell, in row-major order, in
+ *      one, two, or four bytes depending on the size of the palette.
+ * <li> The object groups: for each, its name, and a fixed-size record
+ *      for each object, including its cell.
+ * <li> The strings table: a key and a string for each entry.
+ * </ul>
+ *
+ * When the sources are files, as they are during development, an asset
+ * is used only if the CRCs of the sources still match; otherwise, the
+ * region falls back on reading the sources.
+ * @author will
+ *
+ */
+public final class RegionAsset {
+	/** The file name extension for compiled region assets. */
+	public static final String SUFFIX = ".region";
+
+	/** The file's magic number, "GRGN". */
+	private static final int MAGIC = 0x4752474E;
+
+	/** The version of the file format. */
+	private static final int VERSION = 1;
+
+	/** The size of the header, in bytes. */
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4;
+
+	/** The CRC recorded for a missing source. */
+	private static final long NO_SOURCE = -1;
+
+	// The assets already opened, by URL.
+	private static final Map<String,RegionAsset> assets =
+			new ConcurrentHashMap<>();
+
+	// Instance Variables
+	private final ByteBuffer buf;
+	private final long mapCrc;
+	private final long stringsCrc;
+	private final int layersAt;
+	private final int groupsAt;
+	private final int tableAt;
+	private final int[] stringOffsets;
+	private final String[] strings;
+	private StringsTable table = null;
+
+	/** Opens an asset given its contents, checking the header.
+	 *
+	 * @param buf The contents
+	 * @throws IOException if the contents aren't a region asset.
+	 */
+	private RegionAsset(ByteBuffer buf) throws IOException {
+		this.buf = buf;
+
+		if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) {
+			throw new IOException("Not a version " + VERSION +
+					" region asset");
+		}
+
+		mapCrc = buf.getLong(8);
+		stringsCrc = buf.getLong(16);
+		layersAt = buf.getInt(24);
+		groupsAt = buf.getInt(28);
+		tableAt = buf.getInt(32);
+
+		// NEXT, index the string pool; the strings are decoded on demand.
+		int count = buf.getInt(HEADER_SIZE);
+		int at = HEADER_SIZE + 4;
+
+		stringOffsets = new int[count];
+		strings = new String[count];
+
+		for (int i = 0; i < count; i++) {
+			stringOffsets[i] = at;
+			at += 4 + buf.getInt(at);
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Finding Assets
+
+	/** Finds the compiled asset for a region's map or strings resource,
+	 * if there is one and it's up to date.  Each asset is opened once,
+	 * or, if two threads ask for it at once, perhaps twice; it's safe to
+	 * call from any thread.
+	 *
+	 * @param cls The class that owns the resource
+	 * @param resource The name of the .json or .strings resource
+	 * @return The asset, or null if there's no usable asset.
+	 */
+	public static RegionAsset find(Class<?> cls, String resource) {
+		String base = baseName(resource);
+		URL url = cls.getResource(base + SUFFIX);
+
+		if (url == null) {
+			return null;
+		}
+
+		RegionAsset asset = assets.get(url.toString());
+
+		if (asset != null) {
+			return asset;
+		}
+
+		try {
+			asset = new RegionAsset(open(url));
+
+			if (!asset.isCurrent(cls, base)) {
+				System.err.println("Region asset " + base + SUFFIX +
+						" is out of date; run tools.RegionCompiler");
+				return null;
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read region asset " + url +
+					": " + e);
+			return null;
+		}
+
+		RegionAsset prior = assets.putIfAbsent(url.toString(), asset);
+
+		return (prior != null) ? prior : asset;
+	}
+
+	/** Maps an asset into memory, if it's a file, or reads it otherwise,
+	 * e.g., from a JAR file.
+	 *
+	 * @param url The asset's URL
+	 * @return The asset's contents
+	 * @throws IOException if it can't be read.
+	 */
+	private static ByteBuffer open(URL url) throws IOException {
+		if (url.getProtocol().equals("file")) {
+			try (FileChannel channel = FileChannel.open(
+					Paths.get(url.toURI()), StandardOpenOption.READ)) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0,
+						channel.size());
+			} catch (URISyntaxException e) {
+				// Read it as a stream instead.
+			}
+		}
+
+		return ByteBuffer.wrap(readBytes(url));
+	}
+
+	/** Determines whether the asset is up to date: that is, whether the
+	 * sources that are files have the CRCs the asset was compiled from.
+	 * Sources that aren't files, e.g., in a JAR file, are presumed to have
+	 * been compiled along with the asset.
+	 *
+	 * @param cls The class that owns the resources
+	 * @param base The resources' base name.
+	 * @return true if so, and false otherwise.
+	 * @throws IOException if a source can't be read.
+	 */
+	private boolean isCurrent(Class<?> cls, String base) throws IOException {
+		return isCurrent(cls.getResource(base + ".json"), mapCrc) &&
+			isCurrent(cls.getResource(base + ".strings"), stringsCrc);
+	}
+
+	/** Determines whether a source matches its recorded CRC.
+	 *
+	 * @param source The source's URL, or null if there's no such source.
+	 * @param crc The CRC recorded in the asset.
+	 * @return true if so, and false otherwise.
+	 * @throws IOException if the source can't be read.
+	 */
+	private static boolean isCurrent(URL source, long crc) throws IOException {
+		if (source == null || !source.getProtocol().equals("file")) {
+			return true;
+		}
+
+		return crc == crcOf(readBytes(source));
+	}
+
+	//-------------------------------------------------------------------------
+	// Reading the Asset
+
+	/** @return true if the asset contains a map, and false otherwise. */
+	public boolean hasMap() {
+		return mapCrc != NO_SOURCE;
+	}
+
+	/** @return true if the asset contains a strings table, and false
+	 * otherwise. */
+	public boolean hasStrings() {
+		return stringsCrc != NO_SOURCE;
+	}
+
+	/** Hands the asset's map to a listener, just as TiledMapReader would
+	 * hand it the source: each tile layer in turn, and then the objects
+	 * in each object group.
+	 *
+	 * @param listener The listener
+	 */
+	public void replay(TiledMapReader.Listener listener) {
+		ByteBuffer in = buf.duplicate();
+
+		// FIRST, the tile layers.
+		in.position(layersAt);
+		int layers = in.getInt();
+
+		for (int i = 0; i < layers; i++) {
+			String name = string(in.getInt());
+			int height = in.getInt();
+			int width = in.getInt();
+			int[] palette = new int[in.getInt()];
+
+			for (int j = 0; j < palette.length; j++) {
+				palette[j] = in.getInt();
+			}
+
+			int size = in.get();
+			int[] gids = new int[height*width];
+
+			for (int j = 0; j < gids.length; j++) {
+				switch (size) {
+				case 1:
+					gids[j] = palette[in.get() & 0xFF];
+					break;
+				case 2:
+					gids[j] = palette[in.getShort() & 0xFFFF];
+					break;
+				default:
+					gids[j] = palette[in.getInt()];
+					break;
+				}
+			}
+
+			listener.tileLayer(name, height, width, gids);
+		}
+
+		// NEXT, the objects.
+		in.position(groupsAt);
+		int groups = in.getInt();
+
+		for (int i = 0; i < groups; i++) {
+			String group = string(in.getInt());
+			int count = in.getInt();
+
+			for (int j = 0; j < count; j++) {
+				TiledMap.MapObject o = new TiledMap.MapObject();
+				o.name = string(in.getInt());
+				o.type = string(in.getInt());
+				o.x = in.getInt();
+				o.y = in.getInt();
+				o.width = in.getInt();
+				o.height = in.getInt();
+				o.properties = new TiledMap.Properties();
+				o.properties.point = string(in.getInt());
+				o.properties.sprite = string(in.getInt());
+				int row = in.getInt();
+				int col = in.getInt();
+
+				listener.object(group, new Cell(row, col), o);
+			}
+		}
+	}
+
+	/** @return the asset's strings table. */
+	public synchronized StringsTable strings() {
+		if (table == null) {
+			ByteBuffer in = buf.duplicate();
+			in.position(tableAt);
+			int count = in.getInt();
+			Map<String,String> map = new HashMap<>();
+
+			for (int i = 0; i < count; i++) {
+				String key = string(in.getInt());
+				map.put(key, string(in.getInt()));
+			}
+
+			table = new StringsTable(map);
+		}
+
+		return table;
+	}
+
+	/** Retrieves a string from the pool.
+	 *
+	 * @param id The string's index, or -1
+	 * @return The string, or null if the index is -1.
+	 */
+	private synchronized String string(int id) {
+		if (id < 0) {
+			return null;
+		}
+
+		if (strings[id] == null) {
+			int at = stringOffsets[id];
+			byte[] bytes = new byte[buf.getInt(at)];
+			ByteBuffer in = buf.duplicate();
+			in.position(at + 4);
+			in.get(bytes);
+			strings[id] = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		return strings[id];
+	}
+
+	//-------------------------------------------------------------------------
+	// Compiling Assets
+
+	/** Compiles a region's map and strings table into an asset.  Either
+	 * may be missing, but not both.
+	 *
+	 * @param cls The class that owns the resources
+	 * @param base The base name of the resources; the map is base.json,
+	 * and the strings table is base.strings.
+	 * @param out The asset file to write.
+	 * @throws IOException if the sources can't be read or the asset can't
+	 * be written.
+	 */
+	public static void compile(Class<?> cls, String base, File out)
+			throws IOException {
+		URL mapUrl = cls.getResource(base + ".json");
+		URL stringsUrl = cls.getResource(base + ".strings");
+
+		if (mapUrl == null && stringsUrl == null) {
+			throw new IOException("No map or strings table for " + base);
+		}
+
+		Compiler compiler = new Compiler();
+		long mapCrc = NO_SOURCE;
+		long stringsCrc = NO_SOURCE;
+
+		// FIRST, read the map.
+		if (mapUrl != null) {
+			byte[] bytes = readBytes(mapUrl);
+			mapCrc = crcOf(bytes);
+			TiledMapReader.read(new InputStreamReader(
+					new ByteArrayInputStream(bytes), StandardCharsets.UTF_8),
+					compiler);
+		}
+
+		// NEXT, read the strings table, sorted by key so that the asset
+		// is the same each time.
+		if (stringsUrl != null) {
+			stringsCrc = crcOf(readBytes(stringsUrl));
+			StringsTable table = new StringsTable(cls, base + ".strings");
+			List<String> keys = table.keyList();
+			Collections.sort(keys);
+
+			for (String key : keys) {
+				compiler.entry(key, table.get(key));
+			}
+		}
+
+		// NEXT, write the asset.
+		try (OutputStream stream = new FileOutputStream(out)) {
+			compiler.write(stream, mapCrc, stringsCrc);
+		}
+	}
+
+	/** Collects the contents of an asset, and writes it. */
+	private static final class Compiler implements TiledMapReader.Listener {
+		private final Map<String,Integer> ids = new LinkedHashMap<>();
+		private final ByteArrayOutputStream layerBytes = new ByteArrayOutputStream();
+		private final DataOutputStream layers = new DataOutputStream(layerBytes);
+		private final ByteArrayOutputStream tableBytes = new ByteArrayOutputStream();
+		private final DataOutputStream table = new DataOutputStream(tableBytes);
+		private int layerCount = 0;
+		private int entryCount = 0;
+
+		// The objects, by group, in order.
+		private final Map<String,List<int[]>> groups = new LinkedHashMap<>();
+
+		/** Returns a string's index in the pool, adding it if need be.
+		 *
+		 * @param s The string, or null
+		 * @return The index, or -1 for null.
+		 */
+		int id(String s) {
+			if (s == null) {
+				return -1;
+			}
+
+			Integer id = ids.get(s);
+
+			if (id == null) {
+				id = ids.size();
+				ids.put(s, id);
+			}
+
+			return id;
+		}
+
+		@Override
+		public void tileLayer(String name, int height, int width, int[] gids) {
+			// FIRST, build the palette.
+			Map<Integer,Integer> index = new LinkedHashMap<>();
+			int cells = height*width;
+
+			for (int i = 0; i < cells; i++) {
+				if (!index.containsKey(gids[i])) {
+					index.put(gids[i], index.size());
+				}
+			}
+
+			int size = index.size() <= 0x100 ? 1 :
+				index.size() <= 0x10000 ? 2 : 4;
+
+			// NEXT, write the layer.
+			try {
+				layers.writeInt(id(name));
+				layers.writeInt(height);
+				layers.writeInt(width);
+				layers.writeInt(index.size());
+
+				for (int gid : index.keySet()) {
+					layers.writeInt(gid);
+				}
+
+				layers.writeByte(size);
+
+				for (int i = 0; i < cells; i++) {
+					int ndx = index.get(gids[i]);
+
+					switch (size) {
+					case 1:
+						layers.writeByte(ndx);
+						break;
+					case 2:
+						layers.writeShort(ndx);
+						break;
+					default:
+						layers.writeInt(ndx);
+						break;
+					}
+				}
+			} catch (IOException e) {
+				// Can't happen; it's writing to memory.
+				throw new IllegalStateException(e);
+			}
+
+			layerCount++;
+		}
+
+		@Override
+		public void object(String group, Cell cell, TiledMap.MapObject o) {
+			List<int[]> objects = groups.get(group);
+
+			if (objects == null) {
+				objects = new ArrayList<>();
+				groups.put(group, objects);
+				id(group);
+			}
+
+			TiledMap.Properties p = o.properties;
+
+			objects.add(new int[] {
+				id(o.name), id(o.type), o.x, o.y, o.width, o.height,
+				id(p != null ? p.point : null),
+				id(p != null ? p.sprite : null),
+				cell.row, cell.col
+			});
+		}
+
+		/** Adds an entry to the strings table.
+		 *
+		 * @param key The key
+		 * @param value The string
+		 * @throws IOException on error.
+		 */
+		void entry(String key, String value) throws IOException {
+			table.writeInt(id(key));
+			table.writeInt(id(value));
+			entryCount++;
+		}
+
+		/** Writes the asset.
+		 *
+		 * @param stream The output stream
+		 * @param mapCrc The CRC of the map source
+		 * @param stringsCrc The CRC of the strings source
+		 * @throws IOException on error.
+		 */
+		void write(OutputStream stream, long mapCrc, long stringsCrc)
+				throws IOException {
+			// FIRST, the object groups.
+			ByteArrayOutputStream groupBytes = new ByteArrayOutputStream();
+			DataOutputStream g = new DataOutputStream(groupBytes);
+			g.writeInt(groups.size());
+
+			for (Map.Entry<String,List<int[]>> entry : groups.entrySet()) {
+				g.writeInt(id(entry.getKey()));
+				g.writeInt(entry.getValue().size());
+
+				for (int[] record : entry.getValue()) {
+					for (int field : record) {
+						g.writeInt(field);
+					}
+				}
+			}
+
+			// NEXT, the string pool, now that it's complete.
+			ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+			DataOutputStream pool = new DataOutputStream(poolBytes);
+			pool.writeInt(ids.size());
+
+			for (String s : ids.keySet()) {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				pool.writeInt(bytes.length);
+				pool.write(bytes);
+			}
+
+			// NEXT, the header, and the sections.
+			int layersAt = HEADER_SIZE + poolBytes.size();
+			int groupsAt = layersAt + 4 + layerBytes.size();
+			int tableAt = groupsAt + groupBytes.size();
+
+			DataOutputStream out = new DataOutputStream(stream);
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(mapCrc);
+			out.writeLong(stringsCrc);
+			out.writeInt(layersAt);
+			out.writeInt(groupsAt);
+			out.writeInt(tableAt);
+			poolBytes.writeTo(out);
+			out.writeInt(layerCount);
+			layerBytes.writeTo(out);
+			groupBytes.writeTo(out);
+			out.writeInt(entryCount);
+			tableBytes.writeTo(out);
+			out.flush();
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Utilities
+
+	/** Returns a resource name without its extension.
+	 *
+	 * @param resource The resource name
+	 * @return The base name
+	 */
+	private static String baseName(String resource) {
+		int dot = resource.lastIndexOf('.');
+
+		return dot > 0 ? resource.substring(0, dot) : resource;
+	}
+
+	/** Reads the whole of a resource.
+	 *
+	 * @param url The resource's URL
+	 * @return Its bytes
+	 * @throws IOException on error.
+	 */
+	private static byte[] readBytes(URL url) throws IOException {
+		try (InputStream in = url.openStream()) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] chunk = new byte[8192];
+			int n;
+
+			while ((n = in.read(chunk)) > 0) {
+				out.write(chunk, 0, n);
+			}
+
+			return out.toByteArray();
+		}
+	}
+
+	/** Computes the CRC-32 of some bytes.
+	 *
+	 * @param bytes The bytes
+	 * @return The CRC
+	 */
+	private static long crcOf(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+
+		return crc.getValue();
+	}
+}
@@ -54,7 +54,7 @@ public class BatPeaceful implements Behavior, Serializable {
 	@Override
 	public void move(Monster mob, int mp, Script script) {
 		// FIRST, is it alerted, and should it be?
-		Combatant enemy = mob.getClosestEnemy();
+		Combatant enemy = mob.closestEnemy();
 		
 		if (mob.isAlerted()) {
 			if (enemy == null || mob.distanceTo(enemy) > mob.noticeRange()) {
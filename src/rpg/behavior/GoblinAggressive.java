@@ -40,7 +40,8 @@ import util.Script;
  * <ul>
  * <li>If he is asleep, he does nothing.
  * <li>If he is wandering, he might move randomly.
- * <li>If he is chasing he closes with an enemy and attacks if possible.
+ * <li>If he is chasing he closes with the nearest member of the party and
+ *     attacks if possible.
  * </ul><p>
  *
  * @author will
@@ -58,8 +59,8 @@ public class GoblinAggressive implements Behavior, Serializable {
 	@Override
 	public void move(Monster mob, int mp, Script script) {
 		// FIRST, determine the context.
-		Combatant visible = mob.getClosestVisibleEnemy(mob.noticeRange());
-		Combatant enemy = mob.getClosestEnemy();
+		Combatant visible = mob.noticedEnemy();
+		Combatant enemy = mob.closestEnemy();
 		
 		// NEXT, determine the current posture, according to the rules.
 		switch (mob.getPosture()) {
@@ -106,7 +107,7 @@ public class GoblinAggressive implements Behavior, Serializable {
 		case CHASING:
 			mob.onEnemy(enemy);
 
-			Cell here = mob.closeWithEnemySmartly(enemy, mp, script);
+			Cell here = mob.closeWithPartySmartly(enemy, mp, script);
 
 			if (here == null) {
 				return;
@@ -48,7 +48,7 @@ public class IckyAggressive implements Behavior, Serializable {
 	@Override
 	public void move(Monster mob, int mp, Script script) {
 		// FIRST, is it alerted, and should it be?
-		Combatant enemy = mob.getClosestVisibleEnemy(mob.noticeRange());
+		Combatant enemy = mob.noticedEnemy();
 		
 		// NEXT, determine the current posture, according to the rules.
 		switch (mob.getPosture()) {
@@ -51,7 +51,7 @@ public class ManlyBugAggressive implements Behavior, Serializable {
 	@Override
 	public void move(Monster mob, int mp, Script script) {
 		// FIRST, is it alerted, and should it be?
-		Combatant enemy = mob.getClosestEnemy();
+		Combatant enemy = mob.closestEnemy();
 		
 		if (mob.isAlerted()) {
 			if (enemy == null || mob.distanceTo(enemy) > mob.noticeRange()) {
@@ -60,7 +60,7 @@ public class RatAggressive implements Behavior, Serializable {
 	@Override
 	public void move(Monster mob, int mp, Script script) {
 		// FIRST, determine the context.
-		Combatant enemy = mob.getClosestVisibleEnemy(mob.noticeRange());
+		Combatant enemy = mob.noticedEnemy();
 		
 		// NEXT, determine the current posture, according to the rules.
 		switch (mob.getPosture()) {
@@ -59,7 +59,7 @@ public class RoachAggressive implements Behavior, Serializable {
 	@Override
 	public void move(Monster mob, int mp, Script script) {
 		// FIRST, determine the context.
-		Combatant enemy = mob.getClosestEnemy();
+		Combatant enemy = mob.closestEnemy();
 		
 		// NEXT, determine the current posture, according to the rules.
 		switch (mob.getPosture()) {
@@ -83,6 +83,10 @@ public class Door extends Feature {
 	 */
 	public void setOpen(boolean flag) {
 		open = flag;
+		
+		if (region() != null) {
+			region().featureChanged(this);
+		}
 	}
 	
 	//-------------------------------------------------------------------------
@@ -6,8 +6,6 @@ package rpg.feature;
 import graphics.Sprite;
 import graphics.StandardTile;
 
-import javax.swing.JOptionPane;
-
 import rpg.Avoid;
 import rpg.Feature;
 import rpg.Mobile;
@@ -147,14 +145,9 @@ public class Exit extends Feature {
 				String text = "Do you really want to this leave\n" +
 							  "this area?";
 				// NEXT, pop up the option pane.
-				int answer = JOptionPane.showConfirmDialog(Board.get(), 
-						text, 
+				if (!Board.get().showConfirm(text, 
 						"Leave this area?", 
-						JOptionPane.YES_NO_OPTION,
-						JOptionPane.QUESTION_MESSAGE, 
-						sprite().icon());
-				
-				if (answer != JOptionPane.YES_OPTION)
+						sprite().icon()))
 					return;
 			}
 			
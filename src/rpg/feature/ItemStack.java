@@ -12,7 +12,6 @@ import java.awt.event.MouseListener;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 import rpg.Feature;
@@ -44,7 +43,7 @@ public class ItemStack extends Feature {
 	/** The PC who poked the stack and is getting
 	 * the contents.
 	 */
-	private PlayerCharacter opener;
+	private transient PlayerCharacter opener;
 
 	/** Creates a new, empty stack.
 	 */
@@ -165,10 +164,8 @@ public class ItemStack extends Feature {
 		
 		// NEXT, pop up the option pane.
 		opener = pc;
-		JOptionPane.showMessageDialog(Board.get(), 
-									  panel, 
+		Board.get().showMessage(panel, 
 									  pc + " picks through the stuff on the ground.", 
-									  JOptionPane.PLAIN_MESSAGE, 
 									  pc.bigIcon());
 	}
 	
@@ -3,8 +3,6 @@
  */
 package rpg.feature;
 
-import javax.swing.JOptionPane;
-
 import rpg.Mobile;
 import util.Script;
 import util.ScriptAction;
@@ -100,8 +98,7 @@ public class Narrative extends Trap {
 		}
 		
 		public void execute() {
-			JOptionPane.showMessageDialog(Board.get(), text, "Narrative", 
-					JOptionPane.PLAIN_MESSAGE, reader.bigIcon());
+			Board.get().showMessage(text, "Narrative", reader.bigIcon());
 			Board.get().memory.put(name, "seen");
 		}
 	}
@@ -11,7 +11,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 import rpg.Item;
@@ -42,7 +41,7 @@ public class PlainChest extends Chest {
 	/** The PC who opened the chest and is getting
 	 * the contents.
 	 */
-	private PlayerCharacter opener;
+	private transient PlayerCharacter opener;
 
 	/** Creates a new, empty plain chest.
 	 */
@@ -132,10 +131,8 @@ public class PlainChest extends Chest {
 		
 		// NEXT, pop up the option pane.
 		opener = pc;
-		JOptionPane.showMessageDialog(Board.get(), 
-									  panel, 
+		Board.get().showMessage(panel, 
 									  pc + " rummages through the stuff in the chest", 
-									  JOptionPane.PLAIN_MESSAGE, 
 									  bigIcon());
 	}
 	
@@ -6,8 +6,6 @@ package rpg.feature;
 import graphics.Features;
 import graphics.Sprite;
 
-import javax.swing.JOptionPane;
-
 import rpg.Feature;
 import rpg.Mobile;
 import rpg.pc.PlayerCharacter;
@@ -121,10 +119,9 @@ public class Sign extends Feature {
 			
 			// Add some extra lines so that the text isn't stretched
 			// vertically.
-			JOptionPane.showMessageDialog(Board.get(), 
-					signText + "\n\n\n\n", 
+			Board.get().showMessage(signText + "\n\n\n\n", 
 					"Sign", 
-					JOptionPane.PLAIN_MESSAGE, bigIcon());
+					bigIcon());
 		}
 	}
 }
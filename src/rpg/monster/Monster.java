@@ -28,12 +28,15 @@ import util.StringsTable;
 abstract public class Monster extends Combatant {
 	private static final long serialVersionUID = 1L;
 
+	/** The resource name of the strings table. */
+	public static final String STRINGS = "Monster.strings";
+	
 	/** The strings table. */
 	private static StringsTable strings;
 
 	static {
 		// FIRST, loads the strings.
-		strings = new StringsTable(Monster.class,"Monster.strings");
+		strings = new StringsTable(Monster.class,STRINGS);
 	}
 
 	//------------------------------------------------------------------------
@@ -62,6 +65,9 @@ abstract public class Monster extends Combatant {
 	 */
 	private boolean alerted = false;
 	
+	/** The monster's plan for its next move, or null. */
+	private transient Plan plan = null;
+	
 	//------------------------------------------------------------------------
 	// Creation
 	
@@ -206,9 +212,71 @@ abstract public class Monster extends Combatant {
 			behavior.move(this, mp, script);
 		}
 		
+		plan = null;
+		
 		return true;
 	}
 	
+	/** The monster plans its move by looking for enemies: the closest
+	 * visible enemy within the notice range, and the closest enemy 
+	 * overall.
+	 */
+	@Override
+	public void plan() {
+		plan = new Plan(region().enemyEpoch(side()), place(), 
+				getClosestVisibleEnemy(noticeRange()), getClosestEnemy());
+	}
+	
+	/** Returns the closest visible enemy within the notice range, from
+	 * the monster's plan if it's still good.
+	 * 
+	 * @return The enemy, or null.
+	 */
+	public final Combatant noticedEnemy() {
+		return isPlanCurrent() ? plan.noticed : 
+			getClosestVisibleEnemy(noticeRange());
+	}
+	
+	/** Returns the closest enemy, from the monster's plan if it's still
+	 * good.
+	 * 
+	 * @return The enemy, or null.
+	 */
+	public final Combatant closestEnemy() {
+		return isPlanCurrent() ? plan.closest : getClosestEnemy();
+	}
+	
+	/** A plan is current if nothing that went into it has changed since
+	 * it was made: the monster's place, and the region's enemy epoch,
+	 * which covers the layout of the region and the comings, goings, 
+	 * movements, and visibility of the monster's enemies.  The moves of
+	 * other monsters don't matter.
+	 * 
+	 * @return true if the monster has a current plan, and false otherwise.
+	 */
+	private boolean isPlanCurrent() {
+		return plan != null && 
+			plan.epoch == region().enemyEpoch(side()) &&
+			plan.from.equals(place());
+	}
+	
+	/** A monster's plan: what it saw, and the state of the region when 
+	 * it looked.
+	 */
+	private static final class Plan {
+		final long epoch;
+		final Cell from;
+		final Combatant noticed;
+		final Combatant closest;
+		
+		Plan(long epoch, Cell from, Combatant noticed, Combatant closest) {
+			this.epoch = epoch;
+			this.from = from;
+			this.noticed = noticed;
+			this.closest = closest;
+		}
+	}
+	
 
 	
 	/** The monster scripts its engagement with the enemy using its attacks.
@@ -311,6 +379,53 @@ abstract public class Monster extends Combatant {
 		return null;
 	}
 
+	/** The combatant moves to close with the nearest member of the party,
+	 * following the region's party flow field, so as to prepare for an 
+	 * attack.  This is equivalent to closeWithEnemySmartly when the enemy
+	 * is the nearest party member, but all chasing monsters share the 
+	 * cost of the route-finding.  Movement ends when the combatant is 
+	 * adjacent to an enemy or all movements points have been expended.<p>
+	 * 
+	 * The routine returns the location at the end of the movement,
+	 * only if there is an adjacent enemy.  If the combatant is not
+	 * in contact with an enemy, returns null.
+	 * 
+	 * @param enemy The enemy to close with if the field offers no step.
+	 * @param mp The remaining movement points.
+	 * @param script The script to receive the movement.
+	 * @return The final cell of the movement, or null.
+	 */
+	public final Cell closeWithPartySmartly(Combatant enemy, int mp, Script script) {
+		Cell here = place();
+
+		if (canSeeEnemyInRange(here,1)) {
+			return here;
+		}
+		
+		while (mp-- > 0) {
+			// FIRST, try to move toward the party.  If we can't move, we're
+			// done.
+			here = stepTowardParty(here, enemy.place());
+			
+			if (here == null) {
+				// We aren't next to an enemy, and we can't move any
+				// closer.
+				return null;
+			}
+			
+			moveTo(script, here);
+
+			// NEXT, is the spot next to an enemy?  We're here; end
+			// the move.
+			if (canSeeEnemyInRange(here,1)) {
+				return here;
+			}
+		}
+
+		// Expended all movement points; not next to enemy.
+		return null;
+	}
+
 	/** The combatant moves to close with an enemy, stepping naively, so as 
 	 * to prepare for an attack.  Movement ends when the combatant is adjacent
 	 * to an enemy or all movements points have been expended.<p>
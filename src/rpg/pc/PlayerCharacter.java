@@ -14,8 +14,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.swing.JOptionPane;
-
 import map.Cell;
 import rpg.Attack;
 import rpg.Combatant;
@@ -26,6 +24,7 @@ import rpg.Gold;
 import rpg.HandWeapon;
 import rpg.Item;
 import rpg.Mobile;
+import rpg.RPG;
 import rpg.Side;
 import rpg.Slot;
 import rpg.Weapon;
@@ -41,12 +40,15 @@ import app.Board;
 public abstract class PlayerCharacter extends Combatant {
 	private static final long serialVersionUID = 1L;
 	
+	/** The resource name of the strings table. */
+	public static final String STRINGS = "PlayerCharacter.strings";
+	
 	/** The strings table. */
 	private static StringsTable strings;
 
 	static {
 		// FIRST, loads the strings.
-		strings = new StringsTable(PlayerCharacter.class,"PlayerCharacter.strings");
+		strings = new StringsTable(PlayerCharacter.class,STRINGS);
 	}
 
 
@@ -289,7 +291,7 @@ public abstract class PlayerCharacter extends Combatant {
 				route = null;
 	
 				if (!region().inCombat())
-					Board.get().enterCombat();
+					RPG.game().enterCombat();
 				println("Goal: Immediate attack on " + m);
 				return;
 			}
@@ -336,7 +338,7 @@ public abstract class PlayerCharacter extends Combatant {
 				goalCombatant = (Combatant)m;
 				println("Goal: Moving to attack " + m);
 				if (!region().inCombat()) {
-					Board.get().enterCombat();
+					RPG.game().enterCombat();
 					// This will reset movement, so just return.
 					return;
 				}
@@ -529,7 +531,7 @@ public abstract class PlayerCharacter extends Combatant {
 	 * @param amount  The number of coins.
 	 */
 	public void earn(int amount) {
-		Board.get().party.earn(amount);
+		RPG.game().party().earn(amount);
 		log("receives " + amount + " gold coins.");
 	}
 
@@ -538,13 +540,13 @@ public abstract class PlayerCharacter extends Combatant {
 	 * @param amount  The number of coins.
 	 */
 	public void pay(int amount) {
-		Board.get().party.pay(amount);
+		RPG.game().party().pay(amount);
 		log("gives " + amount + " gold coins.");
 	}
 	
 	/** @return the number of gold coins held by the party. */
 	public int gold() {
-		return Board.get().party.gold();
+		return RPG.game().party().gold();
 	}
 	
 	//-------------------------------------------------------------------------
@@ -730,10 +732,8 @@ public abstract class PlayerCharacter extends Combatant {
 				++level;
 				
 				// NEXT, notify player
-				JOptionPane.showMessageDialog(Board.get(), 
-						name() + " is now level " + level + "!",
+				RPG.game().showMessage(name() + " is now level " + level + "!",
 						name() + " Levels Up", 
-						JOptionPane.PLAIN_MESSAGE, 
 						bigIcon());
 				
 
@@ -1056,7 +1056,7 @@ public abstract class PlayerCharacter extends Combatant {
 			if (item instanceof Gold) {
 				Gold gold = (Gold)item;
 				
-				Board.get().party.earn(gold.amount());
+				RPG.game().party().earn(gold.amount());
 				return true;
 			}
 			
@@ -58,11 +58,14 @@ public enum Quests implements Quest {
 		return Board.get().quest.isCompleted(this);
 	}
 
+	/** The resource name of the strings table. */
+	public static final String STRINGS = "Quests.strings";
+	
 	/** The strings table. */
 	private static StringsTable strings;
 
 	static {
 		// FIRST, loads the strings.
-		strings = new StringsTable(Quests.class,"Quests.strings");
+		strings = new StringsTable(Quests.class,STRINGS);
 	}
 }
\ No newline at end of file
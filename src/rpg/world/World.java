@@ -12,7 +12,6 @@ import javax.swing.ImageIcon;
 
 import map.TerrainTile;
 import map.TerrainType;
-import map.tiled.TiledMap;
 import rpg.Region;
 import util.StringsTable;
 import app.Strings;
@@ -27,6 +26,12 @@ public final class World extends Region {
 	/** This region's ID */
 	public static final String ID = "world";
 	
+	/** The resource name of the region's tile sheet. */
+	public static final String SHEET = "world.png";
+	
+	/** The resource name of the region's strings table. */
+	public static final String STRINGS = "world.strings";
+	
 	// Points of Interest
 	
 	/** The origin point, where the party first appears. */
@@ -53,7 +58,7 @@ public final class World extends Region {
 
 	static {
 		// FIRST, loads the strings.
-		strings = Strings.register(ID, World.class,"world.strings");
+		strings = Strings.register(ID, World.class,STRINGS);
 	}
 	
 	// Constructor
@@ -64,9 +69,7 @@ public final class World extends Region {
 		super(ID, 1);
 		
 		// FIRST, load the region Tiled map.
-		TiledMap tm = TiledMap.read(World.class, "world.json");
-		
-		setupRegion(tm, MyTile.values(), ID);
+		setupRegion(World.class, "world.json", MyTile.values(), ID);
 	}
 
 	@Override public String title() { return "World"; }
@@ -178,7 +181,7 @@ public final class World extends Region {
 		static private SpriteImage[] images;
 		
 		static {
-			images = ImageUtils.loadTileSet(World.class,"world.png");
+			images = ImageUtils.loadTileSet(World.class,SHEET);
 		}
 	}
 }
@@ -45,13 +45,19 @@ public final class BugLand extends Region implements EntityListener {
 	/** This region's ID */
 	public static final String ID = "bugland";
 	
+	/** The resource name of the region's tile sheet. */
+	public static final String SHEET = "bugland.png";
+	
+	/** The resource name of the region's strings table. */
+	public static final String STRINGS = "bugland.strings";
+	
 	/** The strings table. */
 	@SuppressWarnings("unused")
 	private static StringsTable strings;
 
 	static {
 		// FIRST, loads the strings.
-		strings = Strings.register(ID, BugLand.class,"bugland.strings");
+		strings = Strings.register(ID, BugLand.class,STRINGS);
 	}
 	
 	private RandomClass<Monster> valleyMonster = new RandomClass<>();
@@ -67,9 +73,7 @@ public final class BugLand extends Region implements EntityListener {
 		super(ID, 1);
 		
 		// FIRST, load the region Tiled map and set up the region.
-		TiledMap tm = TiledMap.read(BugLand.class, "bugland.json");
-		
-		setupRegion(tm, MyTile.values(), ID);
+		setupRegion(BugLand.class, "bugland.json", MyTile.values(), ID);
 		
 		// NEXT, add monsters.
 		valleyMonster
@@ -232,7 +236,7 @@ public final class BugLand extends Region implements EntityListener {
 		/** The list of tile images, read from the disk. */
 		static private SpriteImage[] images;
 		static {
-			images = ImageUtils.loadTileSet(BugLand.class,"BugLand.png");
+			images = ImageUtils.loadTileSet(BugLand.class,SHEET);
 		}
 	}
 }
@@ -35,6 +35,12 @@ public final class FloobEntry extends Region {
 	/** This region's ID */
 	public static final String ID = "floob_entry";
 	
+	/** The resource name of the region's tile sheet. */
+	public static final String SHEET = "floob_entry.png";
+	
+	/** The resource name of the region's strings table. */
+	public static final String STRINGS = "floob_entry.strings";
+	
 	// Points of Interest
 	
 	/** The strings table. */
@@ -42,7 +48,7 @@ public final class FloobEntry extends Region {
 
 	static {
 		// FIRST, loads the strings.
-		strings = Strings.register(ID, FloobEntry.class,"floob_entry.strings");
+		strings = Strings.register(ID, FloobEntry.class,STRINGS);
 	}
 	
 	// Instance Variables
@@ -63,11 +69,9 @@ public final class FloobEntry extends Region {
 		}
 		
 		// FIRST, load the region Tiled map.
-		TiledMap tm = TiledMap.read(FloobEntry.class, "floob_entry.json");
+		setupRegion(FloobEntry.class, "floob_entry.json", MyTile.values(), ID);
 		
-		println("Got TiledMap " + tm.width + "," + tm.height);
-				
-		setupRegion(tm, MyTile.values(), ID);
+		println("Got TiledMap " + cols() + "," + rows());
 	}
 
 	@Override public String title() { return "Floob Entry"; }
@@ -337,7 +341,7 @@ public final class FloobEntry extends Region {
 		static private SpriteImage[] images;
 		
 		static {
-			images = ImageUtils.loadTileSet(FloobEntry.class,"floob_entry.png");
+			images = ImageUtils.loadTileSet(FloobEntry.class,SHEET);
 		}
 	}
 }
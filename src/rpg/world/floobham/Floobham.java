@@ -50,6 +50,12 @@ public final class Floobham extends Region {
 	/** This region's ID */
 	public static final String ID = "floobham";
 	
+	/** The resource name of the region's tile sheet. */
+	public static final String SHEET = "floobham.png";
+	
+	/** The resource name of the region's strings table. */
+	public static final String STRINGS = "floobham.strings";
+	
 	// Points of Interest
 	
 	/** Entrance to the Sewers */
@@ -63,7 +69,7 @@ public final class Floobham extends Region {
 
 	static {
 		// FIRST, loads the strings.
-		strings = Strings.register(ID, Floobham.class,"floobham.strings");
+		strings = Strings.register(ID, Floobham.class,STRINGS);
 	}
 	
 	
@@ -75,9 +81,7 @@ public final class Floobham extends Region {
 		super(ID, 0);
 		
 		// FIRST, load the region Tiled map.
-		TiledMap tm = TiledMap.read(Floobham.class, "floobham.json");
-		
-		setupRegion(tm, MyTile.values(), ID);
+		setupRegion(Floobham.class, "floobham.json", MyTile.values(), ID);
 	}
 	
 	@Override public String title() { return "Floobham"; }
@@ -470,7 +474,7 @@ public final class Floobham extends Region {
 		static private SpriteImage[] images;
 		
 		static {
-			images = ImageUtils.loadTileSet(Floobham.class,"floobham.png");
+			images = ImageUtils.loadTileSet(Floobham.class,SHEET);
 		}
 	}
 }
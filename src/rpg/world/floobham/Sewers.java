@@ -14,7 +14,6 @@ import java.util.List;
 import java.util.Set;
 
 import javax.swing.ImageIcon;
-import javax.swing.JOptionPane;
 
 import map.Cell;
 import map.Direction;
@@ -60,6 +59,12 @@ public final class Sewers extends Region implements EntityListener {
 	/** This region's ID */
 	public static final String ID = "sewers";
 	
+	/** The resource name of the region's tile sheet. */
+	public static final String SHEET = "Sewers.png";
+	
+	/** The resource name of the region's strings table. */
+	public static final String STRINGS = "sewers.strings";
+	
 	// Points of Interest
 	
 	/** The stairs leading into the Sewers. */
@@ -78,7 +83,7 @@ public final class Sewers extends Region implements EntityListener {
 
 	static {
 		// FIRST, loads the strings.
-		strings = Strings.register(ID, Sewers.class, "sewers.strings");
+		strings = Strings.register(ID, Sewers.class, STRINGS);
 	}
 	
 	// Instance Variables
@@ -131,10 +136,8 @@ public final class Sewers extends Region implements EntityListener {
 	/** The boss is dead; do the necessary. */
 	private void bossIsDead() {
 		// FIRST, show him a congratulations message.
-		JOptionPane.showMessageDialog(Board.get(), 
-				strings.get("boss.death"), 
+		Board.get().showMessage(strings.get("boss.death"), 
 				"Got Him!", 
-				JOptionPane.PLAIN_MESSAGE, 
 				Items.TROPHY.bigIcon());
 		
 		// NEXT, add roaches near the origin.
@@ -714,7 +717,7 @@ public final class Sewers extends Region implements EntityListener {
 		static private SpriteImage[] images;
 		
 		static {
-			images = ImageUtils.loadTileSet(Sewers.class,"Sewers.png");
+			images = ImageUtils.loadTileSet(Sewers.class,SHEET);
 		}
 	}
 }
@@ -0,0 +1,234 @@
+/**
+ *
+ */
+package tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import rpg.monster.Monster;
+import rpg.pc.PlayerCharacter;
+
+/** Runs many headless fights between a party and a group of monsters,
+ * in parallel, and prints the statistics: how often the party wins, how
+ * long the fights last, and how much damage each side takes.<p>
+ *
+ * Usage: CombatSimulator [-n fights] [-seed seed] [-threads n]
+ * [party [monsters]]<p>
+ *
+ * The party is a comma-separated list of PC classes from rpg.pc, and the
+ * monsters are a comma-separated list of monster classes from
+ * rpg.monster, each optionally followed by "*count", e.g.,
+ * "George,SirFred" and "Rat*3,Goblin".  The defaults are 1000 fights of
+ * George against a rat, one thread per processor, and seed 1.
+ * Fight i is played with seed + i, so a run is repeatable.  Run with
+ * -Djava.awt.headless=true.
+ * @author will
+ *
+ */
+public class CombatSimulator {
+	/** The number of fights each task plays. */
+	private static final int BATCH = 50;
+
+	/**
+	 * @param args The options, the party, and the monsters.
+	 */
+	public static void main(String[] args) throws Exception {
+		// FIRST, parse the arguments.
+		int fights = 1000;
+		long seed = 1;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String partySpec = "George";
+		String monsterSpec = "Rat";
+		List<String> specs = new ArrayList<>();
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-n") && i + 1 < args.length) {
+				fights = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-seed") && i + 1 < args.length) {
+				seed = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else {
+				specs.add(args[i]);
+			}
+		}
+
+		if (specs.size() > 0) {
+			partySpec = specs.get(0);
+		}
+
+		if (specs.size() > 1) {
+			monsterSpec = specs.get(1);
+		}
+
+		List<Class<? extends PlayerCharacter>> party =
+				classes(partySpec, "rpg.pc.", PlayerCharacter.class);
+		List<Class<? extends Monster>> monsters =
+				classes(monsterSpec, "rpg.monster.", Monster.class);
+
+		System.out.println(partySpec + " vs. " + monsterSpec + ": " + fights +
+				" fights on " + threads + " threads");
+
+		// NEXT, play the fights.
+		long start = System.nanoTime();
+		Totals totals = run(party, monsters, fights, seed, threads);
+		double secs = (System.nanoTime() - start) / 1.0e9;
+
+		// NEXT, report.
+		totals.print();
+		System.out.println(String.format("%.2f s, %.0f fights/s",
+				secs, fights / secs));
+	}
+
+	/** Plays the fights on a pool of threads, a batch at a time, and
+	 * totals up the results.
+	 *
+	 * @param party The PC classes
+	 * @param monsters The monster classes
+	 * @param fights The number of fights
+	 * @param seed The seed for the first fight
+	 * @param threads The number of threads
+	 * @return The totals
+	 * @throws InterruptedException if interrupted while waiting.
+	 * @throws ExecutionException if a fight throws an exception.
+	 */
+	public static Totals run(
+			final List<Class<? extends PlayerCharacter>> party,
+			final List<Class<? extends Monster>> monsters,
+			int fights, long seed, int threads)
+			throws InterruptedException, ExecutionException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<Totals>> futures = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < fights; i += BATCH) {
+				final long first = seed + i;
+				final int count = Math.min(BATCH, fights - i);
+
+				futures.add(pool.submit(new Callable<Totals>() {
+					public Totals call() {
+						Totals totals = new Totals();
+
+						for (int j = 0; j < count; j++) {
+							totals.add(new Fight(party, monsters).play(first + j));
+						}
+
+						return totals;
+					}
+				}));
+			}
+
+			Totals totals = new Totals();
+
+			for (Future<Totals> f : futures) {
+				totals.add(f.get());
+			}
+
+			return totals;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/** Converts a spec into a list of classes.
+	 *
+	 * @param spec The spec, e.g., "Rat*3,Goblin"
+	 * @param pkg The package prefix for the class names
+	 * @param base The base class
+	 * @return The classes, one per mobile.
+	 */
+	private static <T> List<Class<? extends T>> classes(String spec,
+			String pkg, Class<T> base) {
+		List<Class<? extends T>> result = new ArrayList<>();
+
+		for (String item : spec.split(",")) {
+			String[] parts = item.trim().split("\\*");
+			int count = (parts.length > 1) ? Integer.parseInt(parts[1]) : 1;
+
+			Class<? extends T> cls;
+
+			try {
+				cls = Class.forName(pkg + parts[0]).asSubclass(base);
+			} catch (ClassNotFoundException | ClassCastException e) {
+				throw new IllegalArgumentException("Unknown " +
+						base.getSimpleName() + ": " + parts[0]);
+			}
+
+			for (int i = 0; i < count; i++) {
+				result.add(cls);
+			}
+		}
+
+		return result;
+	}
+
+	/** Totals of the results of a number of fights. */
+	public static final class Totals {
+		private int fights = 0;
+		private int won = 0;
+		private int lost = 0;
+		private int drawn = 0;
+		private long rounds = 0;
+		private long dealt = 0;
+		private long taken = 0;
+		private long deaths = 0;
+
+		/** Adds a fight's result. */
+		void add(Fight.Result r) {
+			fights++;
+
+			switch (r.outcome) {
+			case WON:
+				won++;
+				break;
+			case LOST:
+				lost++;
+				break;
+			case DRAW:
+				drawn++;
+				break;
+			}
+
+			rounds += r.rounds;
+			dealt += r.damageDealt;
+			taken += r.damageTaken;
+			deaths += r.deaths;
+		}
+
+		/** Adds another set of totals. */
+		void add(Totals t) {
+			fights += t.fights;
+			won += t.won;
+			lost += t.lost;
+			drawn += t.drawn;
+			rounds += t.rounds;
+			dealt += t.dealt;
+			taken += t.taken;
+			deaths += t.deaths;
+		}
+
+		/** @return the fraction of the fights the party won. */
+		public double winRate() {
+			return fights > 0 ? (double)won / fights : 0;
+		}
+
+		/** Prints the totals, as rates and averages per fight. */
+		void print() {
+			double n = Math.max(1, fights);
+
+			System.out.println(String.format(
+					"won %.1f%%  lost %.1f%%  drawn %.1f%%",
+					100*won/n, 100*lost/n, 100*drawn/n));
+			System.out.println(String.format(
+					"per fight: %.2f rounds, %.2f damage dealt, " +
+					"%.2f damage taken, %.3f PC deaths",
+					rounds/n, dealt/n, taken/n, deaths/n));
+		}
+	}
+}
@@ -0,0 +1,411 @@
+/**
+ *
+ */
+package tools;
+
+import graphics.Sprite;
+import graphics.StandardTile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Icon;
+
+import map.Cell;
+import map.TerrainGrid;
+import rpg.Combatant;
+import rpg.Game;
+import rpg.Mobile;
+import rpg.RPG;
+import rpg.Region;
+import rpg.monster.Monster;
+import rpg.pc.PlayerCharacter;
+import util.RandomPlus;
+import util.Script;
+import app.Board;
+
+/** A Fight is a headless game: a single combat between a party of player
+ * characters and some monsters in an open arena, with no GUI.  The fight
+ * uses the real mobiles, behaviors, and engagements; it stands in for the
+ * Board, and runs the combat rounds the way the Board does, except that
+ * each move's animation script is run to completion at once, and the
+ * PCs are played by a simple autopilot: each PC attacks the nearest
+ * monster.<p>
+ *
+ * A fight is played on the calling thread, with its own seeded random
+ * stream, so a fight with a given seed always plays out the same way, and
+ * fights on different threads don't interfere with each other.  A Fight
+ * object plays one fight.
+ * @author will
+ *
+ */
+public final class Fight implements Game {
+	/** The number of ticks that pass during one full round of combat. */
+	private static final int COMBAT_TICKS = 8;
+
+	/** The maximum number of rounds before the fight is called a draw. */
+	private static final int MAX_ROUNDS = 200;
+
+	/** The number of open columns between the party and the monsters. */
+	private static final int GAP = 6;
+
+	/** The outcome of a fight. */
+	public enum Outcome {
+		/** All of the monsters died. */
+		WON,
+
+		/** All of the PCs died. */
+		LOST,
+
+		/** Neither side was dead after MAX_ROUNDS. */
+		DRAW
+	}
+
+	// Instance Variables
+	private final List<Class<? extends PlayerCharacter>> pcClasses;
+	private final List<Class<? extends Monster>> monsterClasses;
+	private final Board.PartyManager party = new Board.PartyManager();
+	private final List<Monster> monsters = new ArrayList<>();
+	private final Script script = new Script();
+	private Arena arena;
+	private PlayerCharacter selected = null;
+	private int clock = 0;
+	private int logged = 0;
+
+	/** Creates a new fight.
+	 *
+	 * @param pcClasses The PCs in the party, in order
+	 * @param monsterClasses The monsters they fight
+	 */
+	public Fight(List<Class<? extends PlayerCharacter>> pcClasses,
+			List<Class<? extends Monster>> monsterClasses) {
+		this.pcClasses = pcClasses;
+		this.monsterClasses = monsterClasses;
+	}
+
+	//-------------------------------------------------------------------------
+	// The Fight
+
+	/** Plays the fight on this thread.
+	 *
+	 * @param seed The seed for the fight's random numbers.
+	 * @return The result
+	 */
+	public Result play(long seed) {
+		RandomPlus.setThreadSeed(seed);
+		RPG.setGame(this);
+
+		try {
+			setup();
+			return fight();
+		} finally {
+			RPG.setGame(null);
+			RandomPlus.setThreadSeed(null);
+		}
+	}
+
+	/** Creates the mobiles, and places them in the arena: the party
+	 * on the west side, and the monsters facing them on the east.
+	 */
+	private void setup() {
+		int rows = Math.max(pcClasses.size(), monsterClasses.size()) + 4;
+		int cols = GAP + 6;
+		int mid = rows/2;
+
+		arena = new Arena(rows, cols);
+
+		for (Class<? extends PlayerCharacter> cls : pcClasses) {
+			party.add(create(cls));
+		}
+
+		selected = party.get(0);
+
+		arena.addPointOfInterest("west", new Cell(mid, 2));
+		arena.enter(party.allMembers(), "west");
+
+		List<Cell> west = column(2, rows, party.size());
+
+		for (int i = 0; i < party.size(); i++) {
+			party.get(i).place(west.get(i));
+		}
+
+		List<Cell> east = column(cols - 3, rows, monsterClasses.size());
+
+		for (int i = 0; i < monsterClasses.size(); i++) {
+			Monster m = create(monsterClasses.get(i));
+			monsters.add(m);
+			arena.add(east.get(i), m);
+		}
+	}
+
+	/** Runs combat rounds until one side is dead, or the fight is
+	 * called.  As in the Board, the PCs move first in each round, and
+	 * then the monsters.
+	 *
+	 * @return The result
+	 */
+	private Result fight() {
+		int[] startHP = new int[party.size() + monsters.size()];
+		List<Combatant> all = new ArrayList<>();
+		all.addAll(party.allMembers());
+		all.addAll(monsters);
+
+		for (int i = 0; i < all.size(); i++) {
+			startHP[i] = all.get(i).HP();
+		}
+
+		int rounds = 0;
+		Outcome outcome = Outcome.DRAW;
+
+		while (rounds < MAX_ROUNDS) {
+			rounds++;
+
+			List<Mobile> moveOrder = new ArrayList<>();
+			moveOrder.addAll(party.members());
+			moveOrder.addAll(arena.getMonsters());
+
+			for (Mobile m : moveOrder) {
+				if (m.isAlive()) {
+					move(m);
+					arena.removeDeadMobiles();
+				}
+
+				if (party.isDead() || arena.getMonsters().isEmpty()) {
+					break;
+				}
+			}
+
+			if (party.isDead()) {
+				outcome = Outcome.LOST;
+				break;
+			} else if (arena.getMonsters().isEmpty()) {
+				outcome = Outcome.WON;
+				break;
+			}
+
+			clock += COMBAT_TICKS;
+		}
+
+		// NEXT, tally up the damage.
+		int dealt = 0;
+		int taken = 0;
+
+		for (int i = 0; i < all.size(); i++) {
+			int lost = startHP[i] - Math.max(0, all.get(i).HP());
+
+			if (i < party.size()) {
+				taken += lost;
+			} else {
+				dealt += lost;
+			}
+		}
+
+		int deaths = party.size() - party.members().size();
+
+		return new Result(outcome, rounds, dealt, taken, deaths, logged);
+	}
+
+	/** Lets a mobile take its turn, running its script to completion.
+	 * A PC whose turn isn't over needs a goal; the autopilot gives it
+	 * one, or makes it stand still if it can't get at a monster.
+	 *
+	 * @param m The mobile
+	 */
+	private void move(Mobile m) {
+		if (m instanceof PlayerCharacter) {
+			selected = (PlayerCharacter)m;
+		}
+
+		boolean turnOver = false;
+		int tries = 0;
+
+		while (!turnOver && m.isAlive()) {
+			if (m instanceof PlayerCharacter &&
+				((PlayerCharacter)m).getGoal() == null) {
+				autopilot((PlayerCharacter)m, tries++);
+			}
+
+			turnOver = m.move(script);
+
+			while (script.isNotEmpty()) {
+				script.step();
+			}
+		}
+	}
+
+	/** Gives the PC a goal: to attack the nearest monster, or, if it
+	 * has already tried that this turn, to stand still.
+	 *
+	 * @param pc The PC
+	 * @param tries The number of goals it has been given this turn.
+	 */
+	private void autopilot(PlayerCharacter pc, int tries) {
+		Monster target = null;
+
+		for (Monster m : arena.getMonsters()) {
+			if (m.isAlive() && (target == null ||
+					pc.place().diagonal(m.place()) <
+					pc.place().diagonal(target.place()))) {
+				target = m;
+			}
+		}
+
+		if (target != null && tries == 0) {
+			pc.setGoal(target.place());
+		}
+
+		if (pc.getGoal() == null) {
+			pc.setGoal(pc.place());
+		}
+	}
+
+	/** Lays out cells down a column, centered on the middle row.
+	 *
+	 * @param col The column
+	 * @param rows The number of rows in the arena
+	 * @param count The number of cells
+	 * @return The cells
+	 */
+	private List<Cell> column(int col, int rows, int count) {
+		List<Cell> cells = new ArrayList<>();
+		int top = (rows - count)/2;
+
+		for (int i = 0; i < count; i++) {
+			cells.add(new Cell(top + i, col));
+		}
+
+		return cells;
+	}
+
+	/** Creates a mobile from its class.
+	 *
+	 * @param cls The class, which must have a public no-argument
+	 * constructor.
+	 * @return The new mobile
+	 */
+	private static <T> T create(Class<T> cls) {
+		try {
+			return cls.getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Can't create " +
+					cls.getSimpleName(), e);
+		}
+	}
+
+	//-------------------------------------------------------------------------
+	// Game
+
+	@Override
+	public int time() {
+		return clock;
+	}
+
+	@Override
+	public boolean inCombat() {
+		return true;
+	}
+
+	@Override
+	public void enterCombat() {
+		// Always in combat.
+	}
+
+	@Override
+	public Board.PartyManager party() {
+		return party;
+	}
+
+	@Override
+	public PlayerCharacter getSelectedPlayerCharacter() {
+		return selected;
+	}
+
+	@Override
+	public void log(String text) {
+		logged++;
+	}
+
+	@Override
+	public void println(String text) {
+		// No debugging output.
+	}
+
+	@Override
+	public void setEffect(Sprite sprite, Cell cell) {
+		// Nothing to show.
+	}
+
+	@Override
+	public void clearEffect() {
+		// Nothing to show.
+	}
+
+	@Override
+	public void showMessage(Object message, String title, Icon icon) {
+		// Nobody to show it to.
+	}
+
+	//-------------------------------------------------------------------------
+	// Helper Classes
+
+	/** The result of a fight. */
+	public static final class Result {
+		/** How the fight came out. */
+		public final Outcome outcome;
+
+		/** The number of rounds fought. */
+		public final int rounds;
+
+		/** The hit points lost by the monsters. */
+		public final int damageDealt;
+
+		/** The hit points lost by the PCs. */
+		public final int damageTaken;
+
+		/** The number of PCs who died. */
+		public final int deaths;
+
+		/** The number of messages logged. */
+		public final int messages;
+
+		Result(Outcome outcome, int rounds, int damageDealt, int damageTaken,
+				int deaths, int messages) {
+			this.outcome = outcome;
+			this.rounds = rounds;
+			this.damageDealt = damageDealt;
+			this.damageTaken = damageTaken;
+			this.deaths = deaths;
+			this.messages = messages;
+		}
+	}
+
+	/** An open room, walled all around. */
+	private static class Arena extends Region {
+		private static final long serialVersionUID = 1L;
+
+		Arena(int rows, int cols) {
+			super("arena", 1);
+
+			TerrainGrid grid = new TerrainGrid(rows, cols);
+			grid.clearTo(StandardTile.STONE_WALL);
+
+			for (int r = 1; r < rows - 1; r++) {
+				for (int c = 1; c < cols - 1; c++) {
+					grid.set(r, c, StandardTile.TILE_FLOOR);
+				}
+			}
+
+			setMap(grid);
+		}
+
+		/** Adds a monster to the arena. */
+		void add(Cell cell, Monster monster) {
+			addMonster(cell, monster);
+		}
+
+		@Override
+		public String title() {
+			return "Arena";
+		}
+	}
+}
@@ -0,0 +1,283 @@
+/**
+ *
+ */
+package tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import map.Cell;
+import map.TerrainGrid;
+import map.maze.ClassicMaze;
+import map.maze.ClassicMaze.GrowTreeMode;
+import rpg.MovementType;
+import rpg.Region;
+import rpg.world.floobham.Floobham;
+
+
+/** Benchmarks for the map's hot paths: route finding, lines and line of
+ * sight, and maze generation.  Each benchmark is run against the
+ * Floobham region, a small map built with Tiled, and against generated
+ * mazes of the given sizes.<p>
+ *
+ * Usage: MapBenchmark [size...]<p>
+ *
+ * Each size is the width and height of a maze in cells; the default
+ * sizes are 101, 301, and 999.  Run with -Djava.awt.headless=true.<p>
+ *
+ * Each benchmark is warmed up, and then timed in several samples of
+ * roughly SAMPLE_MILLIS each; the results are printed as the mean time
+ * per operation with its standard deviation, and the fastest sample.
+ * @author will
+ *
+ */
+public class MapBenchmark {
+	/** The default maze sizes, in cells. */
+	private static final int[] SIZES = { 101, 301, 999 };
+
+	/** The warm-up time for each benchmark, in milliseconds. */
+	private static final long WARMUP_MILLIS = 1000;
+
+	/** The target duration of a sample, in milliseconds. */
+	private static final long SAMPLE_MILLIS = 100;
+
+	/** The number of samples per benchmark. */
+	private static final int SAMPLES = 10;
+
+	/** The number of cell pairs to cycle through. */
+	private static final int PAIRS = 256;
+
+	/** The travel distance for getOpenCellsNear. */
+	private static final int NEAR = 5;
+
+	/** The results of the benchmarks, accumulated so that the work
+	 * can't be optimized away. */
+	private static long sink = 0;
+
+	/** A single operation to time.  The value returned is consumed. */
+	private interface Operation {
+		long run(int i);
+	}
+
+	/**
+	 * @param args The maze sizes
+	 */
+	public static void main(String[] args) {
+		int[] sizes = SIZES;
+
+		if (args.length > 0) {
+			sizes = new int[args.length];
+
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		System.out.println(String.format("%-28s %14s %12s %14s",
+				"Benchmark", "ns/op", "+/-", "best ns/op"));
+
+		// FIRST, the Tiled map.
+		Region floobham = new Floobham();
+		benchmarkRegion("floobham", floobham, gridOf(floobham));
+
+		// NEXT, the mazes.
+		for (int size : sizes) {
+			final int mazeCells = (size - 1)/2;
+
+			benchmark("growTree/" + size, new Operation() {
+				public long run(int i) {
+					return new ClassicMaze(mazeCells, mazeCells)
+						.growTree(GrowTreeMode.RANDOM, 5)
+						.rooms().size();
+				}
+			});
+
+			TerrainGrid grid = maze(mazeCells);
+			benchmarkRegion("maze" + size, new MazeRegion(grid), grid);
+		}
+
+		System.out.println("(sink " + sink + ")");
+	}
+
+	/** Runs the region and grid benchmarks against a region.  The
+	 * route finding benchmarks use the grid directly, as the region
+	 * caches routes.
+	 *
+	 * @param name The name of the region, for the output
+	 * @param region The region
+	 * @param grid The region's terrain
+	 */
+	private static void benchmarkRegion(String name, final Region region,
+			final TerrainGrid grid) {
+		final Cell[][] pairs = openPairs(grid);
+
+		benchmark("findAStarRoute/" + name, new Operation() {
+			public long run(int i) {
+				Cell[] p = pairs[i % PAIRS];
+				List<Cell> route = grid.findAStarRoute(p[0], p[1], null);
+				return route != null ? route.size() : 0;
+			}
+		});
+
+		benchmark("travelDistance/" + name, new Operation() {
+			public long run(int i) {
+				Cell[] p = pairs[i % PAIRS];
+				return grid.travelDistance(p[0], p[1], null);
+			}
+		});
+
+		benchmark("getLine/" + name, new Operation() {
+			public long run(int i) {
+				Cell[] p = pairs[i % PAIRS];
+				return TerrainGrid.getLine(p[0], p[1]).size();
+			}
+		});
+
+		benchmark("inLOS/" + name, new Operation() {
+			public long run(int i) {
+				Cell[] p = pairs[i % PAIRS];
+				return region.inLOS(p[0], p[1]) ? 1 : 0;
+			}
+		});
+
+		benchmark("getOpenCellsNear/" + name, new Operation() {
+			public long run(int i) {
+				Cell[] p = pairs[i % PAIRS];
+				return region.getOpenCellsNear(p[0], MovementType.WALKING, NEAR)
+						.size();
+			}
+		});
+	}
+
+	/** Times an operation, and prints the results.
+	 *
+	 * @param name The name of the benchmark
+	 * @param op The operation
+	 */
+	private static void benchmark(String name, Operation op) {
+		// FIRST, warm up, and work out how many operations fill a sample.
+		long ops = 0;
+		long start = System.nanoTime();
+		long warmup = WARMUP_MILLIS*1000000;
+
+		while (System.nanoTime() - start < warmup) {
+			sink += op.run((int)ops);
+			ops++;
+		}
+
+		long perSample = Math.max(1,
+				ops * SAMPLE_MILLIS / WARMUP_MILLIS);
+
+		// NEXT, take the samples.
+		double[] nsPerOp = new double[SAMPLES];
+
+		for (int s = 0; s < SAMPLES; s++) {
+			start = System.nanoTime();
+
+			for (long i = 0; i < perSample; i++) {
+				sink += op.run((int)i);
+			}
+
+			nsPerOp[s] = (double)(System.nanoTime() - start) / perSample;
+		}
+
+		// NEXT, report.
+		double mean = 0;
+		double best = Double.MAX_VALUE;
+
+		for (double t : nsPerOp) {
+			mean += t;
+			best = Math.min(best, t);
+		}
+
+		mean /= SAMPLES;
+
+		double var = 0;
+
+		for (double t : nsPerOp) {
+			var += (t - mean)*(t - mean);
+		}
+
+		double stddev = Math.sqrt(var / (SAMPLES - 1));
+
+		System.out.println(String.format("%-28s %14.1f %12.1f %14.1f",
+				name, mean, stddev, best));
+	}
+
+	/** Builds a maze with some loops in it, so that there's more than
+	 * one route between most pairs of cells.
+	 *
+	 * @param mazeCells The number of maze rooms along each side.
+	 * @return The maze's grid, 2*mazeCells + 1 cells on a side.
+	 */
+	private static TerrainGrid maze(int mazeCells) {
+		return new ClassicMaze(mazeCells, mazeCells)
+			.growTree(GrowTreeMode.RANDOM, 5)
+			.connectify(0.05)
+			.toGrid();
+	}
+
+	/** Copies a region's terrain into a grid of its own.
+	 *
+	 * @param region The region
+	 * @return The grid
+	 */
+	private static TerrainGrid gridOf(Region region) {
+		TerrainGrid grid = new TerrainGrid(region.rows(), region.cols());
+
+		for (int r = 0; r < region.rows(); r++) {
+			for (int c = 0; c < region.cols(); c++) {
+				Cell cell = new Cell(r, c);
+				grid.set(cell, region.terrainAt(cell));
+			}
+		}
+
+		return grid;
+	}
+
+	/** Picks pairs of walkable cells at random, always the same ones
+	 * for a given grid.
+	 *
+	 * @param grid The grid
+	 * @return The pairs.
+	 */
+	private static Cell[][] openPairs(TerrainGrid grid) {
+		Random random = new Random(1);
+		List<Cell> open = new ArrayList<>();
+
+		for (int r = 0; r < grid.rows(); r++) {
+			for (int c = 0; c < grid.cols(); c++) {
+				if (grid.isWalkable(r, c)) {
+					open.add(new Cell(r, c));
+				}
+			}
+		}
+
+		Cell[][] pairs = new Cell[PAIRS][];
+
+		for (int i = 0; i < PAIRS; i++) {
+			pairs[i] = new Cell[] {
+				open.get(random.nextInt(open.size())),
+				open.get(random.nextInt(open.size()))
+			};
+		}
+
+		return pairs;
+	}
+
+	/** A region that's nothing but a maze. */
+	private static class MazeRegion extends Region {
+		private static final long serialVersionUID = 1L;
+
+		MazeRegion(TerrainGrid grid) {
+			super("maze", 1);
+			setMap(grid);
+		}
+
+		@Override
+		public String title() {
+			return "Maze";
+		}
+	}
+}
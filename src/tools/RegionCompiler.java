@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import rpg.RegionAsset;
+import rpg.world.World;
+import rpg.world.bugland.BugLand;
+import rpg.world.castle_floob.FloobEntry;
+import rpg.world.floobham.Floobham;
+import rpg.world.floobham.Sewers;
+
+/** Compiles each region's Tiled map and strings table into a RegionAsset,
+ * which the region then loads at run time without parsing.  The asset
+ * for X.json and X.strings is written to X.region in the same source
+ * directory, to be shipped along with them.  Rerun the compiler whenever
+ * a map or strings table changes; until then, the game warns that the
+ * asset is out of date and reads the sources instead.<p>
+ *
+ * Usage: RegionCompiler [srcDir]<p>
+ *
+ * The default source directory is "src".  Run with
+ * -Djava.awt.headless=true.
+ * @author will
+ *
+ */
+public class RegionCompiler {
+	/** The regions to compile: the class that owns the resources, and the
+	 * base name of the resources. */
+	private static final Object[][] REGIONS = {
+		{ World.class, World.ID },
+		{ Floobham.class, Floobham.ID },
+		{ Sewers.class, Sewers.ID },
+		{ BugLand.class, BugLand.ID },
+		{ FloobEntry.class, FloobEntry.ID },
+	};
+
+	/**
+	 * @param args The source directory
+	 */
+	public static void main(String[] args) throws IOException {
+		File srcDir = new File(args.length > 0 ? args[0] : "src");
+
+		for (Object[] region : REGIONS) {
+			Class<?> cls = (Class<?>)region[0];
+			String base = (String)region[1];
+			File dir = new File(srcDir,
+					cls.getPackage().getName().replace('.', File.separatorChar));
+			File out = new File(dir, base + RegionAsset.SUFFIX);
+
+			RegionAsset.compile(cls, base, out);
+			System.out.println("Wrote " + out + " (" + out.length() +
+					" bytes)");
+		}
+	}
+}
@@ -0,0 +1,304 @@
+/**
+ *
+ */
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.GsonBuilder;
+
+/** Metrics records where the time goes: how long the simulation's steps,
+ * the mobiles' moves, and the map painting take, and how much work the
+ * route finder and line-of-sight checks do.  Metrics are off by default;
+ * while they're off, each call costs a single volatile read.<p>
+ *
+ * There are two kinds of metric.  A sample metric records a value each
+ * time something happens: an elapsed time, e.g., of a step, via start()
+ * and time(), or a quantity, e.g., the length of a route, via value().
+ * A counter metric counts events, e.g., line-of-sight checks, via
+ * count(); at the end of each simulation step, endTick() records each
+ * counter's total for the step as a sample, and resets it.<p>
+ *
+ * For each metric, Metrics keeps the number of samples, their total and
+ * maximum, and the most recent WINDOW samples.  Metrics may be recorded
+ * from any thread.
+ * @author will
+ */
+public final class Metrics {
+	/** The number of recent samples kept for each metric. */
+	public static final int WINDOW = 100;
+
+	// Not instantiable
+	private Metrics() {}
+
+	// Static Variables
+	private static volatile boolean enabled = false;
+
+	// The metrics by name, and the counts for the current step.  Both
+	// are guarded by the class lock.
+	private static final Map<String,Stat> stats = new TreeMap<>();
+	private static final Map<String,long[]> counters = new TreeMap<>();
+
+	//-------------------------------------------------------------------------
+	// Control
+
+	/** @return true if metrics are being recorded, and false otherwise. */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/** Turns recording on or off.  Turning it on discards any metrics
+	 * already recorded.
+	 *
+	 * @param flag true to record metrics, and false otherwise.
+	 */
+	public static synchronized void setEnabled(boolean flag) {
+		if (flag && !enabled) {
+			stats.clear();
+			counters.clear();
+		}
+
+		enabled = flag;
+	}
+
+	//-------------------------------------------------------------------------
+	// Recording
+
+	/** Begins timing something.
+	 *
+	 * @return The start time, to be passed to time(), or 0 if metrics
+	 * are off.
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/** Records the time elapsed since a call to start().
+	 *
+	 * @param name The metric's name
+	 * @param start The value returned by start().
+	 */
+	public static void time(String name, long start) {
+		if (enabled && start != 0) {
+			record(name, true, System.nanoTime() - start);
+		}
+	}
+
+	/** Records a sample value.
+	 *
+	 * @param name The metric's name
+	 * @param value The value
+	 */
+	public static void value(String name, long value) {
+		if (enabled) {
+			record(name, false, value);
+		}
+	}
+
+	/** Counts an event during the current simulation step.
+	 *
+	 * @param name The metric's name
+	 */
+	public static void count(String name) {
+		if (enabled) {
+			synchronized (Metrics.class) {
+				long[] counter = counters.get(name);
+
+				if (counter == null) {
+					counter = new long[1];
+					counters.put(name, counter);
+				}
+
+				counter[0]++;
+			}
+		}
+	}
+
+	/** Ends the current simulation step, recording the step's total
+	 * for each counter.
+	 */
+	public static synchronized void endTick() {
+		if (!enabled) {
+			return;
+		}
+
+		for (Map.Entry<String,long[]> entry : counters.entrySet()) {
+			record(entry.getKey(), false, entry.getValue()[0]);
+			entry.getValue()[0] = 0;
+		}
+	}
+
+	/** Records a sample.
+	 *
+	 * @param name The metric's name
+	 * @param isTime true if the sample is a time in nanoseconds.
+	 * @param value The sample
+	 */
+	private static synchronized void record(String name, boolean isTime,
+			long value) {
+		Stat stat = stats.get(name);
+
+		if (stat == null) {
+			stat = new Stat(isTime);
+			stats.put(name, stat);
+		}
+
+		stat.add(value);
+	}
+
+	//-------------------------------------------------------------------------
+	// Reporting
+
+	/** Returns a one-line summary of each metric, for display: the
+	 * last sample, and the mean and maximum of the recent samples.
+	 * Times are given in milliseconds.
+	 *
+	 * @return The lines
+	 */
+	public static synchronized List<String> summary() {
+		List<String> lines = new ArrayList<>(stats.size());
+
+		for (Map.Entry<String,Stat> entry : stats.entrySet()) {
+			Stat stat = entry.getValue();
+
+			lines.add(String.format("%-14s last %s  avg %s  max %s",
+					entry.getKey(),
+					stat.format(stat.last()),
+					stat.format(stat.recentMean()),
+					stat.format(stat.recentMax())));
+		}
+
+		return lines;
+	}
+
+	/** Writes the metrics to a CSV file, one row per metric.  Times are
+	 * given in nanoseconds.
+	 *
+	 * @param file The file
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void writeCsv(File file) throws IOException {
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(
+				file.toPath(), StandardCharsets.UTF_8))) {
+			out.println("name,unit,count,total,mean,max,recentMean,recentMax");
+
+			for (Map.Entry<String,Map<String,Object>> entry :
+					report().entrySet()) {
+				out.print(entry.getKey());
+
+				for (Object value : entry.getValue().values()) {
+					out.print(",");
+					out.print(value);
+				}
+
+				out.println();
+			}
+		}
+	}
+
+	/** Writes the metrics to a JSON file, as an object whose keys are
+	 * the metrics' names.  Times are given in nanoseconds.
+	 *
+	 * @param file The file
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void writeJson(File file) throws IOException {
+		try (Writer out = Files.newBufferedWriter(file.toPath(),
+				StandardCharsets.UTF_8)) {
+			new GsonBuilder().setPrettyPrinting().create()
+				.toJson(report(), out);
+		}
+	}
+
+	/** @return the statistics for each metric, in the order of the CSV
+	 * columns.
+	 */
+	private static synchronized Map<String,Map<String,Object>> report() {
+		Map<String,Map<String,Object>> result = new LinkedHashMap<>();
+
+		for (Map.Entry<String,Stat> entry : stats.entrySet()) {
+			Stat stat = entry.getValue();
+			Map<String,Object> row = new LinkedHashMap<>();
+
+			row.put("unit", stat.isTime ? "ns" : "count");
+			row.put("count", stat.count);
+			row.put("total", stat.total);
+			row.put("mean", stat.count > 0 ? stat.total/stat.count : 0);
+			row.put("max", stat.max);
+			row.put("recentMean", stat.recentMean());
+			row.put("recentMax", stat.recentMax());
+
+			result.put(entry.getKey(), row);
+		}
+
+		return result;
+	}
+
+	//-------------------------------------------------------------------------
+	// Statistics
+
+	/** The statistics for a single metric. */
+	private static final class Stat {
+		final boolean isTime;
+		long count = 0;
+		long total = 0;
+		long max = Long.MIN_VALUE;
+
+		// The recent samples, a ring buffer.
+		final long[] recent = new long[WINDOW];
+
+		Stat(boolean isTime) {
+			this.isTime = isTime;
+		}
+
+		void add(long value) {
+			recent[(int)(count % WINDOW)] = value;
+			count++;
+			total += value;
+			max = Math.max(max, value);
+		}
+
+		long last() {
+			return recent[(int)((count - 1) % WINDOW)];
+		}
+
+		long recentMean() {
+			int n = (int)Math.min(count, WINDOW);
+			long sum = 0;
+
+			for (int i = 0; i < n; i++) {
+				sum += recent[i];
+			}
+
+			return sum / n;
+		}
+
+		long recentMax() {
+			int n = (int)Math.min(count, WINDOW);
+			long result = Long.MIN_VALUE;
+
+			for (int i = 0; i < n; i++) {
+				result = Math.max(result, recent[i]);
+			}
+
+			return result;
+		}
+
+		/** Formats a value for display: times in milliseconds. */
+		String format(long value) {
+			return isTime
+				? String.format("%7.3fms", value / 1.0e6)
+				: String.format("%7d  ", value);
+		}
+	}
+}
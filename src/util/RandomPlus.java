@@ -7,12 +7,49 @@ import java.util.List;
 import java.util.Random;
 
 /** Normal random number generation, plus additional
- * convenience methods.
+ * convenience methods.<p>
+ * 
+ * A thread can substitute a seeded stream of its own for every 
+ * RandomPlus it uses, including the shared ones, by calling
+ * setThreadSeed(); this makes a simulation repeatable, and keeps
+ * simulations on different threads from contending for the same
+ * generators.
  * @author will
  *
  */
 public final class RandomPlus extends Random {
 	private static final long serialVersionUID = 1L;
+	
+	// The stream used by all RandomPlus objects on this thread, if any.
+	private static final ThreadLocal<Random> stream = new ThreadLocal<>();
+	
+	/** Makes every RandomPlus object used on this thread draw from a 
+	 * single stream with the given seed, or from its own generator
+	 * again.
+	 * 
+	 * @param seed The seed, or null to stop using a thread stream.
+	 */
+	public static void setThreadSeed(Long seed) {
+		if (seed != null) {
+			stream.set(new Random(seed));
+		} else {
+			stream.remove();
+		}
+	}
+	
+	/** Generates the next random bits, from the thread's stream if
+	 * it has one.
+	 */
+	@Override
+	protected int next(int bits) {
+		Random r = stream.get();
+		
+		if (r != null) {
+			return r.nextInt() >>> (32 - bits);
+		} else {
+			return super.next(bits);
+		}
+	}
 
 	/** Rolls a random number of points from min to max,
 	 * uniformly distributed.
@@ -7,11 +7,15 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** This class will load a Strings Table resource from disk, returning the
  * resource as a Map from keys to strings.  The file's contents is line
@@ -38,15 +42,53 @@ import java.util.Scanner;
  *
  */
 public final class StringsTable {
+	// Tables parsed ahead of time by preload(), by resource URL.
+	private static final Map<String,Map<String,String>> preloaded = 
+			new ConcurrentHashMap<>();
+	
 	// Instance variables
 	Map<String,String> table;
+	
+	// The keys, sorted by their lower-case forms, so that the keys that 
+	// match a pattern's literal prefix form a contiguous range.
+	private final String[] keys;
+	private final String[] lowerKeys;
+	
+	/** The maximum number of patterns whose matches are remembered. */
+	private static final int MAX_PATTERNS = 64;
+	
+	// The keys that match each pattern queried recently; it's cleared
+	// when it's full.
+	private final Map<String,List<String>> matches = 
+			new ConcurrentHashMap<>();
 
 	/** Creates a Strings table using the strings in the named resource.
 	 * @param cls  The class that owns the resource.
 	 * @param resource The resource name..
 	 */
 	public StringsTable(Class<?> cls, String resource) {
-		table = load(cls,resource);
+		this(load(cls,resource));
+	}
+	
+	/** Creates a Strings table from strings that have already been
+	 * loaded, e.g., from a compiled region asset.
+	 * @param table The map from keys to strings.
+	 */
+	public StringsTable(Map<String,String> table) {
+		this.table = table;
+		
+		// NEXT, index the keys.
+		keys = table.keySet().toArray(new String[table.size()]);
+		Arrays.sort(keys, new Comparator<String>() {
+			public int compare(String a, String b) {
+				return lower(a).compareTo(lower(b));
+			}
+		});
+		lowerKeys = new String[keys.length];
+		
+		for (int i = 0; i < keys.length; i++) {
+			lowerKeys[i] = lower(keys[i]);
+		}
 	}
 	
 	//-------------------------------------------------------------------------
@@ -61,43 +103,113 @@ public final class StringsTable {
 		return table.get(key);
 	}
 	
-	/** @return a list of the keys. */
+	/** @return a list of the keys, in order, ignoring case. */
 	public List<String> keyList() {
-		List<String> keys = new ArrayList<>();
-		keys.addAll(table.keySet());
-		return keys;
+		return new ArrayList<>(Arrays.asList(keys));
 	}
 
-	/** Return a list of the keys that match a glob pattern
+	/** Return a list of the keys that match a glob pattern, in order, 
+	 * ignoring case.  See StringUtil.matches().
 	 * @param pattern The glob pattern 
 	 * @return the list.
 	 */
 	public List<String> keyList(String pattern) {
-		List<String> keys = new ArrayList<>();
-		
-		for (String key : table.keySet()) {
-			if (StringUtil.matches(pattern, key))
-				keys.add(key);
-		}
-
-		return keys;
+		return new ArrayList<>(matching(pattern));
 	}
 
-	/** Return a list of the strings whose keys match a glob pattern
+	/** Return a list of the strings whose keys match a glob pattern, in
+	 * the order of their keys.
 	 * @param pattern The glob pattern 
 	 * @return the list.
 	 */
 	public List<String> strings(String pattern) {
 		List<String> strings = new ArrayList<>();
 		
-		for (String key : table.keySet()) {
-			if (StringUtil.matches(pattern, key))
-				strings.add(table.get(key));
+		for (String key : matching(pattern)) {
+			strings.add(table.get(key));
 		}
 
 		return strings;
 	}
+	
+	/** Finds the keys that match a glob pattern.  Only the keys that 
+	 * begin with the pattern's literal prefix, i.e., the part before the
+	 * first wildcard, can match; they are found by binary search, and 
+	 * only they are checked against the whole pattern.  The result is 
+	 * remembered for the next time.
+	 * 
+	 * @param pattern The glob pattern
+	 * @return The matching keys; the list must not be modified.
+	 */
+	private List<String> matching(String pattern) {
+		List<String> result = matches.get(pattern);
+		
+		if (result != null) {
+			return result;
+		}
+		
+		// FIRST, find the range of keys that begin with the prefix.
+		int end = 0;
+		
+		while (end < pattern.length() && 
+			pattern.charAt(end) != '*' && pattern.charAt(end) != '?') {
+			end++;
+		}
+		
+		String prefix = lower(pattern.substring(0, end));
+		int from = 0;
+		int to = lowerKeys.length;
+		
+		while (from < to) {
+			int mid = (from + to) >>> 1;
+			
+			if (lowerKeys[mid].compareTo(prefix) < 0) {
+				from = mid + 1;
+			} else {
+				to = mid;
+			}
+		}
+		
+		// NEXT, check each key in the range against the pattern.
+		result = new ArrayList<>();
+		
+		for (int i = from; i < keys.length && lowerKeys[i].startsWith(prefix); i++) {
+			if (StringUtil.matches(pattern, keys[i])) {
+				result.add(keys[i]);
+			}
+		}
+		
+		result = Collections.unmodifiableList(result);
+		
+		if (matches.size() >= MAX_PATTERNS) {
+			matches.clear();
+		}
+		
+		matches.put(pattern, result);
+		
+		return result;
+	}
 
+	/** Returns a key in lower case, for indexing.  Each character is 
+	 * folded just as String.equalsIgnoreCase() folds it, which is how
+	 * StringUtil.matches() compares them; the result doesn't depend on
+	 * the default locale, and has the same length as the key.  (Even
+	 * toLowerCase(Locale.ROOT) turns the Turkish dotted "I" into two
+	 * characters.)
+	 * 
+	 * @param key The key, or part of it
+	 * @return The key in lower case
+	 */
+	private static String lower(String key) {
+		char[] chars = key.toCharArray();
+		
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		
+		return new String(chars);
+	}
+	
 	//-------------------------------------------------------------------------
 	// Static API
 	
@@ -111,7 +223,13 @@ public final class StringsTable {
 	 * @return The strings table.
 	 */
 	private final static Map<String,String> load(Class<?> cls, String resource) {
-		Map<String,String> table = null;
+		URL url = cls.getResource(resource);
+		Map<String,String> table = 
+				(url != null) ? preloaded.remove(url.toString()) : null;
+		
+		if (table != null) {
+			return table;
+		}
 		
 		try {
 			table = parse(readFile(cls.getResourceAsStream(resource)));
@@ -124,6 +242,28 @@ public final class StringsTable {
 		return table;
 	}
 	
+	/** Parses a StringsTable resource ahead of time, so that the table
+	 * can later be created without parsing it.  This may be called on any
+	 * thread.  Does nothing if the resource can't be loaded; the error is
+	 * reported when the table is created.
+	 * 
+	 * @param cls  The class that owns the resource.
+	 * @param resource The resource name.
+	 */
+	public static void preload(Class<?> cls, String resource) {
+		URL url = cls.getResource(resource);
+		
+		if (url == null) {
+			return;
+		}
+		
+		try (InputStream istream = url.openStream()) {
+			preloaded.put(url.toString(), parse(readFile(istream)));
+		} catch (Exception e) {
+			// Reported when the table is created.
+		}
+	}
+	
 	/** Parses a StringsTable resource into a map.
 	 * 
 	 * @param lines A table resource, already split into lines; see the class 
@@ -139,17 +279,20 @@ public final class StringsTable {
 		StringBuilder buffer = new StringBuilder();
 		
 		for (String line : lines) {
-			Scanner scanner = new Scanner(line);
+			// FIRST, get the directive, if any: the line's first word, if
+			// it begins with "%".
+			int start = skipSpace(line, 0);
+			String directive = line.startsWith("%", start) 
+					? wordAt(line, start) : "";
 			
-			// FIRST, if we're in the string either we've got another
+			// NEXT, if we're in the string either we've got another
 			// line or we are at the end of the string.
 			if (inString) {
-				if (scanner.hasNext("%end")) {
+				if (directive.equals("%end")) {
 					map.put(key, buffer.toString().trim());
 					buffer.delete(0, buffer.length());
 					inString = false;
-				} else if (scanner.hasNext("%string")) {
-					scanner.close();
+				} else if (directive.equals("%string")) {
 					throw new InvalidFormatException("no %end for %string " + key);
 				} else {
 					buffer.append(line);
@@ -162,13 +305,16 @@ public final class StringsTable {
 			
 			// NEXT, we're waiting for the next string.
 			// Ignore anything but %string.
-			if (scanner.hasNext("%string")) {
-				scanner.next();  // Skip the keyword
-				key = scanner.next();
+			if (directive.equals("%string")) {
+				int at = skipSpace(line, start + directive.length());
+				
+				if (at == line.length()) {
+					throw new InvalidFormatException("no key for %string");
+				}
+				
+				key = wordAt(line, at);
 				inString = true;
 			}
-			
-			scanner.close();
 		}
 		
 		if (inString) {
@@ -178,6 +324,38 @@ public final class StringsTable {
 		return map;
 	}
 	
+	/** Skips whitespace.
+	 * 
+	 * @param line The line
+	 * @param i The index at which to start
+	 * @return The index of the next non-whitespace character, or the 
+	 * length of the line.
+	 */
+	private static int skipSpace(String line, int i) {
+		while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+			i++;
+		}
+		
+		return i;
+	}
+	
+	/** Gets the word at an index, i.e., the characters up to the next 
+	 * whitespace or the end of the line.
+	 * 
+	 * @param line The line
+	 * @param i The index of the word's first character
+	 * @return The word
+	 */
+	private static String wordAt(String line, int i) {
+		int end = i;
+		
+		while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+			end++;
+		}
+		
+		return line.substring(i, end);
+	}
+	
 	private static List<String> readFile(InputStream istream) 
 	throws IOException {
 		List<String> lines = new ArrayList<>();